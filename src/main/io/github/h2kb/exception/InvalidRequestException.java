@@ -0,0 +1,15 @@
+package io.github.h2kb.exception;
+
+public class InvalidRequestException extends RuntimeException {
+
+    private final int statusCode;
+
+    public InvalidRequestException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.h2kb.http;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-context limits on requests in flight, counting those still waiting for a worker thread. A request over the
+ * budget of its context is answered with 429 and a {@code Retry-After} of {@code retryAfter}, so expensive contexts
+ * get small budgets of their own and cannot use up the capacity meant for single-task reads.
+ */
+public record AdmissionConfig(int defaultBudget, Map<String, Integer> budgets, Duration retryAfter) {
+
+    public static final int DEFAULT_BUDGET = 256;
+    public static final int PRIORITIZED_BUDGET = 8;
+    public static final int BACKUP_BUDGET = 1;
+    public static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+    public AdmissionConfig {
+        if (defaultBudget < 0) {
+            throw new IllegalArgumentException("Default budget must not be negative: " + defaultBudget);
+        }
+
+        budgets.forEach((context, budget) -> {
+            if (budget < 0) {
+                throw new IllegalArgumentException("Budget of " + context + " must not be negative: " + budget);
+            }
+        });
+
+        if (retryAfter.isNegative()) {
+            throw new IllegalArgumentException("Retry-After must not be negative: " + retryAfter);
+        }
+
+        budgets = Map.copyOf(budgets);
+    }
+
+    public static AdmissionConfig defaults() {
+        return new AdmissionConfig(DEFAULT_BUDGET, Map.of("/prioritized", PRIORITIZED_BUDGET,
+                "/backup", BACKUP_BUDGET), DEFAULT_RETRY_AFTER);
+    }
+
+    public AdmissionConfig withDefaultBudget(int defaultBudget) {
+        return new AdmissionConfig(defaultBudget, budgets, retryAfter);
+    }
+
+    public AdmissionConfig withBudget(String context, int budget) {
+        Map<String, Integer> updated = new HashMap<>(budgets);
+        updated.put(context, budget);
+
+        return new AdmissionConfig(defaultBudget, updated, retryAfter);
+    }
+
+    public AdmissionConfig withRetryAfter(Duration retryAfter) {
+        return new AdmissionConfig(defaultBudget, budgets, retryAfter);
+    }
+
+    public int budgetOf(String context) {
+        return budgets.getOrDefault(context, defaultBudget);
+    }
+}
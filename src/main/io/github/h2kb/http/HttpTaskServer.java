@@ -2,37 +2,93 @@ package io.github.h2kb.http;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import io.github.h2kb.http.adapter.DurationAdaptor;
 import io.github.h2kb.http.adapter.LocalDateTimeAdaptor;
+import io.github.h2kb.http.adapter.TaskAdaptorFactory;
+import io.github.h2kb.http.handler.AdmissionControlHandler;
+import io.github.h2kb.http.handler.AdmissionStatsHttpHandler;
+import io.github.h2kb.http.handler.BackupHttpHandler;
 import io.github.h2kb.http.handler.EpicHttpHandler;
 import io.github.h2kb.http.handler.HistoryHttpHandler;
 import io.github.h2kb.http.handler.PrioritizedHttpHandler;
 import io.github.h2kb.http.handler.SubTaskHttpHandler;
 import io.github.h2kb.http.handler.TaskHttpHandler;
+import io.github.h2kb.manager.FileBackedTaskManager;
 import io.github.h2kb.manager.Managers;
 import io.github.h2kb.manager.TaskManager;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class HttpTaskServer {
 
+    public static final int DEFAULT_THREADS = 2 * Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_QUEUE_CAPACITY = 1_024;
+
     private static final int PORT = 8080;
+    private static final Gson GSON = createGson(true);
+    private static final Gson SUMMARY_GSON = createGson(false);
     private final HttpServer httpServer;
+    private final ExecutorService executor;
+    private final AdmissionConfig admissionConfig;
+    private final Map<String, AdmissionControlHandler> admission = new LinkedHashMap<>();
 
     public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, null);
+    }
+
+    public HttpTaskServer(TaskManager taskManager, Path backupDirectory) throws IOException {
+        this(taskManager, backupDirectory, newBoundedExecutor(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY));
+    }
+
+    /**
+     * Requests are handled on {@code executor}, which the server shuts down on {@link #stop()}; with {@code null}
+     * they run on the single dispatcher thread of the underlying {@link HttpServer}. Each context admits requests on
+     * the dispatcher thread before handing them to the executor, so a context over its budget cannot fill the
+     * executor's queue. The task manager has to be safe for concurrent calls unless the executor is single-threaded.
+     */
+    public HttpTaskServer(TaskManager taskManager, Path backupDirectory, ExecutorService executor) throws IOException {
+        this(taskManager, backupDirectory, executor, AdmissionConfig.defaults());
+    }
+
+    public HttpTaskServer(TaskManager taskManager, Path backupDirectory, ExecutorService executor,
+                          AdmissionConfig admissionConfig) throws IOException {
+        this.executor = executor;
+        this.admissionConfig = admissionConfig;
         httpServer = HttpServer.create(new InetSocketAddress("localhost", PORT), 0);
-        httpServer.createContext("/tasks", new TaskHttpHandler(taskManager));
-        httpServer.createContext("/epics", new EpicHttpHandler(taskManager));
-        httpServer.createContext("/subtasks", new SubTaskHttpHandler(taskManager));
-        httpServer.createContext("/history", new HistoryHttpHandler(taskManager));
-        httpServer.createContext("/prioritized", new PrioritizedHttpHandler(taskManager));
+        httpServer.setExecutor(null);
+        createContext("/tasks", new TaskHttpHandler(taskManager));
+        createContext("/epics", new EpicHttpHandler(taskManager));
+        createContext("/subtasks", new SubTaskHttpHandler(taskManager));
+        createContext("/history", new HistoryHttpHandler(taskManager));
+        createContext("/prioritized", new PrioritizedHttpHandler(taskManager));
+
+        if (backupDirectory != null) {
+            if (!(taskManager instanceof FileBackedTaskManager fileBackedTaskManager)) {
+                throw new IllegalArgumentException("Backups require a file-backed task manager");
+            }
+
+            createContext("/backup", new BackupHttpHandler(fileBackedTaskManager, backupDirectory));
+        }
+
+        Map<String, AdmissionControlHandler> handlers = admission;
+        httpServer.createContext("/admission", new AdmissionStatsHttpHandler(() -> statsOf(handlers)));
     }
 
     public static void main(String[] args) throws IOException {
-        HttpTaskServer httpTaskServer = new HttpTaskServer(Managers.getDefault());
+        HttpTaskServer httpTaskServer = new HttpTaskServer(Managers.getConcurrent());
         httpTaskServer.start();
     }
 
@@ -42,12 +98,66 @@ public class HttpTaskServer {
 
     public void stop() {
         httpServer.stop(0);
+
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public Map<String, AdmissionControlHandler.Stats> getAdmissionStats() {
+        return statsOf(admission);
+    }
+
+    /**
+     * A virtual thread per request. Only suited to task managers that do not block while holding a monitor: the
+     * {@code synchronized} managers, the file-backed ones above all, do their I/O inside {@code synchronized} methods,
+     * which pins the carrier thread on JDK 21 and can leave the server with fewer runnable requests than a platform
+     * pool.
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-task-server-", 0).factory());
+    }
+
+    /**
+     * Platform thread pool with a bounded queue. When the queue is full the request is rejected rather than run on the
+     * dispatcher thread, which would stop it from accepting connections until the request completes.
+     */
+    public static ExecutorService newBoundedExecutor(int threads, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "http-task-server-" + threadNumber.getAndIncrement()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static Map<String, AdmissionControlHandler.Stats> statsOf(Map<String, AdmissionControlHandler> handlers) {
+        Map<String, AdmissionControlHandler.Stats> stats = new LinkedHashMap<>();
+        handlers.forEach((context, handler) -> stats.put(context, handler.getStats()));
+
+        return stats;
+    }
+
+    private void createContext(String path, HttpHandler handler) {
+        AdmissionControlHandler admissionHandler = new AdmissionControlHandler(handler, executor,
+                admissionConfig.budgetOf(path), admissionConfig.retryAfter());
+        admission.put(path, admissionHandler);
+        httpServer.createContext(path, admissionHandler);
     }
 
     public static Gson getGson() {
+        return GSON;
+    }
+
+    public static Gson getGson(boolean withDescriptions) {
+        return withDescriptions ? GSON : SUMMARY_GSON;
+    }
+
+    private static Gson createGson(boolean withDescriptions) {
         return new GsonBuilder()
                 .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdaptor())
                 .registerTypeAdapter(Duration.class, new DurationAdaptor())
+                .registerTypeAdapterFactory(new TaskAdaptorFactory(withDescriptions))
                 .create();
     }
 }
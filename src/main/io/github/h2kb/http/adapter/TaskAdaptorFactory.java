@@ -0,0 +1,195 @@
+package io.github.h2kb.http.adapter;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import io.github.h2kb.task.Epic;
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written adapters for {@link Task}, {@link Epic} and {@link SubTask} that stream fields straight to and from
+ * the JSON writer and reader instead of going through reflection. The description is written through
+ * {@link Task#getDescription()}, so descriptions kept off the heap are fetched for the response, or is left out
+ * entirely for summary listings.
+ */
+public class TaskAdaptorFactory implements TypeAdapterFactory {
+
+    private final boolean withDescriptions;
+
+    public TaskAdaptorFactory(boolean withDescriptions) {
+        this.withDescriptions = withDescriptions;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (!Task.class.isAssignableFrom(type.getRawType())) {
+            return null;
+        }
+
+        return (TypeAdapter<T>) new TaskAdaptor(type.getRawType(), gson.getAdapter(Duration.class),
+                gson.getAdapter(LocalDateTime.class));
+    }
+
+    private class TaskAdaptor extends TypeAdapter<Task> {
+
+        private final Class<?> taskClass;
+        private final TypeAdapter<Duration> durationAdapter;
+        private final TypeAdapter<LocalDateTime> dateTimeAdapter;
+
+        private TaskAdaptor(Class<?> taskClass, TypeAdapter<Duration> durationAdapter,
+                            TypeAdapter<LocalDateTime> dateTimeAdapter) {
+            this.taskClass = taskClass;
+            this.durationAdapter = durationAdapter;
+            this.dateTimeAdapter = dateTimeAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter jsonWriter, Task task) throws IOException {
+            if (task == null) {
+                jsonWriter.nullValue();
+                return;
+            }
+
+            jsonWriter.beginObject();
+
+            if (task instanceof SubTask subTask) {
+                jsonWriter.name("epicId").value(subTask.getEpicId());
+            }
+
+            if (task instanceof Epic epic) {
+                jsonWriter.name("subTaskIds");
+                writeIds(jsonWriter, epic.getSubTaskIds());
+                jsonWriter.name("endTime");
+                dateTimeAdapter.write(jsonWriter, epic.getEndTime());
+            }
+
+            jsonWriter.name("id").value(task.getId());
+            jsonWriter.name("name").value(task.getName());
+
+            if (withDescriptions) {
+                jsonWriter.name("description").value(task.getDescription());
+            }
+
+            jsonWriter.name("status").value(task.getStatus() == null ? null : task.getStatus().name());
+            jsonWriter.name("duration");
+            durationAdapter.write(jsonWriter, task.getDuration());
+            jsonWriter.name("startTime");
+            dateTimeAdapter.write(jsonWriter, task.getStartTime());
+            jsonWriter.endObject();
+        }
+
+        @Override
+        public Task read(JsonReader jsonReader) throws IOException {
+            if (jsonReader.peek() == JsonToken.NULL) {
+                jsonReader.nextNull();
+                return null;
+            }
+
+            Integer id = null;
+            String name = null;
+            String description = null;
+            Status status = null;
+            Duration duration = null;
+            LocalDateTime startTime = null;
+            LocalDateTime endTime = null;
+            Integer epicId = null;
+            List<Integer> subTaskIds = null;
+
+            jsonReader.beginObject();
+
+            while (jsonReader.hasNext()) {
+                String field = jsonReader.nextName();
+
+                if (jsonReader.peek() == JsonToken.NULL) {
+                    jsonReader.nextNull();
+                    continue;
+                }
+
+                switch (field) {
+                    case "id" -> id = jsonReader.nextInt();
+                    case "name" -> name = jsonReader.nextString();
+                    case "description" -> description = jsonReader.nextString();
+                    case "status" -> status = statusOf(jsonReader.nextString());
+                    case "duration" -> duration = durationAdapter.read(jsonReader);
+                    case "startTime" -> startTime = dateTimeAdapter.read(jsonReader);
+                    case "endTime" -> endTime = dateTimeAdapter.read(jsonReader);
+                    case "epicId" -> epicId = jsonReader.nextInt();
+                    case "subTaskIds" -> subTaskIds = readIds(jsonReader);
+                    default -> jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+
+            Task task;
+
+            if (Epic.class.isAssignableFrom(taskClass)) {
+                Epic epic = new Epic(name, description, status);
+                epic.setDuration(duration);
+                epic.setStartTime(startTime);
+                epic.setEndTime(endTime);
+                epic.setSubTaskIds(subTaskIds);
+                task = epic;
+            } else if (SubTask.class.isAssignableFrom(taskClass)) {
+                task = new SubTask(name, description, status, epicId, duration, startTime);
+            } else {
+                task = new Task(name, description, status, duration, startTime);
+            }
+
+            task.setId(id);
+
+            return task;
+        }
+
+        private static void writeIds(JsonWriter jsonWriter, List<Integer> ids) throws IOException {
+            if (ids == null) {
+                jsonWriter.nullValue();
+                return;
+            }
+
+            jsonWriter.beginArray();
+
+            for (Integer id : ids) {
+                jsonWriter.value(id);
+            }
+
+            jsonWriter.endArray();
+        }
+
+        private static List<Integer> readIds(JsonReader jsonReader) throws IOException {
+            List<Integer> ids = new ArrayList<>();
+            jsonReader.beginArray();
+
+            while (jsonReader.hasNext()) {
+                ids.add(jsonReader.nextInt());
+            }
+
+            jsonReader.endArray();
+
+            return ids;
+        }
+
+        private static Status statusOf(String name) throws MalformedJsonException {
+            for (Status status : Status.values()) {
+                if (status.name().equals(name)) {
+                    return status;
+                }
+            }
+
+            throw new MalformedJsonException("Invalid value of status: " + name);
+        }
+    }
+}
@@ -1,35 +1,37 @@
 package io.github.h2kb.http.handler;
 
 import com.sun.net.httpserver.HttpExchange;
+import io.github.h2kb.exception.InvalidRequestException;
 import io.github.h2kb.exception.TaskIntersectionOfTimeException;
 import io.github.h2kb.http.HttpTaskServer;
+import io.github.h2kb.manager.TaskCursor;
 import io.github.h2kb.manager.TaskManager;
+import io.github.h2kb.manager.TaskQuery;
 import io.github.h2kb.task.Task;
 import java.io.IOException;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.function.Supplier;
 
 public abstract class AbstractTaskHandler<T extends Task> extends BaseHttpHandler {
 
     protected final TaskManager taskManager;
     private final Class<T> taskClass;
-    private final Supplier<List<T>> allTasksSupplier;
+    private final Function<TaskQuery, List<T>> findTasksFunction;
     private final Function<Integer, T> taskByIdFunction;
     private final Function<T, Integer> createTaskFunction;
     private final Consumer<T> updateTaskConsumer;
     private final Consumer<Integer> removeTaskConsumer;
 
     public AbstractTaskHandler(TaskManager taskManager, Class<T> taskClass,
-            Supplier<List<T>> allTasksSupplier,
+            Function<TaskQuery, List<T>> findTasksFunction,
             Function<Integer, T> taskByIdFunction,
             Function<T, Integer> createTaskFunction,
             Consumer<T> updateTaskFunction,
             Consumer<Integer> removeTaskFunction) {
         this.taskManager = taskManager;
         this.taskClass = taskClass;
-        this.allTasksSupplier = allTasksSupplier;
+        this.findTasksFunction = findTasksFunction;
         this.taskByIdFunction = taskByIdFunction;
         this.createTaskFunction = createTaskFunction;
         this.updateTaskConsumer = updateTaskFunction;
@@ -38,13 +40,16 @@ public abstract class AbstractTaskHandler<T extends Task> extends BaseHttpHandle
 
     @Override
     public void handle(HttpExchange httpExchange) throws IOException {
-
-        switch (httpExchange.getRequestMethod()) {
-            case "GET" -> handleGet(httpExchange);
-            case "POST" -> handlePost(httpExchange);
-            case "DELETE" -> handleDelete(httpExchange);
-            default -> sendError(httpExchange, 405,
-                    String.format("Unsupported request method: %s", httpExchange.getRequestMethod()));
+        try {
+            switch (httpExchange.getRequestMethod()) {
+                case "GET" -> handleGet(httpExchange);
+                case "POST" -> handlePost(httpExchange);
+                case "DELETE" -> handleDelete(httpExchange);
+                default -> sendError(httpExchange, 405,
+                        String.format("Unsupported request method: %s", httpExchange.getRequestMethod()));
+            }
+        } catch (InvalidRequestException e) {
+            sendError(httpExchange, e.getStatusCode(), e.getMessage());
         }
     }
 
@@ -55,13 +60,12 @@ public abstract class AbstractTaskHandler<T extends Task> extends BaseHttpHandle
             T existedTask = taskByIdFunction.apply(taskId);
 
             if (existedTask != null) {
-                sendText(httpExchange, HttpTaskServer.getGson().toJson(existedTask));
+                sendJson(httpExchange, HttpTaskServer.getGson(), existedTask);
             } else {
                 sendError(httpExchange, 404, String.format(TASK_NOT_FOUND, taskClass.getSimpleName(), taskId));
             }
         } else {
-            List<T> tasks = allTasksSupplier.get();
-            sendText(httpExchange, HttpTaskServer.getGson().toJson(tasks));
+            sendPage(httpExchange, getQueryFromRequest(httpExchange, false), findTasksFunction, TaskCursor::byId);
         }
     }
 
@@ -74,8 +78,13 @@ public abstract class AbstractTaskHandler<T extends Task> extends BaseHttpHandle
             if (existedTask != null) {
                 T taskFromRequest = getTaskFromRequest(httpExchange, taskClass);
                 taskFromRequest.setId(existedTask.getId());
-                updateTaskConsumer.accept(taskFromRequest);
-                sendText(httpExchange, HttpTaskServer.getGson().toJson(taskFromRequest));
+
+                try {
+                    updateTaskConsumer.accept(taskFromRequest);
+                    sendJson(httpExchange, HttpTaskServer.getGson(), taskFromRequest);
+                } catch (TaskIntersectionOfTimeException e) {
+                    sendError(httpExchange, 406, e.getMessage());
+                }
             } else {
                 sendError(httpExchange, 404, String.format(TASK_NOT_FOUND, taskClass.getSimpleName(), taskId));
             }
@@ -83,7 +92,7 @@ public abstract class AbstractTaskHandler<T extends Task> extends BaseHttpHandle
             T task = getTaskFromRequest(httpExchange, taskClass);
 
             try {
-                sendText(httpExchange, HttpTaskServer.getGson().toJson(createTaskFunction.apply(task)));
+                sendJson(httpExchange, HttpTaskServer.getGson(), createTaskFunction.apply(task));
             } catch (TaskIntersectionOfTimeException e) {
                 sendError(httpExchange, 406, e.getMessage());
             }
@@ -98,7 +107,7 @@ public abstract class AbstractTaskHandler<T extends Task> extends BaseHttpHandle
 
             if (existedTask != null) {
                 removeTaskConsumer.accept(taskId);
-                sendText(httpExchange, HttpTaskServer.getGson().toJson(existedTask));
+                sendJson(httpExchange, HttpTaskServer.getGson(), existedTask);
             } else {
                 sendError(httpExchange, 404, String.format(TASK_NOT_FOUND, taskClass.getSimpleName(), taskId));
             }
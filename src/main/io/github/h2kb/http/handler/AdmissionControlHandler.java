@@ -0,0 +1,114 @@
+package io.github.h2kb.http.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admits at most {@code budget} requests of a context at a time, counting both those queued on the executor and those
+ * running, and turns the rest away with 429 before any parsing. The decision is made on the server's dispatcher
+ * thread before the request is queued, so an overloaded context sheds load instead of filling the shared queue. A
+ * request the executor itself rejects is turned away the same way rather than run on the dispatcher thread. With a
+ * {@code null} executor admitted requests run on the dispatcher thread. A request whose handler fails is logged and
+ * answered with 500 if no response has been started yet.
+ */
+public class AdmissionControlHandler extends BaseHttpHandler {
+
+    private static final System.Logger LOGGER = System.getLogger(AdmissionControlHandler.class.getName());
+
+    private final HttpHandler delegate;
+    private final Executor executor;
+    private final int budget;
+    private final Semaphore permits;
+    private final String retryAfterSeconds;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public AdmissionControlHandler(HttpHandler delegate, Executor executor, int budget, Duration retryAfter) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.budget = budget;
+        this.permits = new Semaphore(budget);
+        this.retryAfterSeconds = String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+    }
+
+    @Override
+    public void handle(HttpExchange httpExchange) throws IOException {
+        if (!permits.tryAcquire()) {
+            reject(httpExchange);
+            return;
+        }
+
+        if (executor == null) {
+            admitted.increment();
+            run(httpExchange);
+            return;
+        }
+
+        queued.incrementAndGet();
+
+        try {
+            executor.execute(() -> {
+                queued.decrementAndGet();
+                run(httpExchange);
+            });
+            admitted.increment();
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            permits.release();
+            reject(httpExchange);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(budget, queued.get(), running.get(), admitted.sum(), rejected.sum());
+    }
+
+    private void run(HttpExchange httpExchange) {
+        running.incrementAndGet();
+
+        try {
+            delegate.handle(httpExchange);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(System.Logger.Level.ERROR, "Request " + httpExchange.getRequestMethod() + " "
+                    + httpExchange.getRequestURI() + " failed", e);
+            fail(httpExchange);
+        } finally {
+            running.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    /**
+     * Answers a failed request with 500 unless its response was already started, and closes the exchange either way:
+     * off the dispatcher thread nobody else would.
+     */
+    private void fail(HttpExchange httpExchange) {
+        try {
+            if (httpExchange.getResponseCode() == -1) {
+                sendError(httpExchange, 500, "Internal server error");
+            }
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.DEBUG, "Error response could not be sent", e);
+        } finally {
+            httpExchange.close();
+        }
+    }
+
+    private void reject(HttpExchange httpExchange) throws IOException {
+        rejected.increment();
+        httpExchange.getResponseHeaders().add("Retry-After", retryAfterSeconds);
+        sendError(httpExchange, 429, "Too many requests, retry later");
+    }
+
+    public record Stats(int budget, int queued, int running, long admitted, long rejected) {
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.h2kb.http.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import io.github.h2kb.http.HttpTaskServer;
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class AdmissionStatsHttpHandler extends BaseHttpHandler {
+
+    private final Supplier<Map<String, AdmissionControlHandler.Stats>> stats;
+
+    public AdmissionStatsHttpHandler(Supplier<Map<String, AdmissionControlHandler.Stats>> stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public void handle(HttpExchange httpExchange) throws IOException {
+        if (httpExchange.getRequestMethod().equals("GET")) {
+            sendJson(httpExchange, HttpTaskServer.getGson(), stats.get());
+        } else {
+            sendError(httpExchange, 405,
+                    String.format("Unsupported request method: %s", httpExchange.getRequestMethod()));
+        }
+    }
+}
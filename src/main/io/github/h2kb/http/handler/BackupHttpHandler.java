@@ -0,0 +1,45 @@
+package io.github.h2kb.http.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import io.github.h2kb.exception.ManagerSaveException;
+import io.github.h2kb.http.HttpTaskServer;
+import io.github.h2kb.manager.FileBackedTaskManager;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+public class BackupHttpHandler extends BaseHttpHandler {
+
+    private static final DateTimeFormatter BACKUP_NAME_FORMATTER =
+            DateTimeFormatter.ofPattern("'backup-'yyyyMMdd-HHmmss-SSS");
+
+    private final FileBackedTaskManager taskManager;
+    private final Path backupDirectory;
+
+    public BackupHttpHandler(FileBackedTaskManager taskManager, Path backupDirectory) {
+        this.taskManager = taskManager;
+        this.backupDirectory = backupDirectory;
+    }
+
+    @Override
+    public void handle(HttpExchange httpExchange) throws IOException {
+        if (!httpExchange.getRequestMethod().equals("POST")) {
+            sendError(httpExchange, 405,
+                    String.format("Unsupported request method: %s", httpExchange.getRequestMethod()));
+            return;
+        }
+
+        Path target = backupDirectory.resolve(LocalDateTime.now().format(BACKUP_NAME_FORMATTER));
+
+        try {
+            Path file = taskManager.backup(target);
+            sendJson(httpExchange, HttpTaskServer.getGson(), Map.of("file", file.toString()));
+        } catch (IllegalArgumentException e) {
+            sendError(httpExchange, 409, e.getMessage());
+        } catch (ManagerSaveException e) {
+            sendError(httpExchange, 500, e.getMessage());
+        }
+    }
+}
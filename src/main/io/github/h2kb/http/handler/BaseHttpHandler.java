@@ -1,69 +1,273 @@
 package io.github.h2kb.http.handler;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
-import com.google.gson.JsonSyntaxException;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import io.github.h2kb.exception.InvalidRequestException;
 import io.github.h2kb.http.HttpTaskServer;
+import io.github.h2kb.manager.TaskCursor;
+import io.github.h2kb.manager.TaskQuery;
+import io.github.h2kb.task.Epic;
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.SubTask;
 import io.github.h2kb.task.Task;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
 
 public abstract class BaseHttpHandler implements HttpHandler {
 
     protected static final String TASK_NOT_FOUND = "%s with id %d is not found";
+    protected static final String DESCRIPTION_PARAMETER = "description";
+    protected static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int MAX_BODY_SIZE = 1 << 20;
+    private static final int BUFFER_SIZE = 8 * 1024;
 
-    protected void sendText(HttpExchange httpExchange, String text) throws IOException {
-        byte[] resp = text.getBytes(StandardCharsets.UTF_8);
+    protected void sendJson(HttpExchange httpExchange, Gson gson, Object value) throws IOException {
         httpExchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
-        httpExchange.sendResponseHeaders(200, resp.length);
-        httpExchange.getResponseBody().write(resp);
-        httpExchange.close();
+        httpExchange.sendResponseHeaders(200, 0);
+
+        try (JsonWriter jsonWriter = gson.newJsonWriter(new BufferedWriter(
+                new OutputStreamWriter(httpExchange.getResponseBody(), StandardCharsets.UTF_8), BUFFER_SIZE))) {
+            gson.toJson(value, value == null ? Object.class : value.getClass(), jsonWriter);
+        } finally {
+            httpExchange.close();
+        }
     }
 
     protected void sendError(HttpExchange httpExchange, int code, String message) throws IOException {
         httpExchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
-        httpExchange.sendResponseHeaders(code, message.length());
-        httpExchange.getResponseBody().write(message.getBytes(StandardCharsets.UTF_8));
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        httpExchange.sendResponseHeaders(code, body.length);
+        httpExchange.getResponseBody().write(body);
         httpExchange.close();
     }
 
-    protected Integer getIdFromPath(HttpExchange httpExchange) throws IOException {
+    protected Integer getIdFromPath(HttpExchange httpExchange) {
         String[] pathParts = httpExchange.getRequestURI().getPath().split("/");
 
         if (pathParts.length >= 3) {
             try {
                 return Integer.parseInt(pathParts[2]);
             } catch (NumberFormatException e) {
-                sendError(httpExchange, 400, "Error getting id from path variable " + e.getMessage());
+                throw new InvalidRequestException(400, "Error getting id from path variable " + e.getMessage());
             }
         }
 
         return null;
     }
 
-    protected <T extends Task> T getTaskFromRequest(HttpExchange httpExchange, Class<T> taskClass) throws IOException {
-        String requestBody = new String(httpExchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-        boolean isRequestBodyNullOrEmpty = false;
+    protected String getQueryParameter(HttpExchange httpExchange, String name) {
+        String query = httpExchange.getRequestURI().getRawQuery();
+
+        if (query == null) {
+            return null;
+        }
+
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            String key = separator < 0 ? parameter : parameter.substring(0, separator);
+
+            if (URLDecoder.decode(key, StandardCharsets.UTF_8).equals(name)) {
+                return separator < 0 ? "" : URLDecoder.decode(parameter.substring(separator + 1),
+                        StandardCharsets.UTF_8);
+            }
+        }
+
+        return null;
+    }
+
+    protected Gson getListGson(HttpExchange httpExchange) {
+        return HttpTaskServer.getGson(!"false".equalsIgnoreCase(getQueryParameter(httpExchange,
+                DESCRIPTION_PARAMETER)));
+    }
+
+    /**
+     * Reads the listing parameters {@code status}, {@code epicId}, {@code startFrom}, {@code startTo}, {@code limit}
+     * and {@code cursor}. Without a {@code limit} the whole listing is returned, as before paging existed.
+     */
+    protected TaskQuery getQueryFromRequest(HttpExchange httpExchange, boolean byStartTime) {
+        Status status = parseQueryParameter(httpExchange, "status", Status::valueOf);
+        Integer epicId = parseQueryParameter(httpExchange, "epicId", Integer::valueOf);
+        LocalDateTime startFrom = parseQueryParameter(httpExchange, "startFrom", LocalDateTime::parse);
+        LocalDateTime startTo = parseQueryParameter(httpExchange, "startTo", LocalDateTime::parse);
+        Integer limit = parseQueryParameter(httpExchange, "limit", Integer::valueOf);
+        TaskCursor cursor = parseQueryParameter(httpExchange, "cursor", TaskCursor::decode);
+
+        if (cursor != null && cursor.hasStartTime() != byStartTime) {
+            throw new InvalidRequestException(400, "Cursor does not belong to this listing");
+        }
 
         try {
-            isRequestBodyNullOrEmpty = isRequestBodyNullOrEmpty(requestBody);
-        } catch (JsonSyntaxException e) {
-            sendError(httpExchange, 400, e.getMessage());
+            return new TaskQuery(status, epicId, startFrom, startTo, cursor,
+                    limit == null ? TaskQuery.UNLIMITED : limit);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(400, e.getMessage());
         }
+    }
 
-        if (isRequestBodyNullOrEmpty) {
-            sendError(httpExchange, 400, "Request body is null or empty");
+    /**
+     * Sends one page of a listing. One task more than the limit is fetched to tell whether another page follows; if it
+     * does, the cursor of the last task sent is returned in the {@value #NEXT_CURSOR_HEADER} header.
+     */
+    protected <T extends Task> void sendPage(HttpExchange httpExchange, TaskQuery query,
+                                             Function<TaskQuery, ? extends List<T>> findFunction,
+                                             Function<Task, TaskCursor> sortKey) throws IOException {
+        if (query.limit() == TaskQuery.UNLIMITED) {
+            sendJson(httpExchange, getListGson(httpExchange), findFunction.apply(query));
+            return;
+        }
+
+        List<T> page = findFunction.apply(query.withLimit(query.limit() + 1));
+
+        if (page.size() > query.limit()) {
+            page = new ArrayList<>(page.subList(0, query.limit()));
+            httpExchange.getResponseHeaders().add(NEXT_CURSOR_HEADER, sortKey.apply(page.getLast()).encode());
+        }
+
+        sendJson(httpExchange, getListGson(httpExchange), page);
+    }
+
+    private <V> V parseQueryParameter(HttpExchange httpExchange, String name, Function<String, V> parser) {
+        String value = getQueryParameter(httpExchange, name);
+
+        if (value == null) {
             return null;
         }
 
-        return HttpTaskServer.getGson().fromJson(requestBody, taskClass);
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new InvalidRequestException(400, String.format("Invalid value of %s: %s", name, value));
+        }
     }
 
-    private boolean isRequestBodyNullOrEmpty(String requestBody) {
-        JsonElement json = JsonParser.parseString(requestBody);
+    /**
+     * Binds the request body to a task in one pass over the stream: the body is never buffered as a whole, is cut off
+     * after {@value #MAX_BODY_SIZE} bytes, and a malformed value or a missing required field fails with the JSON path
+     * it was found at.
+     */
+    protected <T extends Task> T getTaskFromRequest(HttpExchange httpExchange, Class<T> taskClass) throws IOException {
+        if (getContentLength(httpExchange) > MAX_BODY_SIZE) {
+            throw new InvalidRequestException(413, "Request body exceeds " + MAX_BODY_SIZE + " bytes");
+        }
+
+        Gson gson = HttpTaskServer.getGson();
+        JsonReader jsonReader = gson.newJsonReader(new InputStreamReader(
+                new LimitedInputStream(httpExchange.getRequestBody(), MAX_BODY_SIZE), StandardCharsets.UTF_8));
+        T task;
+
+        try {
+            JsonToken token = jsonReader.peek();
+
+            if (token == JsonToken.NULL) {
+                throw new InvalidRequestException(400, "Request body is null or empty");
+            }
+
+            if (token != JsonToken.BEGIN_OBJECT) {
+                throw new InvalidRequestException(400, "Request body must be a JSON object, but was " + token);
+            }
 
-        return json.isJsonNull() || json.getAsJsonObject().entrySet().isEmpty();
+            task = gson.getAdapter(taskClass).read(jsonReader);
+
+            if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+                throw new InvalidRequestException(400, "Unexpected data after the JSON object at "
+                        + jsonReader.getPath());
+            }
+        } catch (EOFException e) {
+            throw new InvalidRequestException(400, jsonReader.getPath().equals("$")
+                    ? "Request body is null or empty"
+                    : "Unexpected end of request body at " + jsonReader.getPath());
+        } catch (MalformedJsonException | IllegalStateException | NumberFormatException | DateTimeException e) {
+            throw new InvalidRequestException(400, "Malformed request body at " + jsonReader.getPath() + ": "
+                    + e.getMessage());
+        }
+
+        requireField(task.getName(), "name");
+
+        if (!(task instanceof Epic)) {
+            requireField(task.getStatus(), "status");
+        }
+
+        if (task instanceof SubTask subTask) {
+            requireField(subTask.getEpicId(), "epicId");
+        }
+
+        return task;
+    }
+
+    private static long getContentLength(HttpExchange httpExchange) {
+        String contentLength = httpExchange.getRequestHeaders().getFirst("Content-Length");
+
+        if (contentLength == null) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException(400, "Invalid Content-Length: " + contentLength);
+        }
+    }
+
+    private static void requireField(Object value, String field) {
+        if (value == null) {
+            throw new InvalidRequestException(400, "Missing required field: " + field);
+        }
+    }
+
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+
+            if (value >= 0) {
+                consume(1);
+            }
+
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+
+            if (read > 0) {
+                consume(read);
+            }
+
+            return read;
+        }
+
+        private void consume(int bytes) {
+            remaining -= bytes;
+
+            if (remaining < 0) {
+                throw new InvalidRequestException(413, "Request body exceeds " + MAX_BODY_SIZE + " bytes");
+            }
+        }
     }
 }
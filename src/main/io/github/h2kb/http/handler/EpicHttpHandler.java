@@ -3,11 +3,11 @@ package io.github.h2kb.http.handler;
 import com.sun.net.httpserver.HttpExchange;
 import io.github.h2kb.exception.TaskIntersectionOfTimeException;
 import io.github.h2kb.http.HttpTaskServer;
+import io.github.h2kb.manager.TaskCursor;
 import io.github.h2kb.manager.TaskManager;
 import io.github.h2kb.task.Epic;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.List;
 
 public class EpicHttpHandler extends AbstractTaskHandler<Epic> {
 
@@ -15,7 +15,7 @@ public class EpicHttpHandler extends AbstractTaskHandler<Epic> {
         super(
                 taskManager,
                 Epic.class,
-                taskManager::getAllEpics,
+                taskManager::findEpics,
                 taskManager::getEpic,
                 taskManager::createEpic,
                 taskManager::updateEpic,
@@ -33,16 +33,16 @@ public class EpicHttpHandler extends AbstractTaskHandler<Epic> {
             if (existedEpic != null) {
 
                 if (httpExchange.getRequestURI().getPath().contains("subtasks")) {
-                    sendText(httpExchange, HttpTaskServer.getGson().toJson(taskManager.getSubTasksByEpicId(epicId)));
+                    sendPage(httpExchange, getQueryFromRequest(httpExchange, false).withEpicId(epicId),
+                            taskManager::findSubTasks, TaskCursor::byId);
                 } else {
-                    sendText(httpExchange, HttpTaskServer.getGson().toJson(existedEpic));
+                    sendJson(httpExchange, HttpTaskServer.getGson(), existedEpic);
                 }
             } else {
                 sendError(httpExchange, 404, String.format(TASK_NOT_FOUND, Epic.class.getSimpleName(), epicId));
             }
         } else {
-            List<Epic> epics = taskManager.getAllEpics();
-            sendText(httpExchange, HttpTaskServer.getGson().toJson(epics));
+            sendPage(httpExchange, getQueryFromRequest(httpExchange, false), taskManager::findEpics, TaskCursor::byId);
         }
     }
 
@@ -61,7 +61,7 @@ public class EpicHttpHandler extends AbstractTaskHandler<Epic> {
                     epicFromRequest.setSubTaskIds(existedEpic.getSubTaskIds());
                 }
                 taskManager.updateEpic(epicFromRequest);
-                sendText(httpExchange, HttpTaskServer.getGson().toJson(epicFromRequest));
+                sendJson(httpExchange, HttpTaskServer.getGson(), epicFromRequest);
             } else {
                 sendError(httpExchange, 404, String.format(TASK_NOT_FOUND, Epic.class.getSimpleName(), epicId));
             }
@@ -73,7 +73,7 @@ public class EpicHttpHandler extends AbstractTaskHandler<Epic> {
             }
 
             try {
-                sendText(httpExchange, HttpTaskServer.getGson().toJson(taskManager.createEpic(epicFromRequest)));
+                sendJson(httpExchange, HttpTaskServer.getGson(), taskManager.createEpic(epicFromRequest));
             } catch (TaskIntersectionOfTimeException e) {
                 sendError(httpExchange, 406, e.getMessage());
             }
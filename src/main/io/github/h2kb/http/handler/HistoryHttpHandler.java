@@ -1,7 +1,6 @@
 package io.github.h2kb.http.handler;
 
 import com.sun.net.httpserver.HttpExchange;
-import io.github.h2kb.http.HttpTaskServer;
 import io.github.h2kb.manager.TaskManager;
 import java.io.IOException;
 
@@ -16,7 +15,7 @@ public class HistoryHttpHandler extends BaseHttpHandler {
     @Override
     public void handle(HttpExchange httpExchange) throws IOException {
         if (httpExchange.getRequestMethod().equals("GET")) {
-            sendText(httpExchange, HttpTaskServer.getGson().toJson(taskManager.getHistory()));
+            sendJson(httpExchange, getListGson(httpExchange), taskManager.getHistory());
         } else {
             sendError(httpExchange, 405,
                     String.format("Unsupported request method: %s", httpExchange.getRequestMethod()));
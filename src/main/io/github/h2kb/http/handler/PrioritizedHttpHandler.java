@@ -1,7 +1,8 @@
 package io.github.h2kb.http.handler;
 
 import com.sun.net.httpserver.HttpExchange;
-import io.github.h2kb.http.HttpTaskServer;
+import io.github.h2kb.exception.InvalidRequestException;
+import io.github.h2kb.manager.TaskCursor;
 import io.github.h2kb.manager.TaskManager;
 import java.io.IOException;
 
@@ -16,7 +17,12 @@ public class PrioritizedHttpHandler extends BaseHttpHandler {
     @Override
     public void handle(HttpExchange httpExchange) throws IOException {
         if (httpExchange.getRequestMethod().equals("GET")) {
-            sendText(httpExchange, HttpTaskServer.getGson().toJson(taskManager.getPrioritizedTasks()));
+            try {
+                sendPage(httpExchange, getQueryFromRequest(httpExchange, true), taskManager::findPrioritizedTasks,
+                        TaskCursor::byStartTime);
+            } catch (InvalidRequestException e) {
+                sendError(httpExchange, e.getStatusCode(), e.getMessage());
+            }
         } else {
             sendError(httpExchange, 405,
                     String.format("Unsupported request method: %s", httpExchange.getRequestMethod()));
@@ -13,7 +13,7 @@ public class SubTaskHttpHandler extends AbstractTaskHandler<SubTask> {
         super(
                 taskManager,
                 SubTask.class,
-                taskManager::getAllSubTasks,
+                taskManager::findSubTasks,
                 taskManager::getSubTask,
                 taskManager::createSubTask,
                 taskManager::updateSubTask,
@@ -31,8 +31,13 @@ public class SubTaskHttpHandler extends AbstractTaskHandler<SubTask> {
             if (existedSubTask != null) {
                 SubTask subTaskFromRequest = getTaskFromRequest(httpExchange, SubTask.class);
                 subTaskFromRequest.setId(existedSubTask.getId());
-                taskManager.updateTask(subTaskFromRequest);
-                sendText(httpExchange, HttpTaskServer.getGson().toJson(subTaskFromRequest));
+
+                try {
+                    taskManager.updateSubTask(subTaskFromRequest);
+                    sendJson(httpExchange, HttpTaskServer.getGson(), subTaskFromRequest);
+                } catch (TaskIntersectionOfTimeException e) {
+                    sendError(httpExchange, 406, e.getMessage());
+                }
             } else {
                 sendError(httpExchange, 404, String.format(TASK_NOT_FOUND, SubTask.class.getSimpleName(), subTaskId));
             }
@@ -40,7 +45,7 @@ public class SubTaskHttpHandler extends AbstractTaskHandler<SubTask> {
             SubTask subTaskFromRequest = getTaskFromRequest(httpExchange, SubTask.class);
 
             try {
-                sendText(httpExchange, HttpTaskServer.getGson().toJson(taskManager.createSubTask(subTaskFromRequest)));
+                sendJson(httpExchange, HttpTaskServer.getGson(), taskManager.createSubTask(subTaskFromRequest));
             } catch (TaskIntersectionOfTimeException | IllegalArgumentException e) {
                 sendError(httpExchange, 406, e.getMessage());
             }
@@ -9,7 +9,7 @@ public class TaskHttpHandler extends AbstractTaskHandler<Task> {
         super(
                 taskManager,
                 Task.class,
-                taskManager::getAllTasks,
+                taskManager::findTasks,
                 taskManager::getTask,
                 taskManager::createTask,
                 taskManager::updateTask,
@@ -0,0 +1,217 @@
+package io.github.h2kb.manager;
+
+import io.github.h2kb.task.Task;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntPredicate;
+
+/**
+ * History that keeps recording off the read path. {@link #add} and {@link #remove} only enqueue an event on a lock-free
+ * queue; a single consumer thread applies the events in order to a delegate history it owns exclusively and then
+ * publishes an immutable copy, which {@link #getHistory()} returns without locking.
+ * <p>
+ * The returned history lags behind by at most {@code maxStaleness}: the consumer publishes at least that often while
+ * it drains, and {@link #getHistory()} waits for the consumer instead of returning a state that misses an event queued
+ * longer ago. The consumer parks while the queue is empty and is unparked by the first event that arrives, so it costs
+ * nothing when idle. {@link #flush()} waits for everything queued so far.
+ * <p>
+ * A view may be queued after the removal of its task, by a reader that fetched the task just before it was removed.
+ * The consumer therefore applies an add only while {@code isLive} still holds for the task id; owners remove a task
+ * from their state before queuing its removal, so a view applied after the removal is dropped.
+ */
+public class AsyncHistoryManager implements HistoryManager, AutoCloseable {
+
+    public static final Duration DEFAULT_MAX_STALENESS = Duration.ofMillis(10);
+
+    private static final long NOT_DRAINING = Long.MAX_VALUE;
+
+    private final HistoryManager delegate;
+    private final IntPredicate isLive;
+    private final long maxStalenessNanos;
+    private final Queue<Event> events = new ConcurrentLinkedQueue<>();
+    private final Object lock = new Object();
+    private final Thread consumer;
+    private volatile List<Task> snapshot;
+    private volatile long unpublishedSinceNanos = NOT_DRAINING;
+    private volatile boolean idle;
+    private volatile boolean closed;
+
+    private AsyncHistoryManager(HistoryManager delegate, IntPredicate isLive, Duration maxStaleness) {
+        this.delegate = delegate;
+        this.isLive = isLive;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.snapshot = List.copyOf(delegate.getHistory());
+        this.consumer = new Thread(this::run, "history-consumer");
+        this.consumer.setDaemon(true);
+    }
+
+    public static AsyncHistoryManager start(HistoryManager delegate) {
+        return start(delegate, id -> true, DEFAULT_MAX_STALENESS);
+    }
+
+    public static AsyncHistoryManager start(HistoryManager delegate, IntPredicate isLive, Duration maxStaleness) {
+        AsyncHistoryManager historyManager = new AsyncHistoryManager(delegate, isLive, maxStaleness);
+        historyManager.consumer.start();
+
+        return historyManager;
+    }
+
+    @Override
+    public void add(Task task) {
+        enqueue(new Event(task, 0, null, System.nanoTime()));
+    }
+
+    @Override
+    public void remove(int taskId) {
+        enqueue(new Event(null, taskId, null, System.nanoTime()));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        if (hasStaleEvents()) {
+            flush().join();
+        }
+
+        return snapshot;
+    }
+
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Void> barrier = new CompletableFuture<>();
+
+        // Queued under the lock close() sets the flag with, so the consumer's final drain always sees the barrier.
+        synchronized (lock) {
+            if (closed) {
+                barrier.complete(null);
+            } else {
+                enqueue(new Event(null, 0, barrier, System.nanoTime()));
+            }
+        }
+
+        return barrier;
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+
+        LockSupport.unpark(consumer);
+
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Event event;
+
+        while ((event = events.poll()) != null) {
+            if (event.barrier() != null) {
+                event.barrier().complete(null);
+            }
+        }
+    }
+
+    /**
+     * Tells whether an event queued longer than {@code maxStaleness} ago is still missing from the snapshot. The queue
+     * head is read before the first event applied since the last publish: the consumer marks an event as applied
+     * before taking it off the queue, so an event moving between the two is seen in at least one of them.
+     */
+    private boolean hasStaleEvents() {
+        Event head = events.peek();
+        long draining = unpublishedSinceNanos;
+        long now = System.nanoTime();
+
+        return head != null && now - head.queuedNanos() >= maxStalenessNanos || isOlderThanMaxStaleness(draining, now);
+    }
+
+    private boolean isOlderThanMaxStaleness(long queuedNanos, long now) {
+        return queuedNanos != NOT_DRAINING && now - queuedNanos >= maxStalenessNanos;
+    }
+
+    private void enqueue(Event event) {
+        events.offer(event);
+
+        if (idle) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private void run() {
+        while (true) {
+            boolean stopping = closed;
+
+            if (drain()) {
+                continue;
+            }
+
+            if (stopping) {
+                return;
+            }
+
+            idle = true;
+
+            // Rechecked after raising the flag: an event queued before it was seen as raised is found here, any later
+            // one unparks the consumer.
+            if (events.isEmpty() && !closed) {
+                LockSupport.park(this);
+            }
+
+            idle = false;
+        }
+    }
+
+    private boolean drain() {
+        boolean changed = false;
+        boolean drained = false;
+        Event event;
+
+        while ((event = events.peek()) != null) {
+            if (unpublishedSinceNanos == NOT_DRAINING) {
+                unpublishedSinceNanos = event.queuedNanos();
+            }
+
+            events.poll();
+            drained = true;
+
+            if (event.barrier() != null) {
+                publish(changed);
+                changed = false;
+                event.barrier().complete(null);
+            } else if (event.task() != null) {
+                if (isLive.test(event.task().getId())) {
+                    delegate.add(event.task());
+                    changed = true;
+                }
+            } else {
+                delegate.remove(event.taskId());
+                changed = true;
+            }
+
+            if (isOlderThanMaxStaleness(unpublishedSinceNanos, System.nanoTime())) {
+                publish(changed);
+                changed = false;
+            }
+        }
+
+        publish(changed);
+
+        return drained;
+    }
+
+    private void publish(boolean changed) {
+        if (changed) {
+            snapshot = List.copyOf(delegate.getHistory());
+        }
+
+        unpublishedSinceNanos = NOT_DRAINING;
+    }
+
+    private record Event(Task task, int taskId, CompletableFuture<Void> barrier, long queuedNanos) {
+    }
+}
@@ -0,0 +1,494 @@
+package io.github.h2kb.manager;
+
+import io.github.h2kb.exception.TaskIntersectionOfTimeException;
+import io.github.h2kb.storage.GroupCommitWriter;
+import io.github.h2kb.storage.TaskRepository;
+import io.github.h2kb.task.Epic;
+import io.github.h2kb.task.EpicAggregate;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import io.github.h2kb.task.TaskType;
+import io.github.h2kb.task.dto.mapper.TaskMapper;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Task manager over a {@link TaskRepository} that keeps only the working set of records in memory.
+ * <p>
+ * Records are read through a bounded LRU cache and written behind by a {@link GroupCommitWriter}; changes that are not
+ * written yet are served from the pending map, so an evicted record is never read back stale. Besides the cache only
+ * the board structure stays on the heap: task types, epic subtask lists and aggregates, and the time schedule, which
+ * indexes name- and description-less copies of the scheduled tasks.
+ */
+public class CachingTaskManager implements TaskManager, AutoCloseable {
+
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+    public static final Duration DEFAULT_FLUSH_WINDOW = Duration.ofMillis(5);
+    public static final int DEFAULT_MAX_BATCH_SIZE = 512;
+
+    private final TaskRepository repository;
+    private final Map<Integer, Task> cache;
+    private final Map<Integer, Pending> pending = new HashMap<>();
+    private final GroupCommitWriter<Integer> writer;
+    private final Map<Integer, TaskType> types = new HashMap<>();
+    private final Map<Integer, Integer> epicIds = new HashMap<>();
+    private final Map<Integer, List<Integer>> subTaskIds = new HashMap<>();
+    private final Map<Integer, EpicAggregate> aggregates = new HashMap<>();
+    private final HistoryManager historyManager = Managers.getDefaultHistory();
+    private final TaskIntervalIndex prioritizedTasks = new TaskIntervalIndex();
+    private CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+    private long version;
+    private int taskIdCounter = 1;
+
+    public CachingTaskManager(TaskRepository repository) {
+        this(repository, DEFAULT_CACHE_SIZE, DEFAULT_FLUSH_WINDOW, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public CachingTaskManager(TaskRepository repository, int cacheSize, Duration flushWindow, int maxBatchSize) {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + cacheSize);
+        }
+
+        this.repository = repository;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Task> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        loadStructure();
+        this.writer = new GroupCommitWriter<>("repository-writer", flushWindow, maxBatchSize, this::writeBatch);
+    }
+
+    @Override
+    public synchronized List<Task> getAllTasks() {
+        return scan(TaskType.TASK, Task.class);
+    }
+
+    @Override
+    public synchronized List<Epic> getAllEpics() {
+        return scan(TaskType.EPIC, Epic.class);
+    }
+
+    @Override
+    public synchronized List<SubTask> getAllSubTasks() {
+        return scan(TaskType.SUBTASK, SubTask.class);
+    }
+
+    @Override
+    public synchronized void clearTasks() {
+        idsOf(TaskType.TASK).forEach(this::removeTask);
+    }
+
+    @Override
+    public synchronized void clearEpics() {
+        idsOf(TaskType.EPIC).forEach(this::removeEpic);
+    }
+
+    @Override
+    public synchronized void clearSubTasks() {
+        List<Integer> ids = idsOf(TaskType.SUBTASK);
+        ids.forEach(this::forgetSubTask);
+
+        for (Integer epicId : idsOf(TaskType.EPIC)) {
+            subTaskIds.get(epicId).clear();
+            aggregates.get(epicId).clear();
+            storeEpic(epicId);
+        }
+
+        ids.forEach(this::delete);
+    }
+
+    @Override
+    public synchronized Task getTask(Integer id) {
+        return addToHistory(find(id, TaskType.TASK, Task.class));
+    }
+
+    @Override
+    public synchronized Epic getEpic(Integer id) {
+        return addToHistory(find(id, TaskType.EPIC, Epic.class));
+    }
+
+    @Override
+    public synchronized SubTask getSubTask(Integer id) {
+        return addToHistory(find(id, TaskType.SUBTASK, SubTask.class));
+    }
+
+    @Override
+    public synchronized Integer createTask(Task task) {
+        checkOverlappingTasks(task, null);
+
+        task.setId(taskIdCounter++);
+        types.put(task.getId(), TaskType.TASK);
+        prioritizedTasks.add(scheduleEntryOf(task));
+        store(task);
+
+        return task.getId();
+    }
+
+    @Override
+    public synchronized Integer createEpic(Epic epic) {
+        epic.setId(taskIdCounter++);
+        types.put(epic.getId(), TaskType.EPIC);
+        subTaskIds.put(epic.getId(), new ArrayList<>());
+        aggregates.put(epic.getId(), new EpicAggregate());
+        attach(epic);
+        store(epic);
+
+        return epic.getId();
+    }
+
+    @Override
+    public synchronized Integer createSubTask(SubTask subTask) {
+        checkOverlappingTasks(subTask, null);
+
+        Integer epicId = subTask.getEpicId();
+
+        if (epicId == null || types.get(epicId) != TaskType.EPIC) {
+            throw new IllegalArgumentException(String.format("The epic with id %d was not found", epicId));
+        }
+
+        subTask.setId(taskIdCounter++);
+        types.put(subTask.getId(), TaskType.SUBTASK);
+        epicIds.put(subTask.getId(), epicId);
+        subTaskIds.get(epicId).add(subTask.getId());
+        aggregates.get(epicId).put(subTask);
+        prioritizedTasks.add(scheduleEntryOf(subTask));
+        store(subTask);
+        storeEpic(epicId);
+
+        return subTask.getId();
+    }
+
+    @Override
+    public synchronized void updateTask(Task task) {
+        if (task == null || types.get(task.getId()) != TaskType.TASK) {
+            return;
+        }
+
+        checkOverlappingTasks(task, task.getId());
+        prioritizedTasks.add(scheduleEntryOf(task));
+        store(task);
+    }
+
+    @Override
+    public synchronized void updateEpic(Epic epic) {
+        if (epic == null || types.get(epic.getId()) != TaskType.EPIC) {
+            return;
+        }
+
+        attach(epic);
+        store(epic);
+    }
+
+    @Override
+    public synchronized void updateSubTask(SubTask subTask) {
+        if (subTask == null || types.get(subTask.getId()) != TaskType.SUBTASK
+                || types.get(subTask.getEpicId()) != TaskType.EPIC) {
+            return;
+        }
+
+        checkOverlappingTasks(subTask, subTask.getId());
+
+        Integer previousEpicId = epicIds.put(subTask.getId(), subTask.getEpicId());
+
+        if (!previousEpicId.equals(subTask.getEpicId())) {
+            subTaskIds.get(previousEpicId).remove(subTask.getId());
+            aggregates.get(previousEpicId).remove(subTask.getId());
+            subTaskIds.get(subTask.getEpicId()).add(subTask.getId());
+            storeEpic(previousEpicId);
+        }
+
+        aggregates.get(subTask.getEpicId()).put(subTask);
+        prioritizedTasks.add(scheduleEntryOf(subTask));
+        store(subTask);
+        storeEpic(subTask.getEpicId());
+    }
+
+    @Override
+    public synchronized void removeTask(Integer id) {
+        if (types.get(id) != TaskType.TASK) {
+            return;
+        }
+
+        types.remove(id);
+        prioritizedTasks.remove(id);
+        historyManager.remove(id);
+        delete(id);
+    }
+
+    @Override
+    public synchronized void removeEpic(Integer id) {
+        if (types.get(id) != TaskType.EPIC) {
+            return;
+        }
+
+        for (Integer subTaskId : subTaskIds.remove(id)) {
+            forgetSubTask(subTaskId);
+            delete(subTaskId);
+        }
+
+        types.remove(id);
+        aggregates.remove(id);
+        historyManager.remove(id);
+        delete(id);
+    }
+
+    @Override
+    public synchronized void removeSubTask(Integer id) {
+        if (types.get(id) != TaskType.SUBTASK) {
+            return;
+        }
+
+        Integer epicId = epicIds.get(id);
+        forgetSubTask(id);
+        subTaskIds.get(epicId).remove(id);
+        aggregates.get(epicId).remove(id);
+        delete(id);
+        storeEpic(epicId);
+    }
+
+    @Override
+    public synchronized List<SubTask> getSubTasksByEpicId(Integer id) {
+        List<Integer> ids = subTaskIds.get(id);
+
+        if (ids == null) {
+            return List.of();
+        }
+
+        return ids.stream()
+                .map(subTaskId -> peek(subTaskId, SubTask.class))
+                .toList();
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public synchronized Set<Task> getPrioritizedTasks() {
+        Set<Task> tasks = new LinkedHashSet<>();
+
+        for (Task entry : prioritizedTasks.getTasks()) {
+            tasks.add(peek(entry.getId(), Task.class));
+        }
+
+        return tasks;
+    }
+
+    @Override
+    public synchronized List<Task> getOverlappingTasks(Task task) {
+        return prioritizedTasks.findOverlapping(task, task.getId()).stream()
+                .map(entry -> peek(entry.getId(), Task.class))
+                .toList();
+    }
+
+    public synchronized int getCachedCount() {
+        return cache.size();
+    }
+
+    public synchronized CompletableFuture<Void> flush() {
+        return lastWrite;
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+        repository.close();
+    }
+
+    private void loadStructure() {
+        List<SubTask> subTasks = new ArrayList<>();
+
+        repository.scan(task -> {
+            TaskType type = TaskType.of(task);
+            types.put(task.getId(), type);
+            taskIdCounter = Math.max(taskIdCounter, task.getId() + 1);
+
+            switch (type) {
+                case EPIC -> {
+                    subTaskIds.putIfAbsent(task.getId(), new ArrayList<>());
+                    aggregates.putIfAbsent(task.getId(), new EpicAggregate());
+                }
+                case SUBTASK -> subTasks.add((SubTask) scheduleEntryOf(task));
+                case TASK -> prioritizedTasks.add(scheduleEntryOf(task));
+            }
+        });
+
+        subTasks.sort(Comparator.comparing(Task::getId));
+
+        for (SubTask subTask : subTasks) {
+            Integer epicId = subTask.getEpicId();
+
+            if (types.get(epicId) != TaskType.EPIC) {
+                throw new IllegalArgumentException(String.format("The epic with id %d was not found", epicId));
+            }
+
+            epicIds.put(subTask.getId(), epicId);
+            subTaskIds.get(epicId).add(subTask.getId());
+            aggregates.get(epicId).put(subTask);
+            prioritizedTasks.add(subTask);
+        }
+    }
+
+    private void writeBatch(List<Integer> ids) {
+        Map<Integer, Pending> batch = new LinkedHashMap<>();
+
+        synchronized (this) {
+            ids.forEach(id -> {
+                Pending change = pending.get(id);
+
+                if (change != null) {
+                    batch.put(id, change);
+                }
+            });
+        }
+
+        List<Task> puts = new ArrayList<>();
+        List<Integer> deletes = new ArrayList<>();
+        batch.forEach((id, change) -> {
+            if (change.task() == null) {
+                deletes.add(id);
+            } else {
+                puts.add(change.task());
+            }
+        });
+
+        repository.batch(puts, deletes);
+
+        // Removed only while still the written version: a change stored meanwhile stays pending for its own batch.
+        synchronized (this) {
+            batch.forEach((id, change) -> pending.remove(id, change));
+        }
+    }
+
+    private void store(Task task) {
+        cache.put(task.getId(), task);
+        pending.put(task.getId(), new Pending(TaskMapper.copyOf(task), ++version));
+        lastWrite = writer.submit(task.getId());
+    }
+
+    private void storeEpic(Integer epicId) {
+        store(attach(find(epicId, TaskType.EPIC, Epic.class)));
+    }
+
+    private void delete(Integer id) {
+        cache.remove(id);
+        pending.put(id, new Pending(null, ++version));
+        lastWrite = writer.submit(id);
+    }
+
+    private void forgetSubTask(Integer id) {
+        types.remove(id);
+        epicIds.remove(id);
+        prioritizedTasks.remove(id);
+        historyManager.remove(id);
+    }
+
+    private <T extends Task> T find(Integer id, TaskType type, Class<T> taskClass) {
+        if (id == null || types.get(id) != type) {
+            return null;
+        }
+
+        Task task = cache.get(id);
+
+        if (task == null) {
+            task = read(id);
+            cache.put(id, task);
+        }
+
+        return taskClass.cast(task);
+    }
+
+    private <T extends Task> T peek(Integer id, Class<T> taskClass) {
+        Task task = cache.get(id);
+
+        return taskClass.cast(task != null ? task : read(id));
+    }
+
+    private Task read(Integer id) {
+        Pending change = pending.get(id);
+        Task task = change != null ? change.task() : repository.load(id);
+
+        if (change != null && task != null) {
+            task = TaskMapper.copyOf(task);
+        }
+
+        return task instanceof Epic epic ? attach(epic) : task;
+    }
+
+    private Epic attach(Epic epic) {
+        epic.setSubTaskIds(List.copyOf(subTaskIds.get(epic.getId())));
+        epic.setAggregate(aggregates.get(epic.getId()));
+        epic.applyAggregate();
+
+        return epic;
+    }
+
+    private <T extends Task> List<T> scan(TaskType type, Class<T> taskClass) {
+        Map<Integer, T> tasks = new HashMap<>();
+
+        repository.scan(task -> {
+            if (types.get(task.getId()) == type && !pending.containsKey(task.getId())
+                    && !cache.containsKey(task.getId())) {
+                tasks.put(task.getId(), taskClass.cast(task instanceof Epic epic ? attach(epic) : task));
+            }
+        });
+
+        for (Integer id : idsOf(type)) {
+            if (!tasks.containsKey(id)) {
+                tasks.put(id, peek(id, taskClass));
+            }
+        }
+
+        return tasks.keySet().stream()
+                .sorted()
+                .map(tasks::get)
+                .toList();
+    }
+
+    private List<Integer> idsOf(TaskType type) {
+        return types.entrySet().stream()
+                .filter(entry -> entry.getValue() == type)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+    }
+
+    private <T extends Task> T addToHistory(T task) {
+        if (task != null) {
+            historyManager.add(task);
+        }
+
+        return task;
+    }
+
+    private void checkOverlappingTasks(Task task, Integer ownId) {
+        if (prioritizedTasks.hasOverlaps(task, ownId)) {
+            throw new TaskIntersectionOfTimeException("The intersection of time was detected");
+        }
+    }
+
+    private static Task scheduleEntryOf(Task task) {
+        Task entry = task instanceof SubTask subTask
+                ? new SubTask(null, null, task.getStatus(), subTask.getEpicId(), task.getDuration(),
+                task.getStartTime())
+                : new Task(null, null, task.getStatus(), task.getDuration(), task.getStartTime());
+        entry.setId(task.getId());
+
+        return entry;
+    }
+
+    private record Pending(Task task, long version) {
+    }
+}
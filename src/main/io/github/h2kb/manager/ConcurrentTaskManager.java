@@ -0,0 +1,509 @@
+package io.github.h2kb.manager;
+
+import io.github.h2kb.exception.TaskIntersectionOfTimeException;
+import io.github.h2kb.task.Epic;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe {@link TaskManager}.
+ * <p>
+ * Single task reads go straight to concurrent maps kept in id order, so listings page from a cursor without copying
+ * the whole map. Subtask changes lock only their own epic, so work on different
+ * epics does not contend. The time schedule is shared by all tasks and is guarded by its own read-write lock, held
+ * only for the {@code O(log N)} overlap check and index update. Lock order is epic, then schedule. Views are
+ * recorded through an {@link AsyncHistoryManager}, so reads take no lock and {@link #getHistory()} may lag by up to
+ * {@link AsyncHistoryManager#DEFAULT_MAX_STALENESS}. A task is removed from its map before its view is forgotten, so a
+ * view recorded by a read that raced the removal is dropped rather than brought back.
+ */
+public class ConcurrentTaskManager implements TaskManager, AutoCloseable {
+
+    private final AtomicInteger taskIdCounter = new AtomicInteger(1);
+    private final NavigableMap<Integer, Task> tasks = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Integer, Epic> epics = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Integer, SubTask> subTasks = new ConcurrentSkipListMap<>();
+    private final Map<Integer, Lock> epicLocks = new ConcurrentHashMap<>();
+    private final AsyncHistoryManager historyManager = AsyncHistoryManager.start(Managers.getDefaultHistory(),
+            id -> tasks.containsKey(id) || epics.containsKey(id) || subTasks.containsKey(id),
+            AsyncHistoryManager.DEFAULT_MAX_STALENESS);
+    private final TaskIntervalIndex prioritizedTasks = new TaskIntervalIndex();
+    private final ReadWriteLock scheduleLock = new ReentrantReadWriteLock();
+
+    protected int nextTaskId() {
+        return taskIdCounter.getAndIncrement();
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return new ArrayList<>(epics.values());
+    }
+
+    @Override
+    public List<SubTask> getAllSubTasks() {
+        return new ArrayList<>(subTasks.values());
+    }
+
+    @Override
+    public void clearTasks() {
+        tasks.keySet().forEach(this::removeTask);
+    }
+
+    @Override
+    public void clearEpics() {
+        epics.keySet().forEach(this::removeEpic);
+    }
+
+    @Override
+    public void clearSubTasks() {
+        for (Integer epicId : epics.keySet()) {
+            withEpicLock(epicId, epic -> {
+                epic.getSubTaskIds().forEach(this::unlinkSubTask);
+                epic.setSubTaskIds(List.of());
+                epic.getAggregate().clear();
+                epic.applyAggregate();
+            });
+        }
+    }
+
+    @Override
+    public Task getTask(Integer id) {
+        return recordView(tasks.get(id));
+    }
+
+    @Override
+    public Epic getEpic(Integer id) {
+        return recordView(epics.get(id));
+    }
+
+    @Override
+    public SubTask getSubTask(Integer id) {
+        return recordView(subTasks.get(id));
+    }
+
+    @Override
+    public Integer createTask(Task task) {
+        schedule(task, null, () -> {
+            task.setId(nextTaskId());
+            tasks.put(task.getId(), task);
+        });
+
+        return task.getId();
+    }
+
+    @Override
+    public Integer createEpic(Epic epic) {
+        epic.setId(nextTaskId());
+        epicLocks.put(epic.getId(), new ReentrantLock());
+        epics.put(epic.getId(), epic);
+
+        return epic.getId();
+    }
+
+    @Override
+    public Integer createSubTask(SubTask subTask) {
+        Integer epicId = subTask.getEpicId();
+
+        boolean created = epicId != null && withEpicLock(epicId, epic -> {
+            schedule(subTask, null, () -> subTask.setId(nextTaskId()));
+            subTasks.put(subTask.getId(), subTask);
+            epic.addSubTaskId(subTask.getId());
+            epic.getAggregate().put(subTask);
+            epic.applyAggregate();
+        });
+
+        if (!created) {
+            throw new IllegalArgumentException(String.format("The epic with id %d was not found", epicId));
+        }
+
+        return subTask.getId();
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        if (task == null || task.getId() == null) {
+            return;
+        }
+
+        Integer id = task.getId();
+
+        // The skip list map may run computeIfPresent functions more than once, so the existence check, the map write
+        // and the schedule change are made together under the schedule lock instead.
+        scheduleLock.writeLock().lock();
+        try {
+            if (!tasks.containsKey(id)) {
+                return;
+            }
+
+            if (prioritizedTasks.hasOverlaps(task, id)) {
+                throw new TaskIntersectionOfTimeException("The intersection of time was detected");
+            }
+
+            tasks.put(id, task);
+            prioritizedTasks.add(task);
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        if (epic == null || epic.getId() == null) {
+            return;
+        }
+
+        withEpicLock(epic.getId(), existing -> {
+            epic.setSubTaskIds(existing.getSubTaskIds());
+            epic.setAggregate(existing.getAggregate());
+            epic.applyAggregate();
+            epics.put(epic.getId(), epic);
+        });
+    }
+
+    @Override
+    public void updateSubTask(SubTask subTask) {
+        if (subTask == null || subTask.getId() == null || subTask.getEpicId() == null) {
+            return;
+        }
+
+        Integer id = subTask.getId();
+        AtomicBoolean retry = new AtomicBoolean(true);
+
+        // Retried when the subtask moved to another epic between reading it and locking its epic.
+        while (retry.getAndSet(false)) {
+            SubTask existing = subTasks.get(id);
+
+            if (existing == null) {
+                return;
+            }
+
+            Integer previousEpicId = existing.getEpicId();
+
+            withEpicLocks(previousEpicId, subTask.getEpicId(), (previousEpic, epic) -> {
+                SubTask current = subTasks.get(id);
+
+                if (current == null) {
+                    return;
+                }
+
+                if (!previousEpicId.equals(current.getEpicId())) {
+                    retry.set(true);
+                    return;
+                }
+
+                schedule(subTask, id, () -> {
+                });
+                subTasks.put(id, subTask);
+
+                if (previousEpic != epic) {
+                    previousEpic.removeSubTaskId(id);
+                    previousEpic.getAggregate().remove(id);
+                    previousEpic.applyAggregate();
+                    epic.addSubTaskId(id);
+                }
+
+                epic.getAggregate().put(subTask);
+                epic.applyAggregate();
+            });
+        }
+    }
+
+    @Override
+    public void removeTask(Integer id) {
+        scheduleLock.writeLock().lock();
+        try {
+            if (tasks.remove(id) != null) {
+                prioritizedTasks.remove(id);
+            }
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+
+        forgetView(id);
+    }
+
+    @Override
+    public void removeEpic(Integer id) {
+        withEpicLock(id, epic -> {
+            epic.getSubTaskIds().forEach(this::unlinkSubTask);
+            epics.remove(id);
+            epicLocks.remove(id);
+            forgetView(id);
+        });
+    }
+
+    @Override
+    public void removeSubTask(Integer id) {
+        AtomicBoolean retry = new AtomicBoolean(true);
+
+        // Retried when the subtask moved to another epic between reading it and locking its epic.
+        while (retry.getAndSet(false)) {
+            SubTask existing = subTasks.get(id);
+
+            if (existing == null) {
+                return;
+            }
+
+            Integer epicId = existing.getEpicId();
+
+            withEpicLock(epicId, epic -> {
+                SubTask current = subTasks.get(id);
+
+                if (current == null) {
+                    return;
+                }
+
+                if (!epicId.equals(current.getEpicId())) {
+                    retry.set(true);
+                    return;
+                }
+
+                unlinkSubTask(id);
+                epic.removeSubTaskId(id);
+                epic.getAggregate().remove(id);
+                epic.applyAggregate();
+            });
+        }
+    }
+
+    @Override
+    public List<SubTask> getSubTasksByEpicId(Integer id) {
+        if (id == null) {
+            return Collections.emptyList();
+        }
+
+        List<SubTask> children = new ArrayList<>();
+        withEpicLock(id, epic -> epic.getSubTaskIds().stream()
+                .map(subTasks::get)
+                .forEach(children::add));
+
+        return children;
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    public CompletableFuture<Void> flushHistory() {
+        return historyManager.flush();
+    }
+
+    @Override
+    public void close() {
+        historyManager.close();
+    }
+
+    @Override
+    public Set<Task> getPrioritizedTasks() {
+        scheduleLock.readLock().lock();
+        try {
+            return new LinkedHashSet<>(prioritizedTasks.getTasks());
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Task> findTasks(TaskQuery query) {
+        return query.epicId() != null ? new ArrayList<>() : find(tasks, query, true);
+    }
+
+    @Override
+    public List<Epic> findEpics(TaskQuery query) {
+        return query.epicId() != null ? new ArrayList<>() : find(epics, query, false);
+    }
+
+    @Override
+    public List<SubTask> findSubTasks(TaskQuery query) {
+        if (query.epicId() == null) {
+            return find(subTasks, query, true);
+        }
+
+        Epic epic = epics.get(query.epicId());
+
+        if (epic == null) {
+            return new ArrayList<>();
+        }
+
+        List<SubTask> candidates = new ArrayList<>();
+
+        for (Integer subTaskId : epic.getSubTaskIds()) {
+            SubTask subTask = subTasks.get(subTaskId);
+
+            if (subTask != null) {
+                candidates.add(subTask);
+            }
+        }
+
+        return query.select(candidates, TaskCursor::byId);
+    }
+
+    @Override
+    public List<Task> findPrioritizedTasks(TaskQuery query) {
+        scheduleLock.readLock().lock();
+        try {
+            return prioritizedTasks.find(query);
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getOverlappingTasks(Task task) {
+        scheduleLock.readLock().lock();
+        try {
+            return prioritizedTasks.findOverlapping(task, task.getId());
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walks one task map in id order from the cursor and stops as soon as the page is full. A start time range over
+     * scheduled tasks is answered from the schedule instead, visiting only the tasks in the range. Either walk is
+     * weakly consistent: it sees a state of each task, not a snapshot of the whole map.
+     */
+    private <T extends Task> List<T> find(NavigableMap<Integer, T> source, TaskQuery query, boolean scheduled) {
+        int afterId = query.after() == null ? Integer.MIN_VALUE : query.after().id();
+        List<T> found = new ArrayList<>();
+
+        if (scheduled && query.hasStartRange()) {
+            scheduleLock.readLock().lock();
+            try {
+                prioritizedTasks.findIds(query.startFrom(), query.startTo(), afterId, query.limit(), id -> {
+                    T task = source.get(id);
+
+                    return task != null && query.matches(task);
+                }).forEach(id -> found.add(source.get(id)));
+            } finally {
+                scheduleLock.readLock().unlock();
+            }
+
+            found.removeIf(Objects::isNull);
+
+            return found;
+        }
+
+        for (T task : source.tailMap(afterId, false).values()) {
+            if (found.size() == query.limit()) {
+                break;
+            }
+
+            if (query.matches(task)) {
+                found.add(task);
+            }
+        }
+
+        return found;
+    }
+
+    private boolean withEpicLock(Integer epicId, Consumer<Epic> action) {
+        Lock lock = epicLocks.get(epicId);
+
+        if (lock == null) {
+            return false;
+        }
+
+        lock.lock();
+        try {
+            Epic epic = epics.get(epicId);
+
+            if (epic == null) {
+                return false;
+            }
+
+            action.accept(epic);
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the action holding the locks of both epics, taken in id order so that two moves in opposite directions
+     * cannot deadlock. Does nothing if either epic does not exist.
+     */
+    private void withEpicLocks(Integer firstId, Integer secondId, BiConsumer<Epic, Epic> action) {
+        if (firstId.equals(secondId)) {
+            withEpicLock(firstId, epic -> action.accept(epic, epic));
+            return;
+        }
+
+        Integer outerId = firstId < secondId ? firstId : secondId;
+        Integer innerId = firstId < secondId ? secondId : firstId;
+
+        withEpicLock(outerId, outer -> withEpicLock(innerId, inner -> {
+            if (outerId.equals(firstId)) {
+                action.accept(outer, inner);
+            } else {
+                action.accept(inner, outer);
+            }
+        }));
+    }
+
+    private void schedule(Task task, Integer ownId, Runnable beforeIndexing) {
+        scheduleLock.writeLock().lock();
+        try {
+            if (prioritizedTasks.hasOverlaps(task, ownId)) {
+                throw new TaskIntersectionOfTimeException("The intersection of time was detected");
+            }
+
+            beforeIndexing.run();
+            prioritizedTasks.add(task);
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+    }
+
+    private void unschedule(Integer id) {
+        scheduleLock.writeLock().lock();
+        try {
+            prioritizedTasks.remove(id);
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+    }
+
+    private void unlinkSubTask(Integer id) {
+        subTasks.remove(id);
+        unschedule(id);
+        forgetView(id);
+    }
+
+    private <T extends Task> T recordView(T task) {
+        if (task != null) {
+            historyManager.add(task);
+        }
+
+        return task;
+    }
+
+    private void forgetView(Integer id) {
+        historyManager.remove(id);
+    }
+}
@@ -1,141 +1,599 @@
 package io.github.h2kb.manager;
 
-import io.github.h2kb.exception.ManagerLoadException;
-import io.github.h2kb.exception.ManagerSaveException;
+import io.github.h2kb.storage.AtomicFileWriter;
+import io.github.h2kb.storage.BackupSet;
+import io.github.h2kb.storage.DescriptionStore;
+import io.github.h2kb.storage.DurabilityMode;
+import io.github.h2kb.storage.FsyncPolicy;
+import io.github.h2kb.storage.GroupCommitWriter;
+import io.github.h2kb.storage.JournalRecord;
+import io.github.h2kb.storage.SnapshotFile;
+import io.github.h2kb.storage.SnapshotFileRepository;
+import io.github.h2kb.storage.SnapshotStore;
+import io.github.h2kb.storage.StorageConfig;
+import io.github.h2kb.storage.TaskJournal;
 import io.github.h2kb.task.Epic;
 import io.github.h2kb.task.SubTask;
 import io.github.h2kb.task.Task;
 import io.github.h2kb.task.TaskType;
 import io.github.h2kb.task.dto.mapper.TaskMapper;
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+/**
+ * Task manager persisted next to {@code storageFile}. Changes go to the journal, if enabled, and are compacted into
+ * either versioned snapshots or the board files of a {@link SnapshotFileRepository}, which owns the file layout; only
+ * the records changed since the last compaction are handed to the repository. Instances are created by
+ * {@link #open(Path, StorageConfig)}, which loads the stored board before any background writer starts.
+ */
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
 
-    public static final int HEADER_LINE_NUMBER = 1;
+    private static final long SNAPSHOT_SHUTDOWN_TIMEOUT_SECONDS = 10;
     private final Path storageFile;
+    private final StorageConfig config;
+    private final TaskJournal journal;
+    private final AtomicFileWriter fileWriter;
+    private final SnapshotStore snapshotStore;
+    private final SnapshotFileRepository repository;
+    private final DescriptionStore descriptions;
+    private final Set<Integer> dirtyIds = new HashSet<>();
+    private ScheduledExecutorService snapshotScheduler;
+    private GroupCommitWriter<PendingWrite> writer;
+    private volatile CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+    private CompletableFuture<Void> pendingSnapshot = CompletableFuture.completedFuture(null);
+    private long snapshotSequence;
+    private boolean allDirty;
+    private boolean loading;
 
-    public FileBackedTaskManager(Path storageFile) {
+    private FileBackedTaskManager(Path storageFile, StorageConfig config) {
         this.storageFile = storageFile;
-        loadFromFile();
+        this.config = config;
+        this.journal = new TaskJournal(storageFile);
+        this.fileWriter = new AtomicFileWriter(config.fsyncPolicy(), config.fsyncInterval());
+        this.snapshotStore = new SnapshotStore(storageFile);
+        this.repository = new SnapshotFileRepository(storageFile, config.format(), config.compression(),
+                config.shardCount(), fileWriter);
+        this.descriptions = new DescriptionStore(storageFile, config.descriptionCacheSize());
+    }
+
+    public static FileBackedTaskManager open(Path storageFile) {
+        return open(storageFile, StorageConfig.defaults());
+    }
+
+    public static FileBackedTaskManager open(Path storageFile, StorageConfig config) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(storageFile, config);
+        manager.loadFromFile();
+        manager.start();
+
+        return manager;
+    }
+
+    @Override
+    public synchronized void clearTasks() {
+        markDirty(getAllTasks());
+        super.clearTasks();
+        persist(JournalRecord.clear(TaskType.TASK));
+    }
+
+    @Override
+    public synchronized void clearEpics() {
+        markDirty(getAllEpics());
+        markDirty(getAllSubTasks());
+        super.clearEpics();
+        persist(JournalRecord.clear(TaskType.EPIC));
     }
 
     @Override
-    public Integer createTask(Task task) {
+    public synchronized void clearSubTasks() {
+        markDirty(getAllEpics());
+        markDirty(getAllSubTasks());
+        super.clearSubTasks();
+        persist(JournalRecord.clear(TaskType.SUBTASK));
+    }
+
+    @Override
+    public synchronized Integer createTask(Task task) {
         Integer taskId = super.createTask(task);
-        save();
+        markDirty(taskId);
+        persist(JournalRecord.put(task));
 
         return taskId;
     }
 
     @Override
-    public Integer createEpic(Epic epic) {
+    public synchronized Integer createEpic(Epic epic) {
         Integer epicId = super.createEpic(epic);
-        save();
+        markDirty(epicId);
+        persist(JournalRecord.put(epic));
 
         return epicId;
     }
 
     @Override
-    public Integer createSubTask(SubTask subTask) {
+    public synchronized Integer createSubTask(SubTask subTask) {
         Integer subTaskId = super.createSubTask(subTask);
-        save();
+        markDirty(subTaskId);
+        markDirty(subTask.getEpicId());
+        persist(JournalRecord.put(subTask));
 
         return subTaskId;
     }
 
     @Override
-    public void updateTask(Task task) {
+    public synchronized void updateTask(Task task) {
+        markDirty(task == null ? null : task.getId());
         super.updateTask(task);
-        save();
+        persist(JournalRecord.put(task));
     }
 
     @Override
-    public void updateEpic(Epic epic) {
+    public synchronized void updateEpic(Epic epic) {
+        markDirty(epic == null ? null : epic.getId());
         super.updateEpic(epic);
-        save();
+        persist(JournalRecord.put(epic));
     }
 
     @Override
-    public void updateSubTask(SubTask subTask) {
+    public synchronized void updateSubTask(SubTask subTask) {
+        if (subTask != null) {
+            markDirty(subTask.getId());
+            markDirty(epicIdOf(subTask.getId()));
+            markDirty(subTask.getEpicId());
+        }
+
         super.updateSubTask(subTask);
-        save();
+        persist(JournalRecord.put(subTask));
     }
 
     @Override
-    public void removeTask(Integer id) {
+    public synchronized void removeTask(Integer id) {
+        markDirty(id);
         super.removeTask(id);
-        save();
+        persist(JournalRecord.delete(TaskType.TASK, id));
     }
 
     @Override
-    public void removeEpic(Integer id) {
+    public synchronized void removeEpic(Integer id) {
+        markDirty(id);
+
+        if (findTask(id) instanceof Epic epic) {
+            epic.getSubTaskIds().forEach(this::markDirty);
+        }
+
         super.removeEpic(id);
-        save();
+        persist(JournalRecord.delete(TaskType.EPIC, id));
     }
 
     @Override
-    public void removeSubTask(Integer id) {
+    public synchronized void removeSubTask(Integer id) {
+        markDirty(id);
+        markDirty(epicIdOf(id));
         super.removeSubTask(id);
-        save();
+        persist(JournalRecord.delete(TaskType.SUBTASK, id));
     }
 
-    private void save() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(storageFile.toFile()))) {
-            bw.write(TaskMapper.getHeader());
-            bw.newLine();
-
-            List<Task> tasks = getAllTasks();
-            for (Task task : tasks) {
-                bw.write(TaskMapper.mapTaskToString(task));
-                bw.newLine();
+    public CompletableFuture<Void> compact() {
+        synchronized (this) {
+            if (writer != null) {
+                return lastWrite = writer.submit(PendingWrite.COMPACTION);
+            }
+
+            if (config.snapshotsEnabled()) {
+                if (pendingSnapshot.isDone()) {
+                    pendingSnapshot = CompletableFuture.runAsync(this::snapshot, snapshotScheduler);
+                }
+
+                return pendingSnapshot;
+            }
+
+            save();
+            journal.truncate();
+        }
+
+        return lastWrite;
+    }
+
+    public CompletableFuture<Void> flush() {
+        return lastWrite;
+    }
+
+    public int getRecoveredRecordCount() {
+        return journal.getRecoveredRecords();
+    }
+
+    public long snapshot() {
+        synchronized (snapshotStore) {
+            List<Task> records;
+            long sequence;
+
+            synchronized (this) {
+                sequence = journal.lastSequence();
+
+                if (sequence == snapshotSequence) {
+                    return sequence;
+                }
+
+                records = snapshotRecords().stream()
+                        .map(task -> TaskMapper.copyOf(task, !config.lazyDescriptionsEnabled()))
+                        .toList();
+            }
+
+            fileWriter.write(snapshotStore.fileFor(sequence), out -> writeSnapshot(records, out));
+            snapshotSequence = sequence;
+            journal.truncateUpTo(sequence);
+            snapshotStore.prune(config.retainedSnapshots());
+
+            return sequence;
+        }
+    }
+
+    /**
+     * Copies the board into {@code directory} while writes continue, mirroring the storage layout, so the copy opens
+     * as {@code FileBackedTaskManager.open(<returned path>, config)}. The files and the journal length are pinned
+     * under the manager lock; the bytes are then streamed outside of it.
+     */
+    public Path backup(Path directory) {
+        try (BackupSet backup = new BackupSet()) {
+            synchronized (snapshotStore) {
+                synchronized (this) {
+                    if (snapshotSequence > 0) {
+                        backup.add(snapshotStore.fileFor(snapshotSequence));
+                    }
+
+                    repository.backup(backup);
+                    journal.backup(backup);
+                    descriptions.backup(backup);
+                }
+            }
+
+            backup.writeTo(directory);
+        }
+
+        return directory.resolve(storageFile.getFileName());
+    }
+
+    @Override
+    public void close() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdown();
+
+            try {
+                snapshotScheduler.awaitTermination(SNAPSHOT_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (writer != null) {
+            writer.close();
+        }
+
+        descriptions.close();
+        repository.close();
+        fileWriter.close();
+        journal.close();
+    }
+
+    private void start() {
+        if (config.durabilityMode() == DurabilityMode.ASYNC) {
+            writer = new GroupCommitWriter<>("storage-writer-" + storageFile.getFileName(), config.flushWindow(),
+                    config.maxBatchSize(), this::writeBatch);
+        }
+
+        if (config.snapshotsEnabled()) {
+            snapshotScheduler = startSnapshotScheduler();
+        }
+    }
+
+    private ScheduledExecutorService startSnapshotScheduler() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-snapshot-" + storageFile.getFileName());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        long intervalMillis = config.snapshotInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::compact, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+
+        return scheduler;
+    }
+
+    private void persist(JournalRecord record) {
+        if (loading) {
+            return;
+        }
+
+        if (record.operation() == JournalRecord.Operation.PUT && !isTaskExist(record.taskId())) {
+            return;
+        }
+
+        if (writer != null) {
+            String line = config.journalEnabled() ? journal.sequence(record).toLine() : null;
+            lastWrite = writer.submit(new PendingWrite(line));
+            return;
+        }
+
+        if (!config.journalEnabled()) {
+            save();
+            return;
+        }
+
+        journal.append(record, false);
+        fileWriter.sync(journal.getJournalFile(), journal::force);
+
+        if (config.lazyDescriptionsEnabled() && record.operation() == JournalRecord.Operation.PUT) {
+            offloadDescription(findTask(record.taskId()));
+        }
+
+        if (journal.size() >= config.compactionThreshold()) {
+            compact();
+        }
+    }
+
+    private void writeBatch(List<PendingWrite> batch) {
+        boolean compactionRequested = batch.stream().anyMatch(write -> write == PendingWrite.COMPACTION);
+
+        if (config.journalEnabled()) {
+            List<String> lines = batch.stream()
+                    .map(PendingWrite::line)
+                    .filter(Objects::nonNull)
+                    .toList();
+
+            if (!lines.isEmpty()) {
+                journal.write(lines, false);
+                fileWriter.sync(journal.getJournalFile(), journal::force);
             }
 
-            List<Epic> epics = getAllEpics();
-            for (Epic epic : epics) {
-                bw.write(TaskMapper.mapTaskToString(epic));
-                bw.newLine();
+            compactionRequested |= journal.size() >= config.compactionThreshold();
+        } else {
+            compactionRequested = true;
+        }
+
+        if (!compactionRequested) {
+            return;
+        }
+
+        synchronized (snapshotStore) {
+            if (config.snapshotsEnabled()) {
+                snapshot();
+            } else {
+                save();
+                journal.truncate();
             }
+        }
+    }
+
+    /**
+     * Hands the records changed since the last save to the repository. The changes are collected under the manager
+     * lock and written outside of it, so an asynchronous save does not hold up callers.
+     */
+    private void save() {
+        Changes changes = collectChanges();
+
+        if (changes.replaceAll()) {
+            repository.replaceAll(changes.puts());
+        } else {
+            repository.batch(changes.puts(), changes.deletes());
+        }
+    }
+
+    private synchronized Changes collectChanges() {
+        forceDescriptions();
+        List<Task> puts = new ArrayList<>();
+        List<Integer> deletes = new ArrayList<>();
 
-            List<SubTask> subTasks = getAllSubTasks();
-            for (SubTask subTask : subTasks) {
-                bw.write(TaskMapper.mapTaskToString(subTask));
-                bw.newLine();
+        if (allDirty) {
+            snapshotRecords().forEach(task -> puts.add(recordOf(task)));
+        } else {
+            for (Integer id : dirtyIds) {
+                Task task = findTask(id);
+
+                if (task == null) {
+                    deletes.add(id);
+                } else {
+                    puts.add(recordOf(task));
+                }
             }
-        } catch (IOException e) {
-            throw new ManagerSaveException("Error occurred while manager saving.", e);
+        }
+
+        Changes changes = new Changes(puts, deletes, allDirty);
+        dirtyIds.clear();
+        allDirty = false;
+
+        return changes;
+    }
+
+    private void markDirty(Integer id) {
+        if (id != null && !allDirty && !config.snapshotsEnabled()) {
+            dirtyIds.add(id);
+        }
+    }
+
+    private void markDirty(List<? extends Task> tasks) {
+        tasks.forEach(task -> markDirty(task.getId()));
+    }
+
+    private void markAllDirty() {
+        allDirty = true;
+        dirtyIds.clear();
+    }
+
+    private Integer epicIdOf(Integer subTaskId) {
+        return findTask(subTaskId) instanceof SubTask subTask ? subTask.getEpicId() : null;
+    }
+
+    private List<Task> snapshotRecords() {
+        List<Task> records = new ArrayList<>(getAllTasks());
+        records.addAll(getAllEpics());
+        records.addAll(getAllSubTasks());
+
+        return records;
+    }
+
+    /**
+     * Copies a task for storage without loading a description that is still offloaded: such a task is stored
+     * without it and gets its loader back from the description file on load.
+     */
+    private static Task recordOf(Task task) {
+        return TaskMapper.copyOf(task, task.isDescriptionLoaded());
+    }
+
+    private void writeSnapshot(List<Task> records, OutputStream out) throws IOException {
+        forceDescriptions();
+        SnapshotFile.write(records, out, config.format(), config.compression());
+    }
+
+    private void forceDescriptions() {
+        if (config.lazyDescriptionsEnabled() && config.fsyncPolicy() != FsyncPolicy.NEVER) {
+            descriptions.force();
         }
     }
 
     private void loadFromFile() {
+        loading = true;
+        boolean layoutCurrent = repository.isLayoutCurrent();
+        boolean descriptionsStored = Files.exists(descriptions.getFile());
+        Set<Integer> replayedIds = new HashSet<>();
+
+        if (config.lazyDescriptionsEnabled() || descriptionsStored) {
+            descriptions.open();
+        }
+
         try {
+            snapshotSequence = restoreLatestSnapshot();
+            journal.replay(snapshotSequence, record -> {
+                applyJournalRecord(record);
+
+                if (record.operation() == JournalRecord.Operation.PUT) {
+                    replayedIds.add(record.taskId());
+                }
+            });
+        } finally {
+            loading = false;
+        }
 
-            if (!Files.exists(storageFile)) {
-                return;
+        // Replayed records are not in the board files yet, so the first save after them rewrites every file.
+        if (journal.size() > 0) {
+            markAllDirty();
+        }
+
+        if (config.lazyDescriptionsEnabled()) {
+            attachDescriptions(replayedIds);
+        } else if (descriptionsStored) {
+            restoreDescriptions(replayedIds);
+        }
+
+        if (!config.snapshotsEnabled() && snapshotSequence > 0 || !layoutCurrent) {
+            markAllDirty();
+            save();
+            journal.truncate();
+            snapshotStore.clear();
+        } else if (!config.journalEnabled() && journal.size() > 0) {
+            save();
+            journal.truncate();
+        }
+    }
+
+    private void attachDescriptions(Set<Integer> replayedIds) {
+        for (Task task : snapshotRecords()) {
+            if (replayedIds.contains(task.getId()) || task.getDescription() != null) {
+                offloadDescription(task);
+            } else if (descriptions.contains(task.getId())) {
+                task.setDescriptionLoader(descriptions.loaderFor(task.getId()));
             }
+        }
 
-            List<String> lines = Files.readAllLines(storageFile);
+        descriptions.compact(snapshotRecords().stream().map(Task::getId).collect(Collectors.toSet()));
+    }
 
-            lines.stream()
-                    .skip(HEADER_LINE_NUMBER)
-                    .map(TaskMapper::mapTaskFromString)
-                    .forEach(task -> {
-                        switch (getTaskType(task)) {
-                            case EPIC -> createEpic((Epic) task);
-                            case SUBTASK -> createSubTask((SubTask) task);
-                            case TASK -> createTask(task);
-                        }
-                    });
-        } catch (IOException e) {
-            throw new ManagerLoadException("Error occurred while manager loading.", e);
+    private void restoreDescriptions(Set<Integer> replayedIds) {
+        for (Task task : snapshotRecords()) {
+            if (!replayedIds.contains(task.getId()) && task.getDescription() == null
+                    && descriptions.contains(task.getId())) {
+                task.setDescription(descriptions.loaderFor(task.getId()).get());
+            }
         }
+
+        markAllDirty();
+        save();
+        descriptions.delete();
     }
 
-    private TaskType getTaskType(Task task) {
-        return TaskType.from(task.getClass().getSimpleName());
+    private void offloadDescription(Task task) {
+        if (task == null || descriptions.isCurrent(task.getId(), task.getDescriptionLoader())) {
+            return;
+        }
+
+        task.setDescriptionLoader(descriptions.append(task.getId(), task.getDescription()));
+    }
+
+    private long restoreLatestSnapshot() {
+        for (SnapshotStore.Snapshot snapshot : snapshotStore.list()) {
+            List<? extends Task> records;
+
+            try {
+                records = SnapshotFile.read(snapshot.file(), true);
+            } catch (IOException | RuntimeException e) {
+                continue;
+            }
+
+            restoreTasks(records);
+
+            return snapshot.sequence();
+        }
+
+        List<Task> records = new ArrayList<>();
+        repository.scan(records::add);
+        restoreTasks(records);
+
+        return 0;
+    }
+
+    private void applyJournalRecord(JournalRecord record) {
+        switch (record.operation()) {
+            case PUT -> {
+                if (!(record.task() instanceof SubTask subTask) || isTaskExist(subTask.getEpicId())) {
+                    restoreTask(record.task());
+                }
+            }
+            case DELETE -> {
+                if (!isTaskExist(record.taskId())) {
+                    return;
+                }
+
+                switch (record.taskType()) {
+                    case EPIC -> removeEpic(record.taskId());
+                    case SUBTASK -> removeSubTask(record.taskId());
+                    case TASK -> removeTask(record.taskId());
+                }
+            }
+            case CLEAR -> {
+                switch (record.taskType()) {
+                    case EPIC -> clearEpics();
+                    case SUBTASK -> clearSubTasks();
+                    case TASK -> clearTasks();
+                }
+            }
+        }
+    }
+
+    private record Changes(List<Task> puts, List<Integer> deletes, boolean replaceAll) {
+    }
+
+    private record PendingWrite(String line) {
+
+        private static final PendingWrite COMPACTION = new PendingWrite(null);
     }
 }
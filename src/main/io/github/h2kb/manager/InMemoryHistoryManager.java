@@ -2,131 +2,211 @@ package io.github.h2kb.manager;
 
 import io.github.h2kb.task.Task;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Bounded view history. Entries live in fixed arrays linked into a list by slot number, and an open-addressing table
+ * maps a task id to its slot, so add, dedupe and remove are O(1) without allocating per call. The integrity of the
+ * list is verified after every change only when assertions are enabled.
+ */
 public class InMemoryHistoryManager implements HistoryManager {
 
-    private static final int MAX_HISTORY_SIZE = 10;
-    private Node<Task> first;
-    private Node<Task> last;
-    private final Map<Integer, Node<Task>> historyList = new HashMap<>();
+    public static final int DEFAULT_CAPACITY = 10;
+    private static final int NONE = -1;
+
+    private final int capacity;
+    private final Task[] items;
+    private final int[] next;
+    private final int[] prev;
+    private final int[] indexKeys;
+    private final int[] indexSlots;
+    private final int indexMask;
+    private int first = NONE;
+    private int last = NONE;
+    private int free;
+    private int size;
+
+    public InMemoryHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity must be positive: " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.items = new Task[capacity];
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+
+        for (int slot = 0; slot < capacity; slot++) {
+            next[slot] = slot + 1 < capacity ? slot + 1 : NONE;
+        }
+
+        int indexSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        this.indexKeys = new int[indexSize];
+        this.indexSlots = new int[indexSize];
+        this.indexMask = indexSize - 1;
+        Arrays.fill(indexSlots, NONE);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
 
     @Override
     public void add(Task task) {
-        if (historyList.containsKey(task.getId())) {
-            remove(task.getId());
-        }
+        int taskId = task.getId();
+        int slot = indexOf(taskId);
 
-        if (historyList.size() >= MAX_HISTORY_SIZE) {
-            removeNode(first);
+        if (slot != NONE) {
+            unlink(slot);
+        } else {
+            if (size == capacity) {
+                remove(items[first].getId());
+            }
+
+            slot = free;
+            free = next[slot];
+            index(taskId, slot);
+            size++;
         }
 
-        historyList.put(task.getId(), linkLast(task));
-        checkForCycles();
+        items[slot] = task;
+        linkLast(slot);
+        assert checkIntegrity();
     }
 
     @Override
     public void remove(int taskId) {
-        Node<Task> node = historyList.remove(taskId);
+        int slot = unindex(taskId);
 
-        if (node == null) {
+        if (slot == NONE) {
             return;
         }
 
-        removeNode(node);
-        checkForCycles();
+        unlink(slot);
+        items[slot] = null;
+        next[slot] = free;
+        free = slot;
+        size--;
+        assert checkIntegrity();
     }
 
     @Override
     public List<Task> getHistory() {
-        return getTasks();
+        List<Task> tasks = new ArrayList<>(size);
+
+        for (int slot = first; slot != NONE; slot = next[slot]) {
+            tasks.add(items[slot]);
+        }
+
+        return tasks;
     }
 
-    private Node<Task> linkLast(Task task) {
-        final Node<Task> l = last;
-        final Node<Task> newNode = new Node<>(l, task, null);
-        last = newNode;
+    private void linkLast(int slot) {
+        prev[slot] = last;
+        next[slot] = NONE;
 
-        if (l == null) {
-            first = newNode;
+        if (last == NONE) {
+            first = slot;
         } else {
-            l.next = newNode;
+            next[last] = slot;
         }
 
-        return newNode;
+        last = slot;
     }
 
-    private void removeNode(Node<Task> node) {
-        if (node == null) {
-            return;
+    private void unlink(int slot) {
+        if (prev[slot] == NONE) {
+            first = next[slot];
+        } else {
+            next[prev[slot]] = next[slot];
         }
 
-        final Node<Task> next = node.next;
-        final Node<Task> prev = node.prev;
-
-        if (prev == null) {
-            first = next;
+        if (next[slot] == NONE) {
+            last = prev[slot];
         } else {
-            prev.next = next;
-            node.prev = null;
+            prev[next[slot]] = prev[slot];
         }
+    }
 
-        if (next == null) {
-            last = prev;
-        } else {
-            next.prev = prev;
-            node.next = null;
+    private int indexOf(int taskId) {
+        for (int i = hash(taskId); indexSlots[i] != NONE; i = (i + 1) & indexMask) {
+            if (indexKeys[i] == taskId) {
+                return indexSlots[i];
+            }
         }
 
-        node.item = null;
+        return NONE;
     }
 
-    private List<Task> getTasks() {
-        List<Task> tasks = new ArrayList<>();
-        Node<Task> node = first;
+    private void index(int taskId, int slot) {
+        int i = hash(taskId);
 
-        if (node == null) {
-            return tasks;
+        while (indexSlots[i] != NONE) {
+            i = (i + 1) & indexMask;
         }
 
-        while (node != null) {
-            tasks.add(node.item);
-            node = node.next;
+        indexKeys[i] = taskId;
+        indexSlots[i] = slot;
+    }
+
+    private int unindex(int taskId) {
+        int i = hash(taskId);
+
+        while (indexSlots[i] != NONE && indexKeys[i] != taskId) {
+            i = (i + 1) & indexMask;
         }
 
-        return tasks;
-    }
+        int slot = indexSlots[i];
 
-    private void checkForCycles() {
-        if (first == null) {
-            return;
+        if (slot == NONE) {
+            return NONE;
         }
 
-        Node<Task> slow = first;
-        Node<Task> fast = first;
+        // Backward-shift deletion keeps every remaining key reachable from its home bucket without tombstones.
+        int gap = i;
 
-        while (fast != null && fast.next != null) {
-            slow = slow.next;
-            fast = fast.next.next;
+        for (int j = (gap + 1) & indexMask; indexSlots[j] != NONE; j = (j + 1) & indexMask) {
+            int home = hash(indexKeys[j]);
 
-            if (slow == fast) {
-                throw new IllegalStateException("Detected a cycle in the linked list.");
+            if (((j - home) & indexMask) >= ((j - gap) & indexMask)) {
+                indexKeys[gap] = indexKeys[j];
+                indexSlots[gap] = indexSlots[j];
+                gap = j;
             }
         }
+
+        indexSlots[gap] = NONE;
+
+        return slot;
     }
 
-    private static class Node<E extends Task> {
+    private int hash(int taskId) {
+        int h = taskId * 0x9E3779B9;
 
-        E item;
-        Node<E> next;
-        Node<E> prev;
+        return (h ^ (h >>> 16)) & indexMask;
+    }
 
-        Node(Node<E> prev, E item, Node<E> next) {
-            this.item = item;
-            this.next = next;
-            this.prev = prev;
+    private boolean checkIntegrity() {
+        int count = 0;
+        int previous = NONE;
+
+        for (int slot = first; slot != NONE; slot = next[slot]) {
+            if (++count > size || prev[slot] != previous || indexOf(items[slot].getId()) != slot) {
+                throw new IllegalStateException("History list is corrupted at slot " + slot);
+            }
+
+            previous = slot;
+        }
+
+        if (count != size || previous != last) {
+            throw new IllegalStateException("History list is corrupted: " + count + " of " + size + " linked");
         }
+
+        return true;
     }
 }
@@ -4,90 +4,92 @@ import io.github.h2kb.exception.TaskIntersectionOfTimeException;
 import io.github.h2kb.task.Epic;
 import io.github.h2kb.task.SubTask;
 import io.github.h2kb.task.Task;
-import io.github.h2kb.task.Status;
-import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeSet;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
 public class InMemoryTaskManager implements TaskManager {
 
     private int taskIdCounter = 1;
-    private final Map<Integer, Task> tasks = new HashMap<>();
-    private final Map<Integer, Epic> epics = new HashMap<>();
-    private final Map<Integer, SubTask> subTasks = new HashMap<>();
+    private final NavigableMap<Integer, Task> tasks = new TreeMap<>();
+    private final NavigableMap<Integer, Epic> epics = new TreeMap<>();
+    private final NavigableMap<Integer, SubTask> subTasks = new TreeMap<>();
+    private final TaskStatusIndex taskStatuses = new TaskStatusIndex();
+    private final TaskStatusIndex epicStatuses = new TaskStatusIndex();
+    private final TaskStatusIndex subTaskStatuses = new TaskStatusIndex();
     private final HistoryManager historyManager = Managers.getDefaultHistory();
-    private final Set<Task> tasksSortedByStartTime = new TreeSet<>(Comparator.comparing(Task::getStartTime));
+    private final TaskIntervalIndex prioritizedTasks = new TaskIntervalIndex();
 
     protected int nextTaskId() {
         return taskIdCounter++;
     }
 
     @Override
-    public List<Task> getAllTasks() {
+    public synchronized List<Task> getAllTasks() {
         return new ArrayList<>(tasks.values());
     }
 
     @Override
-    public List<Epic> getAllEpics() {
+    public synchronized List<Epic> getAllEpics() {
         return new ArrayList<>(epics.values());
     }
 
     @Override
-    public List<SubTask> getAllSubTasks() {
+    public synchronized List<SubTask> getAllSubTasks() {
         return new ArrayList<>(subTasks.values());
     }
 
     @Override
-    public void clearTasks() {
-        tasks.keySet().forEach(historyManager::remove);
+    public synchronized void clearTasks() {
+        tasks.keySet().forEach(id -> {
+            prioritizedTasks.remove(id);
+            historyManager.remove(id);
+        });
         tasks.clear();
+        taskStatuses.clear();
     }
 
     @Override
-    public void clearEpics() {
-        Set<Integer> epicIds = epics.keySet();
-
-        epicIds.stream()
-                .flatMap(epicId -> getSubTasksByEpicId(epicId).stream())
-                .peek(tasksSortedByStartTime::remove)
-                .map(SubTask::getId)
-                .peek(historyManager::remove)
-                .forEach(this::removeSubTask);
+    public synchronized void clearEpics() {
+        subTasks.keySet().forEach(id -> {
+            prioritizedTasks.remove(id);
+            historyManager.remove(id);
+        });
+        subTasks.clear();
+        subTaskStatuses.clear();
 
         epics.keySet().forEach(historyManager::remove);
         epics.clear();
+        epicStatuses.clear();
     }
 
     @Override
-    public void clearSubTasks() {
-        List<Integer> epicIds = getAllSubTasks().stream()
-                .map(SubTask::getEpicId)
-                .toList();
-
-        List<Integer> subTaskIds = getAllSubTasks().stream()
-                .map(SubTask::getId)
-                .toList();
+    public synchronized void clearSubTasks() {
+        for (Epic epic : epics.values()) {
+            if (!epic.getSubTaskIds().isEmpty()) {
+                epic.setSubTaskIds(List.of());
+                epic.getAggregate().clear();
+                epic.applyAggregate();
+                epicStatuses.put(epic);
+            }
+        }
 
-        epicIds.forEach(epicId -> {
-            Epic epic = getEpic(epicId);
-            subTaskIds.forEach(epic.getSubTaskIds()::remove);
+        subTasks.keySet().forEach(id -> {
+            prioritizedTasks.remove(id);
+            historyManager.remove(id);
         });
-
-        epicIds.forEach(historyManager::remove);
-        subTaskIds.forEach(historyManager::remove);
         subTasks.clear();
+        subTaskStatuses.clear();
     }
 
     @Override
-    public Task getTask(Integer id) {
+    public synchronized Task getTask(Integer id) {
         Task task = tasks.get(id);
 
         if (task == null) {
@@ -100,7 +102,7 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     @Override
-    public Epic getEpic(Integer id) {
+    public synchronized Epic getEpic(Integer id) {
         Epic epic = epics.get(id);
 
         if (epic == null) {
@@ -113,7 +115,7 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     @Override
-    public SubTask getSubTask(Integer id) {
+    public synchronized SubTask getSubTask(Integer id) {
         SubTask subTask = subTasks.get(id);
 
         if (subTask == null) {
@@ -126,34 +128,29 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     @Override
-    public Integer createTask(Task task) {
-        if (hasOverlappingTasks(task)) {
-            throw new TaskIntersectionOfTimeException("The intersection of time was detected");
-        }
+    public synchronized Integer createTask(Task task) {
+        checkOverlappingTasks(task, null);
 
         task.setId(nextTaskId());
         tasks.put(task.getId(), task);
-
-        if (task.getStartTime() != null) {
-            tasksSortedByStartTime.add(task);
-        }
+        taskStatuses.put(task);
+        prioritizedTasks.add(task);
 
         return task.getId();
     }
 
     @Override
-    public Integer createEpic(Epic epic) {
+    public synchronized Integer createEpic(Epic epic) {
         epic.setId(nextTaskId());
         epics.put(epic.getId(), epic);
+        epicStatuses.put(epic);
 
         return epic.getId();
     }
 
     @Override
-    public Integer createSubTask(SubTask subTask) {
-        if (hasOverlappingTasks(subTask)) {
-            throw new TaskIntersectionOfTimeException("The intersection of time was detected");
-        }
+    public synchronized Integer createSubTask(SubTask subTask) {
+        checkOverlappingTasks(subTask, null);
 
         Integer epicId = subTask.getEpicId();
 
@@ -163,180 +160,360 @@ public class InMemoryTaskManager implements TaskManager {
 
         subTask.setId(nextTaskId());
         subTasks.put(subTask.getId(), subTask);
+        subTaskStatuses.put(subTask);
 
-        Epic epic = getEpic(epicId);
-        epic.getSubTaskIds().add(subTask.getId());
-        calculateEpicStatus(epic);
-
-        if (subTask.getStartTime() != null) {
-            tasksSortedByStartTime.add(subTask);
-        }
-        calculateEpicWorkTime(epic);
+        Epic epic = epics.get(epicId);
+        epic.addSubTaskId(subTask.getId());
+        prioritizedTasks.add(subTask);
+        epic.getAggregate().put(subTask);
+        epic.applyAggregate();
+        epicStatuses.put(epic);
 
         return subTask.getId();
     }
 
     @Override
-    public void updateTask(Task task) {
+    public synchronized void updateTask(Task task) {
         if (task == null || !tasks.containsKey(task.getId())) {
             return;
         }
 
-        if (task.getStartTime() != null) {
-            tasksSortedByStartTime.add(task);
-        }
-
+        checkOverlappingTasks(task, task.getId());
+        prioritizedTasks.add(task);
         tasks.put(task.getId(), task);
+        taskStatuses.put(task);
     }
 
     @Override
-    public void updateEpic(Epic epic) {
+    public synchronized void updateEpic(Epic epic) {
         if (epic == null || !epics.containsKey(epic.getId())) {
             return;
         }
 
+        epic.setAggregate(epics.get(epic.getId()).getAggregate());
+        epic.applyAggregate();
         epics.put(epic.getId(), epic);
+        epicStatuses.put(epic);
     }
 
     @Override
-    public void updateSubTask(SubTask subTask) {
+    public synchronized void updateSubTask(SubTask subTask) {
         if (subTask == null || !subTasks.containsKey(subTask.getId())) {
             return;
         }
 
-        Epic epic = getEpic(subTask.getEpicId());
+        Epic epic = epics.get(subTask.getEpicId());
 
         if (epic == null) {
             return;
         }
 
-        subTasks.put(subTask.getId(), subTask);
-        calculateEpicStatus(epic);
-
-        if (subTask.getStartTime() != null) {
-            tasksSortedByStartTime.add(subTask);
-        }
-        calculateEpicWorkTime(epic);
+        checkOverlappingTasks(subTask, subTask.getId());
+        prioritizedTasks.add(subTask);
+        putSubTask(subTask, epic);
     }
 
     @Override
-    public void removeTask(Integer id) {
-        Task task = tasks.get(id);
-        tasksSortedByStartTime.remove(task);
+    public synchronized void removeTask(Integer id) {
+        prioritizedTasks.remove(id);
         tasks.remove(id);
+        taskStatuses.remove(id);
         historyManager.remove(id);
     }
 
     @Override
-    public void removeEpic(Integer id) {
-        Epic epic = getEpic(id);
+    public synchronized void removeEpic(Integer id) {
+        Epic epic = epics.remove(id);
 
-        List<SubTask> subTasks = getSubTasksByEpicId(epic.getId());
-        subTasks.stream()
-                .peek(tasksSortedByStartTime::remove)
-                .map(SubTask::getId)
-                .peek(historyManager::remove)
-                .forEach(this::removeSubTask);
+        if (epic == null) {
+            return;
+        }
 
+        for (Integer subTaskId : epic.getSubTaskIds()) {
+            subTasks.remove(subTaskId);
+            subTaskStatuses.remove(subTaskId);
+            prioritizedTasks.remove(subTaskId);
+            historyManager.remove(subTaskId);
+        }
+
+        epicStatuses.remove(id);
         historyManager.remove(id);
-        epics.remove(id);
     }
 
     @Override
-    public void removeSubTask(Integer id) {
-        Epic epic = getEpic(getSubTask(id).getEpicId());
-        epic.getSubTaskIds().remove(id);
-        SubTask subTask = subTasks.get(id);
+    public synchronized void removeSubTask(Integer id) {
+        SubTask subTask = subTasks.remove(id);
+
+        if (subTask == null) {
+            return;
+        }
 
+        Epic epic = epics.get(subTask.getEpicId());
+        epic.removeSubTaskId(id);
+
+        subTaskStatuses.remove(id);
         historyManager.remove(id);
-        subTasks.remove(id);
-        tasksSortedByStartTime.remove(subTask);
-        calculateEpicStatus(epic);
-        calculateEpicWorkTime(epic);
+        prioritizedTasks.remove(id);
+        epic.getAggregate().remove(id);
+        epic.applyAggregate();
+        epicStatuses.put(epic);
     }
 
     @Override
-    public List<SubTask> getSubTasksByEpicId(Integer id) {
+    public synchronized List<SubTask> getSubTasksByEpicId(Integer id) {
         if (id == null || !epics.containsKey(id)) {
             return Collections.emptyList();
         }
 
-        Epic epic = getEpic(id);
+        Epic epic = epics.get(id);
 
         return Optional.ofNullable(epic.getSubTaskIds())
                 .orElse(Collections.emptyList())
                 .stream()
-                .map(this::getSubTask)
+                .map(subTasks::get)
                 .toList();
     }
 
     @Override
-    public List<Task> getHistory() {
+    public synchronized List<Task> getHistory() {
         return historyManager.getHistory();
     }
 
     @Override
-    public Set<Task> getPrioritizedTasks() {
-        return tasksSortedByStartTime;
+    public synchronized Set<Task> getPrioritizedTasks() {
+        return new LinkedHashSet<>(prioritizedTasks.getTasks());
     }
 
-    protected boolean isTaskExist(Integer id) {
-        return tasks.containsKey(id) || epics.containsKey(id) || subTasks.containsKey(id);
+    @Override
+    public synchronized List<Task> getOverlappingTasks(Task task) {
+        return prioritizedTasks.findOverlapping(task, task.getId());
+    }
+
+    @Override
+    public synchronized List<Task> findTasks(TaskQuery query) {
+        if (query.epicId() != null) {
+            return new ArrayList<>();
+        }
+
+        return find(tasks, taskStatuses, query, true);
     }
 
-    private boolean allSubTasksHaveStatus(List<SubTask> subTasks, Status status) {
-        return subTasks.stream().allMatch(task -> task.getStatus().equals(status));
+    @Override
+    public synchronized List<Epic> findEpics(TaskQuery query) {
+        if (query.epicId() != null) {
+            return new ArrayList<>();
+        }
+
+        return find(epics, epicStatuses, query, false);
     }
 
-    private void calculateEpicStatus(Epic epic) {
-        List<Integer> children = epic.getSubTaskIds();
+    @Override
+    public synchronized List<SubTask> findSubTasks(TaskQuery query) {
+        if (query.epicId() == null) {
+            return find(subTasks, subTaskStatuses, query, true);
+        }
 
-        if (children.isEmpty()) {
-            epic.setStatus(Status.NEW);
-            return;
+        Epic epic = epics.get(query.epicId());
+
+        if (epic == null) {
+            return new ArrayList<>();
+        }
+
+        List<SubTask> candidates = new ArrayList<>(epic.getSubTaskIds().size());
+
+        for (Integer subTaskId : epic.getSubTaskIds()) {
+            candidates.add(subTasks.get(subTaskId));
         }
 
-        List<SubTask> subTasks = getSubTasksByEpicId(epic.getId());
+        return query.select(candidates, TaskCursor::byId);
+    }
+
+    @Override
+    public synchronized List<Task> findPrioritizedTasks(TaskQuery query) {
+        return prioritizedTasks.find(query);
+    }
+
+    protected void restoreTask(Task task) {
+        Integer id = task.getId();
+        taskIdCounter = Math.max(taskIdCounter, id + 1);
 
-        if (allSubTasksHaveStatus(subTasks, Status.NEW)) {
-            epic.setStatus(Status.NEW);
-        } else if (allSubTasksHaveStatus(subTasks, Status.DONE)) {
-            epic.setStatus(Status.DONE);
+        if (task instanceof Epic epic) {
+            Epic existing = epics.get(id);
+
+            if (existing != null) {
+                epic.setSubTaskIds(existing.getSubTaskIds());
+                epic.setAggregate(existing.getAggregate());
+            }
+
+            epic.applyAggregate();
+            epics.put(id, epic);
+            epicStatuses.put(epic);
+        } else if (task instanceof SubTask subTask) {
+            Epic epic = epics.get(subTask.getEpicId());
+
+            if (epic == null) {
+                throw new IllegalArgumentException(
+                        String.format("The epic with id %d was not found", subTask.getEpicId()));
+            }
+
+            prioritizedTasks.add(subTask);
+            putSubTask(subTask, epic);
         } else {
-            epic.setStatus(Status.IN_PROGRESS);
+            tasks.put(id, task);
+            taskStatuses.put(task);
+            prioritizedTasks.add(task);
         }
     }
 
-    private void calculateEpicWorkTime(Epic epic) {
-        TreeSet<SubTask> subTasks = tasksSortedByStartTime.stream()
-                .filter(task -> task instanceof SubTask)
-                .map(task -> (SubTask) task)
-                .filter(subTask -> subTask.getEpicId().equals(epic.getId()))
-                .collect(Collectors.toCollection(() -> new TreeSet<>(Comparator.comparing(Task::getStartTime))));
+    /**
+     * Restores many records at once. The result is staged and validated first: a subtask of an unknown epic or
+     * overlapping schedules fail the whole call and leave the manager as it was.
+     */
+    protected void restoreTasks(Collection<? extends Task> records) {
+        NavigableMap<Integer, Task> restoredTasks = new TreeMap<>(tasks);
+        NavigableMap<Integer, Epic> restoredEpics = new TreeMap<>(epics);
+        NavigableMap<Integer, SubTask> restoredSubTasks = new TreeMap<>(subTasks);
+        int maxId = taskIdCounter - 1;
+
+        for (Task task : records) {
+            maxId = Math.max(maxId, task.getId());
+
+            if (task instanceof Epic epic) {
+                restoredEpics.put(epic.getId(), epic);
+            } else if (task instanceof SubTask subTask) {
+                restoredSubTasks.put(subTask.getId(), subTask);
+            } else {
+                restoredTasks.put(task.getId(), task);
+            }
+        }
+
+        for (SubTask subTask : restoredSubTasks.values()) {
+            if (!restoredEpics.containsKey(subTask.getEpicId())) {
+                throw new IllegalArgumentException(
+                        String.format("The epic with id %d was not found", subTask.getEpicId()));
+            }
+        }
 
-        Duration epicDuration = subTasks.stream()
-                .map(SubTask::getDuration)
-                .reduce(Duration.ZERO, Duration::plus);
+        TaskIntervalIndex schedule = new TaskIntervalIndex();
+        List<Task> scheduled = new ArrayList<>(restoredTasks.values());
+        scheduled.addAll(restoredSubTasks.values());
+        schedule.addAll(scheduled);
 
-        epic.setDuration(epicDuration);
+        publish(tasks, restoredTasks, taskStatuses);
+        publish(epics, restoredEpics, epicStatuses);
+        publish(subTasks, restoredSubTasks, subTaskStatuses);
+        prioritizedTasks.replaceWith(schedule);
 
-        if (!subTasks.isEmpty()) {
-            epic.setStartTime(subTasks.first().getStartTime());
-            epic.setEndTime(subTasks.last().getEndTime());
+        for (Epic epic : epics.values()) {
+            epic.setSubTaskIds(new ArrayList<>());
+            epic.getAggregate().clear();
         }
+
+        for (SubTask subTask : subTasks.values()) {
+            Epic epic = epics.get(subTask.getEpicId());
+            epic.getSubTaskIds().add(subTask.getId());
+            epic.getAggregate().put(subTask);
+        }
+
+        for (Epic epic : epics.values()) {
+            epic.applyAggregate();
+            epicStatuses.put(epic);
+        }
+
+        taskIdCounter = maxId + 1;
+    }
+
+    protected boolean isTaskExist(Integer id) {
+        return tasks.containsKey(id) || epics.containsKey(id) || subTasks.containsKey(id);
     }
 
-    private boolean hasOverlappingTasks(Task task) {
-        if (task.getStartTime() == null) {
-            return false;
+    protected Task findTask(Integer id) {
+        Task task = tasks.get(id);
+
+        if (task == null) {
+            task = epics.get(id);
+        }
+
+        return task != null ? task : subTasks.get(id);
+    }
+
+    /**
+     * Stores a new or changed subtask and counts it in its epic. A subtask that moved to another epic is taken out of
+     * the subtask list and aggregate of the epic it belonged to before.
+     */
+    private void putSubTask(SubTask subTask, Epic epic) {
+        Integer id = subTask.getId();
+        SubTask previous = subTasks.put(id, subTask);
+        Epic previousEpic = previous == null ? null : epics.get(previous.getEpicId());
+
+        if (previousEpic != epic) {
+            if (previousEpic != null) {
+                previousEpic.removeSubTaskId(id);
+                previousEpic.getAggregate().remove(id);
+                previousEpic.applyAggregate();
+                epicStatuses.put(previousEpic);
+            }
+
+            epic.addSubTaskId(id);
+        }
+
+        subTaskStatuses.put(subTask);
+        epic.getAggregate().put(subTask);
+        epic.applyAggregate();
+        epicStatuses.put(epic);
+    }
+
+    /**
+     * Pages through one task map in id order from the cursor and stops as soon as the page is full. A start time range
+     * over scheduled tasks is answered from the schedule, which visits only the tasks in the range; otherwise the walk
+     * goes over the status index when the query filters by status, or over the map itself.
+     */
+    private <T extends Task> List<T> find(NavigableMap<Integer, T> source, TaskStatusIndex statuses,
+                                          TaskQuery query, boolean scheduled) {
+        int afterId = query.after() == null ? Integer.MIN_VALUE : query.after().id();
+
+        if (scheduled && query.hasStartRange()) {
+            List<T> found = new ArrayList<>();
+            prioritizedTasks.findIds(query.startFrom(), query.startTo(), afterId, query.limit(), id -> {
+                T task = source.get(id);
+
+                return task != null && query.matches(task);
+            }).forEach(id -> found.add(source.get(id)));
+
+            return found;
         }
 
-        for (Task currentTask : tasksSortedByStartTime) {
-            if (currentTask.getEndTime().isAfter(task.getStartTime())) {
-                return true;
+        Collection<Integer> ids = query.status() != null
+                ? statuses.getIds(query.status()).tailSet(afterId, false)
+                : source.tailMap(afterId, false).keySet();
+        List<T> found = new ArrayList<>();
+
+        for (Integer id : ids) {
+            if (found.size() == query.limit()) {
+                break;
+            }
+
+            T task = source.get(id);
+
+            if (query.matches(task)) {
+                found.add(task);
             }
         }
 
-        return false;
+        return found;
+    }
+
+    private static <T extends Task> void publish(NavigableMap<Integer, T> target, NavigableMap<Integer, T> restored,
+                                                 TaskStatusIndex statuses) {
+        target.clear();
+        target.putAll(restored);
+        statuses.clear();
+        restored.values().forEach(statuses::put);
+    }
+
+    private void checkOverlappingTasks(Task task, Integer ownId) {
+        if (prioritizedTasks.hasOverlaps(task, ownId)) {
+            throw new TaskIntersectionOfTimeException("The intersection of time was detected");
+        }
     }
 }
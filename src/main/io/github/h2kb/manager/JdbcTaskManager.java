@@ -0,0 +1,703 @@
+package io.github.h2kb.manager;
+
+import io.github.h2kb.exception.ManagerLoadException;
+import io.github.h2kb.exception.ManagerSaveException;
+import io.github.h2kb.exception.TaskIntersectionOfTimeException;
+import io.github.h2kb.task.Epic;
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import io.github.h2kb.task.TaskType;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Task manager persisted to an embedded SQL database, for example {@code jdbc:h2:./kanban} or
+ * {@code jdbc:sqlite:kanban.db}. Nothing but the history is held in memory: every lookup reads the rows it needs
+ * through the indexes on epic id, status and start time, and epic status and schedule are recalculated with one
+ * aggregate query over the epic's subtasks.
+ */
+public class JdbcTaskManager implements TaskManager, AutoCloseable {
+
+    public static final int BATCH_SIZE = 1000;
+
+    private static final String COLUMNS =
+            "id, type, name, description, status, epic_id, duration_minutes, start_time, end_time";
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS tasks ("
+                    + "id INTEGER PRIMARY KEY, "
+                    + "type VARCHAR(16) NOT NULL, "
+                    + "name VARCHAR(1024), "
+                    + "description VARCHAR(65535), "
+                    + "status VARCHAR(16), "
+                    + "epic_id INTEGER, "
+                    + "duration_minutes BIGINT, "
+                    + "start_time TIMESTAMP, "
+                    + "end_time TIMESTAMP)",
+            "CREATE INDEX IF NOT EXISTS tasks_type_idx ON tasks (type, id)",
+            "CREATE INDEX IF NOT EXISTS tasks_epic_id_idx ON tasks (epic_id)",
+            "CREATE INDEX IF NOT EXISTS tasks_status_idx ON tasks (status)",
+            "CREATE INDEX IF NOT EXISTS tasks_start_time_idx ON tasks (start_time)",
+            "CREATE TABLE IF NOT EXISTS task_meta (id INTEGER PRIMARY KEY, next_id INTEGER NOT NULL)",
+            "INSERT INTO task_meta (id, next_id) SELECT 1, (SELECT COALESCE(MAX(id), 0) + 1 FROM tasks) "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM task_meta)"
+    };
+
+    private static final String INSERT = "INSERT INTO tasks (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE tasks SET name = ?, description = ?, status = ?, epic_id = ?, "
+            + "duration_minutes = ?, start_time = ?, end_time = ? WHERE id = ?";
+    private static final String UPDATE_EPIC = "UPDATE tasks SET status = ?, duration_minutes = ?, start_time = ?, "
+            + "end_time = ? WHERE id = ?";
+    private static final String SELECT_EPIC_AGGREGATE = "SELECT COUNT(*), "
+            + "SUM(CASE WHEN status = 'NEW' THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN status = 'DONE' THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN start_time IS NULL THEN 0 ELSE COALESCE(duration_minutes, 0) END), "
+            + "MIN(start_time), MAX(end_time) "
+            + "FROM tasks WHERE epic_id = ?";
+    private static final String SELECT_OVERLAPPING = "SELECT " + COLUMNS + " FROM tasks "
+            + "WHERE start_time < ? AND end_time > ? AND type <> 'EPIC' AND id <> ? ORDER BY start_time, id";
+
+    private final Connection connection;
+    private final HistoryManager historyManager = Managers.getDefaultHistory();
+    private int taskIdCounter;
+
+    public JdbcTaskManager(String url) {
+        try {
+            connection = DriverManager.getConnection(url);
+
+            try (Statement statement = connection.createStatement()) {
+                for (String ddl : SCHEMA) {
+                    statement.execute(ddl);
+                }
+
+                // The next id is stored with every insert rather than derived from MAX(id), so the ids of deleted
+                // rows are never handed out again after a reopen.
+                try (ResultSet rs = statement.executeQuery("SELECT next_id FROM task_meta WHERE id = 1")) {
+                    rs.next();
+                    taskIdCounter = rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            throw new ManagerLoadException("Error occurred while database opening.", e);
+        }
+    }
+
+    @Override
+    public synchronized List<Task> getAllTasks() {
+        return query(() -> selectByType(TaskType.TASK, Task.class));
+    }
+
+    @Override
+    public synchronized List<Epic> getAllEpics() {
+        return query(() -> {
+            List<Epic> epics = selectByType(TaskType.EPIC, Epic.class);
+            Map<Integer, List<Integer>> subTaskIds = new HashMap<>();
+
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT epic_id, id FROM tasks WHERE type = ? ORDER BY id")) {
+                statement.setString(1, TaskType.SUBTASK.name());
+
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        subTaskIds.computeIfAbsent(rs.getInt(1), unused -> new ArrayList<>()).add(rs.getInt(2));
+                    }
+                }
+            }
+
+            epics.forEach(epic -> epic.setSubTaskIds(subTaskIds.getOrDefault(epic.getId(), new ArrayList<>())));
+
+            return epics;
+        });
+    }
+
+    @Override
+    public synchronized List<SubTask> getAllSubTasks() {
+        return query(() -> selectByType(TaskType.SUBTASK, SubTask.class));
+    }
+
+    @Override
+    public synchronized void clearTasks() {
+        deleteAll(List.of(TaskType.TASK), null);
+    }
+
+    @Override
+    public synchronized void clearEpics() {
+        deleteAll(List.of(TaskType.SUBTASK, TaskType.EPIC), null);
+    }
+
+    @Override
+    public synchronized void clearSubTasks() {
+        deleteAll(List.of(TaskType.SUBTASK), "UPDATE tasks SET status = 'NEW', duration_minutes = 0, "
+                + "start_time = NULL, end_time = NULL WHERE type = 'EPIC'");
+    }
+
+    @Override
+    public synchronized Task getTask(Integer id) {
+        return addToHistory(query(() -> select(id, TaskType.TASK, Task.class)));
+    }
+
+    @Override
+    public synchronized Epic getEpic(Integer id) {
+        return addToHistory(query(() -> selectEpic(id)));
+    }
+
+    @Override
+    public synchronized SubTask getSubTask(Integer id) {
+        return addToHistory(query(() -> select(id, TaskType.SUBTASK, SubTask.class)));
+    }
+
+    @Override
+    public synchronized Integer createTask(Task task) {
+        checkOverlappingTasks(task, null);
+
+        return update(() -> {
+            task.setId(taskIdCounter);
+            insert(List.of(task));
+            storeNextId(taskIdCounter + 1);
+            taskIdCounter++;
+
+            return task.getId();
+        });
+    }
+
+    @Override
+    public synchronized Integer createEpic(Epic epic) {
+        return update(() -> {
+            epic.setId(taskIdCounter);
+            insert(List.of(epic));
+            storeNextId(taskIdCounter + 1);
+            taskIdCounter++;
+
+            return epic.getId();
+        });
+    }
+
+    @Override
+    public synchronized Integer createSubTask(SubTask subTask) {
+        checkOverlappingTasks(subTask, null);
+
+        Integer epicId = subTask.getEpicId();
+
+        if (epicId == null || !query(() -> exists(epicId, TaskType.EPIC))) {
+            throw new IllegalArgumentException(String.format("The epic with id %d was not found", epicId));
+        }
+
+        return update(() -> {
+            subTask.setId(taskIdCounter);
+            insert(List.of(subTask));
+            storeNextId(taskIdCounter + 1);
+            recalculateEpics(List.of(epicId));
+            taskIdCounter++;
+
+            return subTask.getId();
+        });
+    }
+
+    @Override
+    public synchronized void updateTask(Task task) {
+        if (task == null || !query(() -> exists(task.getId(), TaskType.TASK))) {
+            return;
+        }
+
+        checkOverlappingTasks(task, task.getId());
+        update(() -> updateRow(task));
+    }
+
+    @Override
+    public synchronized void updateEpic(Epic epic) {
+        if (epic == null || !query(() -> exists(epic.getId(), TaskType.EPIC))) {
+            return;
+        }
+
+        update(() -> {
+            recalculateEpics(List.of(epic.getId()));
+            Epic recalculated = selectEpic(epic.getId());
+            epic.setStatus(recalculated.getStatus());
+            epic.setDuration(recalculated.getDuration());
+            epic.setStartTime(recalculated.getStartTime());
+            epic.setEndTime(recalculated.getEndTime());
+            epic.setSubTaskIds(recalculated.getSubTaskIds());
+
+            return updateRow(epic);
+        });
+    }
+
+    @Override
+    public synchronized void updateSubTask(SubTask subTask) {
+        if (subTask == null) {
+            return;
+        }
+
+        Integer previousEpicId = query(() -> selectEpicId(subTask.getId()));
+
+        if (previousEpicId == null || !query(() -> exists(subTask.getEpicId(), TaskType.EPIC))) {
+            return;
+        }
+
+        checkOverlappingTasks(subTask, subTask.getId());
+        update(() -> {
+            updateRow(subTask);
+
+            return recalculateEpics(new TreeSet<>(List.of(previousEpicId, subTask.getEpicId())));
+        });
+    }
+
+    @Override
+    public synchronized void removeTask(Integer id) {
+        update(() -> delete(id, TaskType.TASK));
+        historyManager.remove(id);
+    }
+
+    @Override
+    public synchronized void removeEpic(Integer id) {
+        List<Integer> subTaskIds = query(() -> selectSubTaskIds(id));
+
+        update(() -> {
+            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM tasks WHERE epic_id = ?")) {
+                statement.setInt(1, id);
+                statement.executeUpdate();
+            }
+
+            return delete(id, TaskType.EPIC);
+        });
+
+        subTaskIds.forEach(historyManager::remove);
+        historyManager.remove(id);
+    }
+
+    @Override
+    public synchronized void removeSubTask(Integer id) {
+        Integer epicId = query(() -> selectEpicId(id));
+
+        if (epicId == null) {
+            return;
+        }
+
+        update(() -> {
+            delete(id, TaskType.SUBTASK);
+
+            return recalculateEpics(List.of(epicId));
+        });
+        historyManager.remove(id);
+    }
+
+    @Override
+    public synchronized List<SubTask> getSubTasksByEpicId(Integer id) {
+        if (id == null) {
+            return List.of();
+        }
+
+        return query(() -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT " + COLUMNS + " FROM tasks WHERE epic_id = ? ORDER BY id")) {
+                statement.setInt(1, id);
+
+                return readAll(statement, SubTask.class);
+            }
+        });
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public synchronized Set<Task> getPrioritizedTasks() {
+        return query(() -> {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT " + COLUMNS + " FROM tasks "
+                    + "WHERE start_time IS NOT NULL AND type <> 'EPIC' ORDER BY start_time, id")) {
+                return new LinkedHashSet<>(readAll(statement, Task.class));
+            }
+        });
+    }
+
+    @Override
+    public synchronized List<Task> getOverlappingTasks(Task task) {
+        return query(() -> selectOverlapping(task, task.getId(), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Inserts records that already carry their ids, for example a board exported from another manager, in batches
+     * of {@value #BATCH_SIZE} rows within one transaction. Epics must come before their subtasks.
+     */
+    public synchronized void importTasks(Collection<? extends Task> records) {
+        update(() -> {
+            Set<Integer> epicIds = new TreeSet<>();
+            int maxId = taskIdCounter - 1;
+
+            for (Task task : records) {
+                maxId = Math.max(maxId, task.getId());
+
+                if (task instanceof SubTask subTask) {
+                    epicIds.add(subTask.getEpicId());
+                }
+            }
+
+            insert(records);
+            recalculateEpics(epicIds);
+            storeNextId(maxId + 1);
+            taskIdCounter = maxId + 1;
+
+            return records.size();
+        });
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new ManagerSaveException("Error occurred while database closing.", e);
+        }
+    }
+
+    private void checkOverlappingTasks(Task task, Integer ownId) {
+        if (task.getStartTime() != null && !query(() -> selectOverlapping(task, ownId, 1)).isEmpty()) {
+            throw new TaskIntersectionOfTimeException("The intersection of time was detected");
+        }
+    }
+
+    private <T extends Task> T addToHistory(T task) {
+        if (task != null) {
+            historyManager.add(task);
+        }
+
+        return task;
+    }
+
+    private void deleteAll(List<TaskType> types, String epicReset) {
+        List<Integer> ids = new ArrayList<>();
+
+        for (TaskType type : types) {
+            query(() -> selectByType(type, Task.class)).forEach(task -> ids.add(task.getId()));
+        }
+
+        update(() -> {
+            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM tasks WHERE type = ?")) {
+                for (TaskType type : types) {
+                    statement.setString(1, type.name());
+                    statement.addBatch();
+                }
+
+                statement.executeBatch();
+            }
+
+            if (epicReset != null) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate(epicReset);
+                }
+            }
+
+            return ids.size();
+        });
+
+        ids.forEach(historyManager::remove);
+    }
+
+    private void insert(Collection<? extends Task> records) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            int batched = 0;
+
+            for (Task task : records) {
+                statement.setInt(1, task.getId());
+                statement.setString(2, TaskType.of(task).name());
+                statement.setString(3, task.getName());
+                statement.setString(4, task.getDescription());
+                setRow(statement, 5, task);
+
+                statement.addBatch();
+
+                if (++batched % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+
+            if (batched % BATCH_SIZE != 0) {
+                statement.executeBatch();
+            }
+        }
+    }
+
+    private void storeNextId(int nextId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE task_meta SET next_id = ? WHERE id = 1")) {
+            statement.setInt(1, nextId);
+            statement.executeUpdate();
+        }
+    }
+
+    private int updateRow(Task task) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE)) {
+            statement.setString(1, task.getName());
+            statement.setString(2, task.getDescription());
+            setRow(statement, 3, task);
+            statement.setInt(8, task.getId());
+
+            return statement.executeUpdate();
+        }
+    }
+
+    private static void setRow(PreparedStatement statement, int index, Task task) throws SQLException {
+        Duration duration = task.getDuration();
+        LocalDateTime startTime = task.getStartTime();
+
+        statement.setString(index, task.getStatus() == null ? null : task.getStatus().name());
+
+        if (task instanceof SubTask subTask && subTask.getEpicId() != null) {
+            statement.setInt(index + 1, subTask.getEpicId());
+        } else {
+            statement.setNull(index + 1, Types.INTEGER);
+        }
+
+        if (duration == null) {
+            statement.setNull(index + 2, Types.BIGINT);
+        } else {
+            statement.setLong(index + 2, duration.toMinutes());
+        }
+
+        LocalDateTime endTime = task instanceof Epic epic ? epic.getEndTime() : endTimeOf(startTime, duration);
+        statement.setTimestamp(index + 3, toTimestamp(startTime));
+        statement.setTimestamp(index + 4, toTimestamp(endTime));
+    }
+
+    private int recalculateEpics(Collection<Integer> epicIds) throws SQLException {
+        try (PreparedStatement aggregate = connection.prepareStatement(SELECT_EPIC_AGGREGATE);
+             PreparedStatement update = connection.prepareStatement(UPDATE_EPIC)) {
+            for (Integer epicId : epicIds) {
+                aggregate.setInt(1, epicId);
+
+                try (ResultSet rs = aggregate.executeQuery()) {
+                    rs.next();
+                    int size = rs.getInt(1);
+                    Status status = size == 0 || rs.getInt(2) == size ? Status.NEW
+                            : rs.getInt(3) == size ? Status.DONE : Status.IN_PROGRESS;
+
+                    update.setString(1, status.name());
+                    update.setLong(2, rs.getLong(4));
+                    update.setTimestamp(3, rs.getTimestamp(5));
+                    update.setTimestamp(4, rs.getTimestamp(6));
+                    update.setInt(5, epicId);
+                }
+
+                update.addBatch();
+            }
+
+            update.executeBatch();
+        }
+
+        return epicIds.size();
+    }
+
+    private int delete(Integer id, TaskType type) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "DELETE FROM tasks WHERE id = ? AND type = ?")) {
+            statement.setInt(1, id);
+            statement.setString(2, type.name());
+
+            return statement.executeUpdate();
+        }
+    }
+
+    private boolean exists(Integer id, TaskType type) throws SQLException {
+        if (id == null) {
+            return false;
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM tasks WHERE id = ? AND type = ?")) {
+            statement.setInt(1, id);
+            statement.setString(2, type.name());
+
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private Integer selectEpicId(Integer subTaskId) throws SQLException {
+        if (subTaskId == null) {
+            return null;
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT epic_id FROM tasks WHERE id = ? AND type = ?")) {
+            statement.setInt(1, subTaskId);
+            statement.setString(2, TaskType.SUBTASK.name());
+
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    private List<Integer> selectSubTaskIds(Integer epicId) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id FROM tasks WHERE epic_id = ? ORDER BY id")) {
+            statement.setInt(1, epicId);
+
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+
+        return ids;
+    }
+
+    private Epic selectEpic(Integer id) throws SQLException {
+        Epic epic = select(id, TaskType.EPIC, Epic.class);
+
+        if (epic != null) {
+            epic.setSubTaskIds(selectSubTaskIds(id));
+        }
+
+        return epic;
+    }
+
+    private <T extends Task> T select(Integer id, TaskType type, Class<T> taskClass) throws SQLException {
+        if (id == null) {
+            return null;
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT " + COLUMNS + " FROM tasks WHERE id = ? AND type = ?")) {
+            statement.setInt(1, id);
+            statement.setString(2, type.name());
+            List<T> tasks = readAll(statement, taskClass);
+
+            return tasks.isEmpty() ? null : tasks.getFirst();
+        }
+    }
+
+    private <T extends Task> List<T> selectByType(TaskType type, Class<T> taskClass) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT " + COLUMNS + " FROM tasks WHERE type = ? ORDER BY id")) {
+            statement.setString(1, type.name());
+
+            return readAll(statement, taskClass);
+        }
+    }
+
+    private List<Task> selectOverlapping(Task task, Integer ownId, int limit) throws SQLException {
+        if (task.getStartTime() == null) {
+            return List.of();
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_OVERLAPPING)) {
+            statement.setTimestamp(1, toTimestamp(endTimeOf(task.getStartTime(), task.getDuration())));
+            statement.setTimestamp(2, toTimestamp(task.getStartTime()));
+            statement.setInt(3, ownId == null ? 0 : ownId);
+            statement.setMaxRows(limit == Integer.MAX_VALUE ? 0 : limit);
+
+            return readAll(statement, Task.class);
+        }
+    }
+
+    private static <T extends Task> List<T> readAll(PreparedStatement statement, Class<T> taskClass)
+            throws SQLException {
+        List<T> tasks = new ArrayList<>();
+
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                tasks.add(taskClass.cast(readTask(rs)));
+            }
+        }
+
+        return tasks;
+    }
+
+    private static Task readTask(ResultSet rs) throws SQLException {
+        String statusName = rs.getString(5);
+        Status status = statusName == null ? null : Status.valueOf(statusName);
+        long durationMinutes = rs.getLong(7);
+        Duration duration = rs.wasNull() ? null : Duration.ofMinutes(durationMinutes);
+        LocalDateTime startTime = toLocalDateTime(rs.getTimestamp(8));
+
+        Task task = switch (TaskType.valueOf(rs.getString(2))) {
+            case EPIC -> {
+                Epic epic = new Epic(rs.getString(3), rs.getString(4), status);
+                epic.setDuration(duration);
+                epic.setStartTime(startTime);
+                epic.setEndTime(toLocalDateTime(rs.getTimestamp(9)));
+                yield epic;
+            }
+            case SUBTASK -> new SubTask(rs.getString(3), rs.getString(4), status, rs.getInt(6), duration,
+                    startTime);
+            case TASK -> new Task(rs.getString(3), rs.getString(4), status, duration, startTime);
+        };
+        task.setId(rs.getInt(1));
+
+        return task;
+    }
+
+    private static LocalDateTime endTimeOf(LocalDateTime startTime, Duration duration) {
+        if (startTime == null) {
+            return null;
+        }
+
+        return duration == null ? startTime : startTime.plusMinutes(duration.toMinutes());
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime dateTime) {
+        return dateTime == null ? null : Timestamp.valueOf(dateTime);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private <T> T query(SqlAction<T> action) {
+        try {
+            return action.run();
+        } catch (SQLException e) {
+            throw new ManagerLoadException("Error occurred while database reading.", e);
+        }
+    }
+
+    private <T> T update(SqlAction<T> action) {
+        try {
+            connection.setAutoCommit(false);
+
+            try {
+                T result = action.run();
+                connection.commit();
+
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new ManagerSaveException("Error occurred while database writing.", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlAction<T> {
+
+        T run() throws SQLException;
+    }
+}
@@ -1,5 +1,7 @@
 package io.github.h2kb.manager;
 
+import io.github.h2kb.storage.StorageConfig;
+import io.github.h2kb.storage.TaskRepository;
 import java.nio.file.Path;
 
 public class Managers {
@@ -8,11 +10,31 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
     public static TaskManager getFileBacked(Path file) {
-        return new FileBackedTaskManager(file);
+        return FileBackedTaskManager.open(file);
+    }
+
+    public static TaskManager getFileBacked(Path file, StorageConfig config) {
+        return FileBackedTaskManager.open(file, config);
+    }
+
+    public static TaskManager getJdbc(String url) {
+        return new JdbcTaskManager(url);
+    }
+
+    public static TaskManager getCaching(TaskRepository repository) {
+        return new CachingTaskManager(repository);
     }
 
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
 }
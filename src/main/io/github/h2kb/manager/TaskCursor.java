@@ -0,0 +1,66 @@
+package io.github.h2kb.manager;
+
+import io.github.h2kb.task.Task;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Keyset position in a task listing: the sort key of the last task returned, so the next page starts right after it
+ * even when tasks are added or removed in between. Listings ordered by id carry the id alone, the prioritized listing
+ * carries the interval of the task as well. {@link #encode()} turns the cursor into an opaque URL-safe token.
+ */
+public record TaskCursor(int id, LocalDateTime startTime, LocalDateTime endTime) implements Comparable<TaskCursor> {
+
+    private static final Comparator<TaskCursor> ORDER = Comparator
+            .comparing(TaskCursor::startTime, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(TaskCursor::endTime, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingInt(TaskCursor::id);
+
+    public static TaskCursor byId(Task task) {
+        return new TaskCursor(task.getId(), null, null);
+    }
+
+    public static TaskCursor byStartTime(Task task) {
+        LocalDateTime startTime = task.getStartTime();
+        LocalDateTime endTime = task.getDuration() == null ? startTime : task.getEndTime();
+
+        return new TaskCursor(task.getId(), startTime, endTime);
+    }
+
+    public boolean hasStartTime() {
+        return startTime != null;
+    }
+
+    public String encode() {
+        String key = startTime == null ? String.valueOf(id) : id + "," + startTime + "," + endTime;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TaskCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(",", -1);
+
+            if (parts.length == 1) {
+                return new TaskCursor(Integer.parseInt(parts[0]), null, null);
+            }
+
+            if (parts.length == 3) {
+                return new TaskCursor(Integer.parseInt(parts[0]), LocalDateTime.parse(parts[1]),
+                        LocalDateTime.parse(parts[2]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+
+        throw new IllegalArgumentException("Invalid cursor: " + token);
+    }
+
+    @Override
+    public int compareTo(TaskCursor other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,257 @@
+package io.github.h2kb.manager;
+
+import io.github.h2kb.task.Task;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+
+/**
+ * Index of scheduled tasks keyed on the half-open interval {@code [startTime, endTime)}.
+ * <p>
+ * Intervals stored in the index never overlap each other, so ordering them by start time orders them by end time
+ * as well. That lets an overlap query find the last interval starting before the end of the probe and walk back only
+ * over the intervals that actually overlap it: {@code O(log N + k)}.
+ */
+public class TaskIntervalIndex {
+
+    private static final Comparator<Entry> ENTRY_ORDER = Comparator.comparing(Entry::start)
+            .thenComparing(Entry::end)
+            .thenComparing(Entry::id, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final NavigableSet<Entry> entries = new TreeSet<>(ENTRY_ORDER);
+    private final Map<Integer, Entry> entriesById = new HashMap<>();
+
+    public void add(Task task) {
+        if (task.getStartTime() == null) {
+            remove(task.getId());
+            return;
+        }
+
+        Entry entry = Entry.of(task, task.getId());
+
+        if (candidates(entry).hasNext()) {
+            throw new IllegalStateException(String.format("Task with id %d overlaps indexed tasks", task.getId()));
+        }
+
+        Entry previous = entriesById.put(task.getId(), entry);
+
+        if (previous != null) {
+            entries.remove(previous);
+        }
+
+        entries.add(entry);
+    }
+
+    public void addAll(Collection<? extends Task> tasks) {
+        if (!entries.isEmpty()) {
+            tasks.forEach(this::add);
+            return;
+        }
+
+        List<Entry> sorted = new ArrayList<>(tasks.size());
+
+        for (Task task : tasks) {
+            if (task.getStartTime() != null) {
+                sorted.add(Entry.of(task, task.getId()));
+            }
+        }
+
+        sorted.sort(ENTRY_ORDER);
+        Entry previous = null;
+
+        for (Entry entry : sorted) {
+            if (previous != null && entry.start().isBefore(previous.end())) {
+                throw new IllegalStateException(String.format("Task with id %d overlaps task with id %d",
+                        entry.id(), previous.id()));
+            }
+
+            entriesById.put(entry.id(), entry);
+            previous = entry;
+        }
+
+        entries.addAll(sorted);
+    }
+
+    public void remove(Integer id) {
+        Entry entry = entriesById.remove(id);
+
+        if (entry != null) {
+            entries.remove(entry);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        entriesById.clear();
+    }
+
+    public void replaceWith(TaskIntervalIndex other) {
+        clear();
+        entries.addAll(other.entries);
+        entriesById.putAll(other.entriesById);
+    }
+
+    public boolean hasOverlaps(Task task, Integer ignoredId) {
+        return task.getStartTime() != null && candidates(Entry.of(task, ignoredId)).hasNext();
+    }
+
+    public List<Task> findOverlapping(Task task, Integer ignoredId) {
+        List<Task> overlapping = new ArrayList<>();
+
+        if (task.getStartTime() == null) {
+            return overlapping;
+        }
+
+        Iterator<Entry> candidates = candidates(Entry.of(task, ignoredId));
+
+        while (candidates.hasNext()) {
+            overlapping.add(candidates.next().task());
+        }
+
+        return overlapping.reversed();
+    }
+
+    public List<Task> getTasks() {
+        List<Task> tasks = new ArrayList<>(entries.size());
+
+        for (Entry entry : entries) {
+            tasks.add(entry.task());
+        }
+
+        return tasks;
+    }
+
+    public List<Task> find(TaskQuery query) {
+        List<Task> found = new ArrayList<>();
+
+        for (Entry entry : range(query.startFrom(), query.startTo(), query.after())) {
+            if (found.size() == query.limit()) {
+                break;
+            }
+
+            if (query.matches(entry.task())) {
+                found.add(entry.task());
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Finds the ids above {@code afterId} of the tasks starting in {@code [startFrom, startTo)} that pass
+     * {@code filter}, and returns the {@code limit} smallest in id order. Only the entries in the range are visited,
+     * and at most {@code limit} ids are kept along the way: {@code O(log N + k log limit)} for {@code k} tasks in the
+     * range.
+     */
+    public NavigableSet<Integer> findIds(LocalDateTime startFrom, LocalDateTime startTo, int afterId, int limit,
+                                         IntPredicate filter) {
+        NavigableSet<Integer> found = new TreeSet<>();
+
+        for (Entry entry : range(startFrom, startTo, null)) {
+            int id = entry.id();
+
+            if (id <= afterId || found.size() == limit && id > found.last() || !filter.test(id)) {
+                continue;
+            }
+
+            found.add(id);
+
+            if (found.size() > limit) {
+                found.pollLast();
+            }
+        }
+
+        return found;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private NavigableSet<Entry> range(LocalDateTime startFrom, LocalDateTime startTo, TaskCursor after) {
+        Entry lower = startFrom == null ? null : new Entry(startFrom, LocalDateTime.MIN, null, null);
+        boolean lowerInclusive = true;
+
+        if (after != null && after.hasStartTime()) {
+            Entry cursor = new Entry(after.startTime(), after.endTime(), after.id(), null);
+
+            if (lower == null || ENTRY_ORDER.compare(cursor, lower) >= 0) {
+                lower = cursor;
+                lowerInclusive = false;
+            }
+        }
+
+        Entry upper = startTo == null ? null : new Entry(startTo, LocalDateTime.MIN, null, null);
+
+        if (lower != null && upper != null) {
+            return ENTRY_ORDER.compare(lower, upper) < 0
+                    ? entries.subSet(lower, lowerInclusive, upper, false)
+                    : Collections.emptyNavigableSet();
+        }
+
+        if (lower != null) {
+            return entries.tailSet(lower, lowerInclusive);
+        }
+
+        return upper != null ? entries.headSet(upper, false) : entries;
+    }
+
+    private Iterator<Entry> candidates(Entry probe) {
+        Entry upperBound = new Entry(probe.end(), LocalDateTime.MIN, null, null);
+        Iterator<Entry> descending = entries.headSet(upperBound, false).descendingIterator();
+
+        return new Iterator<>() {
+
+            private Entry next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Entry next() {
+                Entry current = next;
+                next = advance();
+
+                return current;
+            }
+
+            private Entry advance() {
+                while (descending.hasNext()) {
+                    Entry entry = descending.next();
+
+                    if (!entry.end().isAfter(probe.start())) {
+                        return null;
+                    }
+
+                    if (!Objects.equals(entry.id(), probe.id())) {
+                        return entry;
+                    }
+                }
+
+                return null;
+            }
+        };
+    }
+
+    private record Entry(LocalDateTime start, LocalDateTime end, Integer id, Task task) {
+
+        static Entry of(Task task, Integer id) {
+            LocalDateTime start = task.getStartTime();
+            LocalDateTime end = task.getDuration() == null ? start : start.plus(task.getDuration());
+
+            return new Entry(start, end, id, task);
+        }
+    }
+}
@@ -49,4 +49,22 @@ public interface TaskManager {
     List<Task> getHistory();
 
     Set<Task> getPrioritizedTasks();
+
+    List<Task> getOverlappingTasks(Task task);
+
+    default List<Task> findTasks(TaskQuery query) {
+        return query.select(getAllTasks(), TaskCursor::byId);
+    }
+
+    default List<Epic> findEpics(TaskQuery query) {
+        return query.select(getAllEpics(), TaskCursor::byId);
+    }
+
+    default List<SubTask> findSubTasks(TaskQuery query) {
+        return query.select(getAllSubTasks(), TaskCursor::byId);
+    }
+
+    default List<Task> findPrioritizedTasks(TaskQuery query) {
+        return query.select(getPrioritizedTasks(), TaskCursor::byStartTime);
+    }
 }
@@ -0,0 +1,98 @@
+package io.github.h2kb.manager;
+
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Filter and page of a task listing. Every filter left {@code null} matches all tasks; the start time range is
+ * half-open, {@code [startFrom, startTo)}, and excludes unscheduled tasks once either bound is set. {@code after}
+ * resumes the listing behind a previously returned task, and at most {@code limit} tasks are returned.
+ */
+public record TaskQuery(Status status, Integer epicId, LocalDateTime startFrom, LocalDateTime startTo,
+                        TaskCursor after, int limit) {
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    public TaskQuery {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+
+        if (startFrom != null && startTo != null && startTo.isBefore(startFrom)) {
+            throw new IllegalArgumentException("Start time range is reversed: " + startFrom + " - " + startTo);
+        }
+    }
+
+    public static TaskQuery all() {
+        return new TaskQuery(null, null, null, null, null, UNLIMITED);
+    }
+
+    public TaskQuery withStatus(Status status) {
+        return new TaskQuery(status, epicId, startFrom, startTo, after, limit);
+    }
+
+    public TaskQuery withEpicId(Integer epicId) {
+        return new TaskQuery(status, epicId, startFrom, startTo, after, limit);
+    }
+
+    public TaskQuery withStartRange(LocalDateTime startFrom, LocalDateTime startTo) {
+        return new TaskQuery(status, epicId, startFrom, startTo, after, limit);
+    }
+
+    public TaskQuery withAfter(TaskCursor after) {
+        return new TaskQuery(status, epicId, startFrom, startTo, after, limit);
+    }
+
+    public TaskQuery withLimit(int limit) {
+        return new TaskQuery(status, epicId, startFrom, startTo, after, limit);
+    }
+
+    public boolean hasStartRange() {
+        return startFrom != null || startTo != null;
+    }
+
+    public boolean matches(Task task) {
+        if (status != null && task.getStatus() != status) {
+            return false;
+        }
+
+        if (epicId != null && !(task instanceof SubTask subTask && epicId.equals(subTask.getEpicId()))) {
+            return false;
+        }
+
+        if (!hasStartRange()) {
+            return true;
+        }
+
+        LocalDateTime startTime = task.getStartTime();
+
+        return startTime != null
+                && (startFrom == null || !startTime.isBefore(startFrom))
+                && (startTo == null || startTime.isBefore(startTo));
+    }
+
+    /**
+     * Applies the query to unordered candidates: keeps the matching tasks behind the cursor, sorts them by the given
+     * key and cuts the result at the limit.
+     */
+    public <T extends Task> List<T> select(Collection<? extends T> tasks, Function<Task, TaskCursor> sortKey) {
+        List<T> selected = new ArrayList<>();
+
+        for (T task : tasks) {
+            if (matches(task) && (after == null || sortKey.apply(task).compareTo(after) > 0)) {
+                selected.add(task);
+            }
+        }
+
+        selected.sort(Comparator.comparing(sortKey));
+
+        return selected.size() > limit ? new ArrayList<>(selected.subList(0, limit)) : selected;
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.h2kb.manager;
+
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.Task;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Ids of tasks grouped by status and kept in id order, so a status filter can page through matching tasks without
+ * visiting the others. The status each task was indexed under is remembered, because callers update tasks in place
+ * and the old status cannot be read back from the task.
+ */
+public class TaskStatusIndex {
+
+    private final Map<Status, NavigableSet<Integer>> idsByStatus = new EnumMap<>(Status.class);
+    private final Map<Integer, Status> statuses = new HashMap<>();
+
+    public void put(Task task) {
+        Status status = task.getStatus();
+        Status previous = status == null ? statuses.remove(task.getId()) : statuses.put(task.getId(), status);
+
+        if (previous == status) {
+            return;
+        }
+
+        if (previous != null) {
+            idsByStatus.get(previous).remove(task.getId());
+        }
+
+        if (status != null) {
+            idsByStatus.computeIfAbsent(status, key -> new TreeSet<>()).add(task.getId());
+        }
+    }
+
+    public void remove(Integer id) {
+        Status previous = statuses.remove(id);
+
+        if (previous != null) {
+            idsByStatus.get(previous).remove(id);
+        }
+    }
+
+    public void clear() {
+        idsByStatus.clear();
+        statuses.clear();
+    }
+
+    public NavigableSet<Integer> getIds(Status status) {
+        return Collections.unmodifiableNavigableSet(idsByStatus.getOrDefault(status, Collections.emptyNavigableSet()));
+    }
+}
@@ -0,0 +1,226 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.exception.ManagerSaveException;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replaces files without ever exposing a partially written version. Content goes to a temporary sibling, is forced
+ * to disk unless the policy is {@link FsyncPolicy#NEVER} and is then renamed over the target, so after a crash the
+ * target holds either the previous or the new content.
+ * <p>
+ * The directory holding the renamed file, and any other file handed to {@link #sync}, is forced as the
+ * {@link FsyncPolicy} allows. With {@link FsyncPolicy#EVERY_N_MS} a force that comes less than the interval after
+ * the previous one is deferred to a background thread and coalesced with the others, so a completed write stays
+ * unsynced for at most the interval plus the time the deferred forces take. A deferred force that fails is reported
+ * by the next call to {@link #sync} or {@link #close}.
+ */
+public class AtomicFileWriter implements AutoCloseable {
+
+    public static final String TEMP_SUFFIX = ".tmp";
+
+    private final FsyncPolicy policy;
+    private final long intervalNanos;
+    private final Map<Object, ForceAction> deferred = new LinkedHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private ManagerSaveException deferredFailure;
+    private long lastForceNanos;
+
+    public AtomicFileWriter(FsyncPolicy policy, Duration interval) {
+        this.policy = policy;
+        this.intervalNanos = interval.toNanos();
+        this.lastForceNanos = System.nanoTime() - intervalNanos;
+    }
+
+    public static Path tempFileFor(Path target) {
+        return target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+    }
+
+    /**
+     * Forces {@code action} as the policy allows: at once with {@link FsyncPolicy#ALWAYS}, not at all with
+     * {@link FsyncPolicy#NEVER}, and with {@link FsyncPolicy#EVERY_N_MS} at once or within the interval. Deferred
+     * actions with an equal {@code key} run once.
+     */
+    public void sync(Object key, ForceAction action) {
+        switch (policy) {
+            case ALWAYS -> force(action);
+            case NEVER -> {
+            }
+            case EVERY_N_MS -> {
+                synchronized (this) {
+                    throwDeferredFailure();
+                    long now = System.nanoTime();
+                    long delay = lastForceNanos + intervalNanos - now;
+
+                    if (delay > 0 || !deferred.isEmpty()) {
+                        if (deferred.isEmpty()) {
+                            scheduler().schedule(this::forceDeferred, delay, TimeUnit.NANOSECONDS);
+                        }
+
+                        deferred.put(key, action);
+                        return;
+                    }
+
+                    lastForceNanos = now;
+                }
+
+                force(action);
+            }
+        }
+    }
+
+    /**
+     * Runs the deferred forces now and stops the background thread.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService stopped;
+
+        synchronized (this) {
+            stopped = scheduler;
+            scheduler = null;
+        }
+
+        if (stopped != null) {
+            stopped.shutdownNow();
+        }
+
+        forceDeferred();
+
+        synchronized (this) {
+            throwDeferredFailure();
+        }
+    }
+
+    public void write(Path target, byte[] content) {
+        write(target, out -> out.write(content));
+    }
+
+    public void write(Path target, ContentWriter contentWriter) {
+        Path directory = target.toAbsolutePath().getParent();
+
+        synchronized (this) {
+            Path tempFile = tempFileFor(target);
+
+            try {
+                try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                     OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel))) {
+                    contentWriter.write(out);
+                    out.flush();
+
+                    // The rename may reach the disk before unforced content, so the content is forced first.
+                    if (policy != FsyncPolicy.NEVER) {
+                        channel.force(false);
+                    }
+                }
+
+                move(tempFile, target);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error occurred while manager saving.", e);
+            }
+        }
+
+        if (directory != null) {
+            sync(directory, () -> forceDirectory(directory));
+        }
+    }
+
+    public static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void forceDeferred() {
+        List<ForceAction> actions;
+
+        synchronized (this) {
+            actions = new ArrayList<>(deferred.values());
+            deferred.clear();
+            lastForceNanos = System.nanoTime();
+        }
+
+        for (ForceAction action : actions) {
+            try {
+                force(action);
+            } catch (ManagerSaveException e) {
+                synchronized (this) {
+                    if (deferredFailure == null) {
+                        deferredFailure = e;
+                    } else {
+                        deferredFailure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+    }
+
+    private void throwDeferredFailure() {
+        ManagerSaveException failure = deferredFailure;
+
+        if (failure != null) {
+            deferredFailure = null;
+            throw failure;
+        }
+    }
+
+    private ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "storage-fsync");
+                thread.setDaemon(true);
+
+                return thread;
+            });
+        }
+
+        return scheduler;
+    }
+
+    private static void force(ForceAction action) {
+        try {
+            action.force();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while manager saving.", e);
+        }
+    }
+
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Some platforms cannot open or sync directories; the rename itself is still atomic there.
+        }
+    }
+
+    @FunctionalInterface
+    public interface ContentWriter {
+
+        void write(OutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface ForceAction {
+
+        void force() throws IOException;
+    }
+}
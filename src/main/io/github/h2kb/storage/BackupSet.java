@@ -0,0 +1,123 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.exception.ManagerSaveException;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Point-in-time copy of a set of storage files. Each source is opened, and the length to copy fixed, while the caller
+ * holds the locks that keep the storage consistent; the copy itself runs afterwards with
+ * {@link FileChannel#transferTo}. Storage files are only ever appended to or replaced by rename, so the opened channels
+ * keep seeing the captured content while writes go on.
+ * <p>
+ * The files are copied into a temporary sibling of the target directory, which is renamed into place once complete.
+ */
+public class BackupSet implements Closeable {
+
+    private final List<Source> sources = new ArrayList<>();
+
+    public void add(Path file) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            sources.add(new Source(file.getFileName().toString(), channel, channel.size()));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while backup opening.", e);
+        }
+    }
+
+    public void add(Path file, long length) {
+        try {
+            sources.add(new Source(file.getFileName().toString(), FileChannel.open(file, StandardOpenOption.READ),
+                    length));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while backup opening.", e);
+        }
+    }
+
+    public long writeTo(Path directory) {
+        if (Files.exists(directory)) {
+            throw new IllegalArgumentException("Backup directory already exists: " + directory);
+        }
+
+        Path tempDirectory = AtomicFileWriter.tempFileFor(directory);
+        long copied = 0;
+
+        try {
+            clear(tempDirectory);
+            Files.createDirectories(tempDirectory);
+
+            for (Source source : sources) {
+                copy(source, tempDirectory.resolve(source.name()));
+                copied += source.length();
+            }
+
+            AtomicFileWriter.move(tempDirectory, directory);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while backup writing.", e);
+        }
+
+        return copied;
+    }
+
+    @Override
+    public void close() {
+        IOException failure = null;
+
+        for (Source source : sources) {
+            try {
+                source.channel().close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        sources.clear();
+
+        if (failure != null) {
+            throw new ManagerSaveException("Error occurred while backup closing.", failure);
+        }
+    }
+
+    private static void copy(Source source, Path file) throws IOException {
+        try (FileChannel target = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long position = 0;
+
+            while (position < source.length()) {
+                long transferred = source.channel().transferTo(position, source.length() - position, target);
+
+                if (transferred <= 0) {
+                    throw new EOFException("Backup source is shorter than captured: " + source.name());
+                }
+
+                position += transferred;
+            }
+
+            target.force(false);
+        }
+    }
+
+    private static void clear(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+
+        Files.delete(directory);
+    }
+
+    private record Source(String name, FileChannel channel, long length) {
+    }
+}
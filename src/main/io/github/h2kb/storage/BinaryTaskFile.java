@@ -0,0 +1,251 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.exception.ManagerLoadException;
+import io.github.h2kb.task.Epic;
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import io.github.h2kb.task.TaskType;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compact binary board format read through a memory-mapped file.
+ * <p>
+ * Layout: a fixed {@value #HEADER_SIZE}-byte header, then one {@value #RECORD_SIZE}-byte record per task holding id,
+ * type, status, epic id, start time and duration, then a heap of UTF-8 names and descriptions referenced from the
+ * records by offset and length. Opening a file only maps it; each record is decoded on its first access.
+ */
+public class BinaryTaskFile {
+
+    public static final int MAGIC = 0x4B424E31;
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int RECORD_SIZE = 48;
+
+    private static final int NO_EPIC = -1;
+    private static final long NO_START_TIME = Long.MIN_VALUE;
+    private static final long NO_DURATION = -1;
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final ByteBuffer records;
+    private final ByteBuffer heap;
+    private final int size;
+    private final Task[] decoded;
+
+    private BinaryTaskFile(ByteBuffer records, ByteBuffer heap, int size) {
+        this.records = records;
+        this.heap = heap;
+        this.size = size;
+        this.decoded = new Task[size];
+    }
+
+    public static boolean isBinary(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(Integer.BYTES);
+
+            return magic.length == Integer.BYTES && ByteBuffer.wrap(magic).getInt() == MAGIC;
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error occurred while storage format detecting.", e);
+        }
+    }
+
+    public static BinaryTaskFile open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            int size = readSize(header, channel.size(), file);
+            long heapOffset = heapOffset(size);
+
+            ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, heapOffset - HEADER_SIZE);
+            ByteBuffer heap = channel.map(FileChannel.MapMode.READ_ONLY, heapOffset, channel.size() - heapOffset);
+
+            return new BinaryTaskFile(records, heap, size);
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error occurred while binary storage opening.", e);
+        }
+    }
+
+    public static BinaryTaskFile wrap(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE) {
+            throw new IllegalArgumentException("Truncated binary storage buffer");
+        }
+
+        int size = readSize(buffer.slice(0, HEADER_SIZE), buffer.capacity(), "buffer");
+        int heapOffset = (int) heapOffset(size);
+
+        return new BinaryTaskFile(buffer.slice(HEADER_SIZE, heapOffset - HEADER_SIZE),
+                buffer.slice(heapOffset, buffer.capacity() - heapOffset), size);
+    }
+
+    private static int readSize(ByteBuffer header, long totalSize, Object source) {
+        if (header.getInt() != MAGIC || header.getShort() != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary storage file: " + source);
+        }
+
+        header.getShort();
+        int size = header.getInt();
+
+        if (size < 0 || totalSize < heapOffset(size)) {
+            throw new IllegalArgumentException("Truncated binary storage file: " + source);
+        }
+
+        return size;
+    }
+
+    private static long heapOffset(int size) {
+        return HEADER_SIZE + (long) size * RECORD_SIZE;
+    }
+
+    public static void write(Collection<? extends Task> tasks, OutputStream out) throws IOException {
+        DataOutputStream records = new DataOutputStream(new BufferedOutputStream(out));
+        ByteArrayOutputStream heap = new ByteArrayOutputStream();
+
+        records.writeInt(MAGIC);
+        records.writeShort(VERSION);
+        records.writeShort(0);
+        records.writeInt(tasks.size());
+        records.writeInt(RECORD_SIZE);
+
+        for (Task task : tasks) {
+            TaskType taskType = TaskType.of(task);
+            LocalDateTime startTime = task.getStartTime();
+            Duration duration = task.getDuration();
+
+            records.writeInt(task.getId());
+            records.writeByte(taskType.ordinal());
+            records.writeByte(task.getStatus() == null ? -1 : task.getStatus().ordinal());
+            records.writeShort(0);
+            records.writeInt(task instanceof SubTask subTask ? subTask.getEpicId() : NO_EPIC);
+            records.writeLong(startTime == null ? NO_START_TIME : startTime.toEpochSecond(ZoneOffset.UTC));
+            records.writeInt(startTime == null ? 0 : startTime.getNano());
+            records.writeLong(duration == null ? NO_DURATION : duration.toMinutes());
+            writeString(records, heap, task.getName());
+            writeString(records, heap, task.getDescription());
+        }
+
+        heap.writeTo(records);
+        records.flush();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Task get(int index) {
+        Task task = decoded[index];
+
+        if (task == null) {
+            task = decode(index);
+            decoded[index] = task;
+        }
+
+        return task;
+    }
+
+    public void validate() {
+        for (int index = 0; index < size; index++) {
+            int position = index * RECORD_SIZE;
+            byte typeOrdinal = records.get(position + 4);
+            byte statusOrdinal = records.get(position + 5);
+
+            if (typeOrdinal < 0 || typeOrdinal >= TASK_TYPES.length || statusOrdinal >= STATUSES.length
+                    || !isStringInHeap(position + 32) || !isStringInHeap(position + 40)) {
+                throw new IllegalArgumentException("Corrupted binary storage record: " + index);
+            }
+        }
+    }
+
+    public List<Task> asList() {
+        return new AbstractList<>() {
+
+            @Override
+            public Task get(int index) {
+                return BinaryTaskFile.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private Task decode(int index) {
+        int position = index * RECORD_SIZE;
+        int id = records.getInt(position);
+        TaskType taskType = TASK_TYPES[records.get(position + 4)];
+        byte statusOrdinal = records.get(position + 5);
+        Status status = statusOrdinal < 0 ? null : STATUSES[statusOrdinal];
+        int epicId = records.getInt(position + 8);
+        long startSeconds = records.getLong(position + 12);
+        int startNanos = records.getInt(position + 20);
+        long durationMinutes = records.getLong(position + 24);
+        String name = readString(position + 32);
+        String description = readString(position + 40);
+
+        LocalDateTime startTime = startSeconds == NO_START_TIME ? null
+                : LocalDateTime.ofEpochSecond(startSeconds, startNanos, ZoneOffset.UTC);
+        Duration duration = durationMinutes == NO_DURATION ? null : Duration.ofMinutes(durationMinutes);
+
+        Task task = switch (taskType) {
+            case EPIC -> new Epic(name, description, status);
+            case SUBTASK -> new SubTask(name, description, status, epicId, duration, startTime);
+            case TASK -> new Task(name, description, status, duration, startTime);
+        };
+        task.setId(id);
+
+        return task;
+    }
+
+    private boolean isStringInHeap(int position) {
+        int offset = records.getInt(position);
+        int length = records.getInt(position + 4);
+
+        return length < 0 || offset >= 0 && (long) offset + length <= heap.capacity();
+    }
+
+    private String readString(int position) {
+        int offset = records.getInt(position);
+        int length = records.getInt(position + 4);
+
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        heap.get(offset, bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream records, ByteArrayOutputStream heap, String value)
+            throws IOException {
+        if (value == null) {
+            records.writeInt(0);
+            records.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        records.writeInt(heap.size());
+        records.writeInt(bytes.length);
+        heap.write(bytes);
+    }
+}
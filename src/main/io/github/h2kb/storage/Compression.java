@@ -0,0 +1,35 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.exception.ManagerLoadException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public enum Compression {
+    NONE,
+    GZIP;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public OutputStream wrap(OutputStream out) throws IOException {
+        return this == GZIP ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+    }
+
+    public InputStream wrap(InputStream in) throws IOException {
+        return this == GZIP ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+    }
+
+    public static Compression detect(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(2);
+
+            return magic.length == 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b ? GZIP : NONE;
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error occurred while storage compression detecting.", e);
+        }
+    }
+}
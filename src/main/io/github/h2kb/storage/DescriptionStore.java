@@ -0,0 +1,302 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.exception.ManagerLoadException;
+import io.github.h2kb.exception.ManagerSaveException;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only heap of task descriptions kept next to the storage file, {@code <storage>.descriptions}. Each frame
+ * holds the task id, the payload length ({@value #NO_DESCRIPTION} for a null description), the CRC32C of the payload
+ * and the UTF-8 payload; the newest frame of an id wins.
+ * <p>
+ * Only frame offsets stay on the heap. Descriptions are read on demand through a bounded LRU cache, and frames of
+ * removed or replaced descriptions are dropped by {@link #compact(Set)} when the board is opened.
+ */
+public class DescriptionStore implements Closeable {
+
+    public static final String FILE_SUFFIX = ".descriptions";
+    public static final int FRAME_HEADER_SIZE = 12;
+    public static final int NO_DESCRIPTION = -1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final Map<Integer, Ref> refs = new HashMap<>();
+    private final Map<Ref, String> cache;
+    private FileChannel channel;
+    private long size;
+
+    public DescriptionStore(Path storageFile, int cacheSize) {
+        this.file = fileFor(storageFile);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Ref, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public static Path fileFor(Path storageFile) {
+        return storageFile.resolveSibling(storageFile.getFileName() + FILE_SUFFIX);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public synchronized int size() {
+        return refs.size();
+    }
+
+    public synchronized void open() {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            size = scan();
+
+            if (size < channel.size()) {
+                channel.truncate(size);
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error occurred while description heap opening.", e);
+        }
+    }
+
+    public synchronized boolean contains(Integer id) {
+        return refs.containsKey(id);
+    }
+
+    public synchronized Supplier<String> loaderFor(Integer id) {
+        return refs.get(id);
+    }
+
+    public synchronized boolean isCurrent(Integer id, Supplier<String> loader) {
+        return loader != null && refs.get(id) == loader;
+    }
+
+    public synchronized Supplier<String> append(Integer id, String description) {
+        byte[] payload = description == null ? new byte[0] : description.getBytes(StandardCharsets.UTF_8);
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + payload.length)
+                .putInt(id)
+                .putInt(description == null ? NO_DESCRIPTION : payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+
+        try {
+            long position = size;
+
+            while (frame.hasRemaining()) {
+                position += channel.write(frame, position);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while description appending.", e);
+        }
+
+        Ref ref = new Ref(size, frame.capacity());
+        size += frame.capacity();
+        refs.put(id, ref);
+
+        if (description != null) {
+            cache.put(ref, description);
+        }
+
+        return ref;
+    }
+
+    public synchronized void backup(BackupSet backup) {
+        if (channel != null) {
+            backup.add(file, size);
+        }
+    }
+
+    public synchronized void force() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while description heap syncing.", e);
+        }
+    }
+
+    /**
+     * Rewrites the heap with the current frames of {@code liveIds} only, once at least half of it is garbage. Loaders
+     * handed out for those frames stay valid.
+     */
+    public synchronized void compact(Set<Integer> liveIds) {
+        refs.keySet().retainAll(liveIds);
+        long liveSize = 0;
+
+        for (Ref ref : refs.values()) {
+            liveSize += ref.frameSize;
+        }
+
+        if (liveSize * 2 > size) {
+            return;
+        }
+
+        Path tempFile = AtomicFileWriter.tempFileFor(file);
+
+        try (FileChannel target = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Map<Ref, Long> moved = new HashMap<>();
+            long position = 0;
+
+            for (Ref ref : refs.values()) {
+                long transferred = 0;
+
+                while (transferred < ref.frameSize) {
+                    transferred += channel.transferTo(ref.offset + transferred, ref.frameSize - transferred,
+                            target);
+                }
+
+                moved.put(ref, position);
+                position += ref.frameSize;
+            }
+
+            target.force(false);
+            AtomicFileWriter.move(tempFile, file);
+            channel.close();
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            moved.forEach((ref, offset) -> ref.offset = offset);
+            size = position;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while description heap compacting.", e);
+        }
+    }
+
+    public synchronized void delete() {
+        close();
+        refs.clear();
+        cache.clear();
+
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while description heap deleting.", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while description heap closing.", e);
+        }
+
+        channel = null;
+    }
+
+    private synchronized String read(Ref ref) {
+        String description = cache.get(ref);
+
+        if (description != null) {
+            return description;
+        }
+
+        try {
+            ByteBuffer header = readFully(ref.offset, FRAME_HEADER_SIZE);
+            header.getInt();
+            int length = header.getInt();
+            int checksum = header.getInt();
+
+            if (length == NO_DESCRIPTION) {
+                return null;
+            }
+
+            byte[] payload = readFully(ref.offset + FRAME_HEADER_SIZE, length).array();
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("Corrupted description frame at offset " + ref.offset);
+            }
+
+            description = new String(payload, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error occurred while description reading.", e);
+        }
+
+        cache.put(ref, description);
+
+        return description;
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Truncated description frame at offset " + position);
+            }
+        }
+
+        return buffer.flip();
+    }
+
+    private long scan() throws IOException {
+        long fileSize = channel.size();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(channel.position(0)), BUFFER_SIZE));
+        long offset = 0;
+
+        while (fileSize - offset >= FRAME_HEADER_SIZE) {
+            int id = in.readInt();
+            int length = in.readInt();
+            in.readInt();
+            int payloadSize = Math.max(length, 0);
+
+            if (length < NO_DESCRIPTION || payloadSize > fileSize - offset - FRAME_HEADER_SIZE) {
+                break;
+            }
+
+            in.skipNBytes(payloadSize);
+            refs.put(id, new Ref(offset, FRAME_HEADER_SIZE + payloadSize));
+            offset += FRAME_HEADER_SIZE + payloadSize;
+        }
+
+        return offset;
+    }
+
+    private final class Ref implements Supplier<String> {
+
+        private final int frameSize;
+        private long offset;
+
+        private Ref(long offset, int frameSize) {
+            this.offset = offset;
+            this.frameSize = frameSize;
+        }
+
+        @Override
+        public String get() {
+            return read(this);
+        }
+    }
+}
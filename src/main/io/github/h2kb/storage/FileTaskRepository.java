@@ -0,0 +1,343 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.exception.ManagerLoadException;
+import io.github.h2kb.exception.ManagerSaveException;
+import io.github.h2kb.task.Task;
+import io.github.h2kb.task.dto.mapper.TaskMapper;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only record file with an in-memory index of record offsets. After an {@value #HEADER_SIZE}-byte header each
+ * record is framed as task id, payload length ({@value #TOMBSTONE} for a deletion), CRC32C and payload; the payload
+ * is a CSV line or a single-record {@link BinaryTaskFile}, depending on the format the file was created with.
+ * <p>
+ * A lookup reads one frame. Superseded frames are dropped by rewriting the file once they outweigh the live ones.
+ */
+public class FileTaskRepository implements TaskRepository {
+
+    public static final int MAGIC = 0x4B425231;
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 8;
+    public static final int FRAME_HEADER_SIZE = 12;
+    public static final int TOMBSTONE = -1;
+    public static final long MIN_COMPACTION_BYTES = 1 << 20;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final StorageFormat[] FORMATS = StorageFormat.values();
+
+    private final Path file;
+    private final Map<Integer, Frame> frames = new HashMap<>();
+    private StorageFormat format;
+    private FileChannel channel;
+    private long size;
+    private long liveBytes;
+
+    public FileTaskRepository(Path file, StorageFormat format) {
+        this.file = file;
+        this.format = format;
+
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            open();
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error occurred while repository opening.", e);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public synchronized StorageFormat getFormat() {
+        return format;
+    }
+
+    public synchronized int size() {
+        return frames.size();
+    }
+
+    @Override
+    public synchronized Task load(Integer id) {
+        Frame frame = frames.get(id);
+
+        if (frame == null) {
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(frame.size());
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, frame.offset() + buffer.position()) < 0) {
+                    throw new EOFException("Truncated repository record: " + id);
+                }
+            }
+
+            return decode(buffer.array(), FRAME_HEADER_SIZE, frame.size() - FRAME_HEADER_SIZE);
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error occurred while repository reading.", e);
+        }
+    }
+
+    @Override
+    public synchronized void batch(Collection<? extends Task> puts, Collection<Integer> deletes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Map<Integer, Frame> written = new HashMap<>();
+
+        for (Integer id : deletes) {
+            if (frames.containsKey(id)) {
+                written.put(id, null);
+                appendFrame(out, id, null);
+            }
+        }
+
+        for (Task task : puts) {
+            long offset = size + out.size();
+            appendFrame(out, task.getId(), encode(task));
+            written.put(task.getId(), new Frame(offset, (int) (size + out.size() - offset)));
+        }
+
+        if (out.size() == 0) {
+            return;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, size + buffer.position());
+            }
+
+            channel.force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while repository writing.", e);
+        }
+
+        size += out.size();
+        written.forEach(this::index);
+
+        if (size - HEADER_SIZE - liveBytes > Math.max(liveBytes, MIN_COMPACTION_BYTES)) {
+            compact();
+        }
+    }
+
+    @Override
+    public synchronized void scan(Consumer<? super Task> consumer) {
+        try {
+            read(channel, (id, offset, payload) -> {
+                Frame frame = frames.get(id);
+
+                if (frame != null && frame.offset() == offset) {
+                    consumer.accept(decode(payload, 0, payload.length));
+                }
+            });
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error occurred while repository scanning.", e);
+        }
+    }
+
+    public synchronized void compact() {
+        Path tempFile = AtomicFileWriter.tempFileFor(file);
+        List<Integer> ids = new ArrayList<>(frames.keySet());
+        ids.sort(null);
+        Map<Integer, Frame> moved = new HashMap<>();
+
+        try (FileChannel target = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            target.write(header());
+            long position = HEADER_SIZE;
+
+            for (Integer id : ids) {
+                Frame frame = frames.get(id);
+                long transferred = 0;
+
+                while (transferred < frame.size()) {
+                    transferred += channel.transferTo(frame.offset() + transferred, frame.size() - transferred,
+                            target);
+                }
+
+                moved.put(id, new Frame(position, frame.size()));
+                position += frame.size();
+            }
+
+            target.force(false);
+            AtomicFileWriter.move(tempFile, file);
+            channel.close();
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            frames.putAll(moved);
+            size = position;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while repository compacting.", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while repository closing.", e);
+        }
+    }
+
+    private void open() throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            channel.truncate(0);
+            channel.write(header(), 0);
+            channel.force(false);
+            size = HEADER_SIZE;
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+
+        if (header.getInt() != MAGIC || header.getShort() != VERSION) {
+            throw new IllegalArgumentException("Unsupported repository file: " + file);
+        }
+
+        short formatOrdinal = header.getShort();
+
+        if (formatOrdinal < 0 || formatOrdinal >= FORMATS.length) {
+            throw new IllegalArgumentException("Unsupported repository format: " + formatOrdinal);
+        }
+
+        format = FORMATS[formatOrdinal];
+        long validSize = read(channel, (id, offset, payload) -> index(id,
+                payload == null ? null : new Frame(offset, FRAME_HEADER_SIZE + payload.length)));
+
+        if (validSize < channel.size()) {
+            channel.truncate(validSize);
+            channel.force(false);
+        }
+
+        size = validSize;
+    }
+
+    private void index(Integer id, Frame frame) {
+        Frame previous = frame == null ? frames.remove(id) : frames.put(id, frame);
+
+        if (previous != null) {
+            liveBytes -= previous.size();
+        }
+
+        if (frame != null) {
+            liveBytes += frame.size();
+        }
+    }
+
+    private ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort((short) format.ordinal())
+                .flip();
+    }
+
+    private static long read(FileChannel channel, FrameConsumer consumer) throws IOException {
+        long fileSize = channel.size();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(channel.position(HEADER_SIZE)), BUFFER_SIZE));
+        CRC32C crc = new CRC32C();
+        long offset = HEADER_SIZE;
+
+        while (fileSize - offset >= FRAME_HEADER_SIZE) {
+            int id = in.readInt();
+            int length = in.readInt();
+            int checksum = in.readInt();
+
+            if (length == TOMBSTONE) {
+                consumer.accept(id, offset, null);
+                offset += FRAME_HEADER_SIZE;
+                continue;
+            }
+
+            if (length <= 0 || length > fileSize - offset - FRAME_HEADER_SIZE) {
+                break;
+            }
+
+            byte[] payload = in.readNBytes(length);
+            crc.reset();
+            crc.update(payload);
+
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            consumer.accept(id, offset, payload);
+            offset += FRAME_HEADER_SIZE + length;
+        }
+
+        return offset;
+    }
+
+    private static void appendFrame(ByteArrayOutputStream out, Integer id, byte[] payload) {
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE).putInt(id);
+
+        if (payload == null) {
+            header.putInt(TOMBSTONE).putInt(0);
+        } else {
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            header.putInt(payload.length).putInt((int) crc.getValue());
+        }
+
+        out.writeBytes(header.array());
+
+        if (payload != null) {
+            out.writeBytes(payload);
+        }
+    }
+
+    private byte[] encode(Task task) {
+        return switch (format) {
+            case CSV -> TaskMapper.mapTaskToString(task).getBytes(StandardCharsets.UTF_8);
+            case BINARY -> {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+                try {
+                    BinaryTaskFile.write(List.of(task), out);
+                } catch (IOException e) {
+                    throw new ManagerSaveException("Error occurred while repository writing.", e);
+                }
+
+                yield out.toByteArray();
+            }
+        };
+    }
+
+    private Task decode(byte[] payload, int offset, int length) {
+        return switch (format) {
+            case CSV -> TaskMapper.mapTaskFromString(new String(payload, offset, length, StandardCharsets.UTF_8));
+            case BINARY -> BinaryTaskFile.wrap(ByteBuffer.wrap(payload, offset, length).slice()).get(0);
+        };
+    }
+
+    @FunctionalInterface
+    private interface FrameConsumer {
+
+        void accept(int id, long offset, byte[] payload);
+    }
+
+    private record Frame(long offset, int size) {
+    }
+}
@@ -0,0 +1,11 @@
+package io.github.h2kb.storage;
+
+public enum FsyncPolicy {
+    ALWAYS,
+    /**
+     * Forces at most once per fsync interval, deferring the rest, so no write stays unsynced longer than about the
+     * interval.
+     */
+    EVERY_N_MS,
+    NEVER
+}
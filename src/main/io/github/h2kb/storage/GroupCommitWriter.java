@@ -0,0 +1,136 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.exception.ManagerSaveException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Background writer that coalesces submitted items into batches. A batch is closed when the flush window since its
+ * first item has passed or when it holds {@code maxBatchSize} items, and is then handed to the batch handler in one
+ * call. The future returned by {@link #submit(Object)} completes once the handler has written its batch.
+ */
+public class GroupCommitWriter<T> implements AutoCloseable {
+
+    private final BlockingQueue<Pending<T>> queue = new LinkedBlockingQueue<>();
+    private final Pending<T> closeMarker = new Pending<>(null, null);
+    private final Duration flushWindow;
+    private final int maxBatchSize;
+    private final Consumer<List<T>> batchHandler;
+    private final Thread thread;
+    private final Object lock = new Object();
+    private volatile boolean closed;
+
+    public GroupCommitWriter(String name, Duration flushWindow, int maxBatchSize, Consumer<List<T>> batchHandler) {
+        this.flushWindow = flushWindow;
+        this.maxBatchSize = maxBatchSize;
+        this.batchHandler = batchHandler;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public CompletableFuture<Void> submit(T item) {
+        Pending<T> pending = new Pending<>(item, new CompletableFuture<>());
+
+        // Checked and enqueued under the lock close() takes, so nothing is queued behind the close marker.
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Writer is closed");
+            }
+
+            queue.add(pending);
+        }
+
+        return pending.future();
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (!closed) {
+                closed = true;
+                // Wakes the writer instead of interrupting it: an interrupt would close the file channel it writes to.
+                queue.add(closeMarker);
+            }
+        }
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Pending<T>> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.remove(closeMarker);
+
+        if (!rest.isEmpty()) {
+            write(rest);
+        }
+    }
+
+    private void run() {
+        List<Pending<T>> batch = new ArrayList<>(maxBatchSize);
+
+        while (!closed || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                queue.drainTo(batch, maxBatchSize - batch.size());
+            }
+
+            batch.remove(closeMarker);
+
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<Pending<T>> batch) throws InterruptedException {
+        Pending<T> first = queue.take();
+        batch.add(first);
+
+        long deadline = System.nanoTime() + flushWindow.toNanos();
+
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+
+            if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                continue;
+            }
+
+            if (remaining <= 0) {
+                return;
+            }
+
+            Pending<T> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+
+            if (next == null) {
+                return;
+            }
+
+            batch.add(next);
+        }
+    }
+
+    private void write(List<Pending<T>> batch) {
+        try {
+            batchHandler.accept(batch.stream().map(Pending::item).toList());
+            batch.forEach(pending -> pending.future().complete(null));
+        } catch (RuntimeException e) {
+            ManagerSaveException exception = new ManagerSaveException("Error occurred while batch writing.", e);
+            batch.forEach(pending -> pending.future().completeExceptionally(exception));
+        }
+    }
+
+    private record Pending<T>(T item, CompletableFuture<Void> future) {
+    }
+}
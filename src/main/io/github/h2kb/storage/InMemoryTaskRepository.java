@@ -0,0 +1,35 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.task.Task;
+import io.github.h2kb.task.dto.mapper.TaskMapper;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+public class InMemoryTaskRepository implements TaskRepository {
+
+    private final Map<Integer, Task> records = new TreeMap<>();
+
+    @Override
+    public synchronized Task load(Integer id) {
+        Task task = records.get(id);
+
+        return task == null ? null : TaskMapper.copyOf(task);
+    }
+
+    @Override
+    public synchronized void batch(Collection<? extends Task> puts, Collection<Integer> deletes) {
+        deletes.forEach(records::remove);
+        puts.forEach(task -> records.put(task.getId(), TaskMapper.copyOf(task)));
+    }
+
+    @Override
+    public synchronized void scan(Consumer<? super Task> consumer) {
+        records.values().forEach(task -> consumer.accept(TaskMapper.copyOf(task)));
+    }
+
+    public synchronized int size() {
+        return records.size();
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.task.Task;
+import io.github.h2kb.task.TaskType;
+import io.github.h2kb.task.dto.mapper.TaskCsvCodec;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+
+public record JournalRecord(long sequence, Operation operation, TaskType taskType, Integer taskId, Task task) {
+
+    public enum Operation {
+        PUT,
+        DELETE,
+        CLEAR
+    }
+
+    public static JournalRecord put(Task task) {
+        return new JournalRecord(0, Operation.PUT, TaskType.of(task), task.getId(), task);
+    }
+
+    public static JournalRecord delete(TaskType taskType, Integer taskId) {
+        return new JournalRecord(0, Operation.DELETE, taskType, taskId, null);
+    }
+
+    public static JournalRecord clear(TaskType taskType) {
+        return new JournalRecord(0, Operation.CLEAR, taskType, null, null);
+    }
+
+    public JournalRecord withSequence(long sequence) {
+        return new JournalRecord(sequence, operation, taskType, taskId, task);
+    }
+
+    public String toLine() {
+        StringBuilder sb = new StringBuilder(80);
+
+        try {
+            writeTo(sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return sb.toString();
+    }
+
+    public void writeTo(Appendable out) throws IOException {
+        TaskCsvCodec.writeNumber(sequence, out);
+        out.append(TaskCsvCodec.SEPARATOR).append(operation.name()).append(TaskCsvCodec.SEPARATOR);
+
+        switch (operation) {
+            case PUT -> TaskCsvCodec.writeTask(task, out);
+            case DELETE -> {
+                out.append(taskType.name()).append(TaskCsvCodec.SEPARATOR);
+                TaskCsvCodec.writeNumber(taskId, out);
+            }
+            case CLEAR -> out.append(taskType.name());
+        }
+    }
+
+    public static JournalRecord fromLine(String line) {
+        try (TaskCsvCodec.CsvReader reader = new TaskCsvCodec.CsvReader(new StringReader(line), line.length() + 1)) {
+            if (!reader.next()) {
+                throw new IllegalArgumentException("Empty journal line");
+            }
+
+            return read(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static JournalRecord read(TaskCsvCodec.CsvReader reader) {
+        long sequence = reader.longField(0);
+        Operation operation = Operation.valueOf(reader.field(1).toString());
+
+        return switch (operation) {
+            case PUT -> {
+                Task task = reader.task(2);
+                yield new JournalRecord(sequence, operation, TaskType.of(task), task.getId(), task);
+            }
+            case DELETE -> new JournalRecord(sequence, operation, TaskType.from(reader.field(2).toString()),
+                    reader.intField(3), null);
+            case CLEAR -> new JournalRecord(sequence, operation, TaskType.from(reader.field(2).toString()), null, null);
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.exception.ManagerLoadException;
+import io.github.h2kb.exception.ManagerSaveException;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Segment files of a sharded board, named {@code <storage>.<shard>.shard}. Records are partitioned by epic: a subtask
+ * lives in the shard of its epic, so a subtask change and the epic status it recalculates dirty a single shard.
+ */
+public class ShardSet {
+
+    public static final String FILE_SUFFIX = ".shard";
+
+    private final Path directory;
+    private final String prefix;
+    private final int shardCount;
+
+    public ShardSet(Path storageFile, int shardCount) {
+        Path absolute = storageFile.toAbsolutePath();
+        this.directory = absolute.getParent();
+        this.prefix = absolute.getFileName() + ".";
+        this.shardCount = shardCount;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public int shardOf(Task task) {
+        return shardOf(task instanceof SubTask subTask ? subTask.getEpicId() : task.getId());
+    }
+
+    public int shardOf(Integer key) {
+        return Math.floorMod(key, shardCount);
+    }
+
+    public Path fileFor(int shard) {
+        return directory.resolve(prefix + shard + FILE_SUFFIX);
+    }
+
+    public Map<Integer, Path> existingFiles() {
+        Map<Integer, Path> files = new TreeMap<>();
+
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, prefix + "*" + FILE_SUFFIX)) {
+            for (Path file : paths) {
+                String name = file.getFileName().toString();
+                String shard = name.substring(prefix.length(), name.length() - FILE_SUFFIX.length());
+
+                if (!shard.isEmpty() && shard.chars().allMatch(Character::isDigit)) {
+                    files.put(Integer.parseInt(shard), file);
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error occurred while shard listing.", e);
+        }
+
+        return files;
+    }
+
+    public boolean isComplete(Map<Integer, Path> files) {
+        return files.size() == shardCount && files.keySet().stream().allMatch(shard -> shard < shardCount);
+    }
+
+    public void deleteStale() {
+        existingFiles().forEach((shard, file) -> {
+            if (!isSharded() || shard >= shardCount) {
+                delete(file);
+            }
+        });
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while shard deleting.", e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.task.Task;
+import io.github.h2kb.task.dto.mapper.TaskCsvCodec;
+import io.github.h2kb.task.dto.mapper.TaskMapper;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Board written out as a whole: a CSV file with a header line or a {@link BinaryTaskFile}, optionally compressed.
+ * Format and compression are detected on read, so a file stays readable after the configuration changes.
+ */
+public class SnapshotFile {
+
+    public static final int HEADER_LINE_NUMBER = 1;
+
+    private SnapshotFile() {
+    }
+
+    public static void write(Collection<? extends Task> records, OutputStream out, StorageFormat format,
+                             Compression compression) throws IOException {
+        OutputStream target = compression.wrap(out);
+
+        switch (format) {
+            case CSV -> {
+                TaskCsvCodec.CsvWriter csvWriter = new TaskCsvCodec.CsvWriter(
+                        new OutputStreamWriter(target, StandardCharsets.UTF_8));
+                csvWriter.writeLine(TaskMapper.getHeader());
+
+                for (Task task : records) {
+                    csvWriter.writeTask(task);
+                }
+
+                csvWriter.flush();
+            }
+            case BINARY -> BinaryTaskFile.write(records, target);
+        }
+
+        if (target instanceof DeflaterOutputStream deflater) {
+            deflater.finish();
+        }
+    }
+
+    /**
+     * Reads every record of {@code file}. With {@code requireComplete} an uncompressed CSV file that lacks its header
+     * or its final line break is rejected as torn.
+     */
+    public static List<? extends Task> read(Path file, boolean requireComplete) throws IOException {
+        if (Compression.detect(file) == Compression.GZIP) {
+            return readCompressed(file);
+        }
+
+        if (BinaryTaskFile.isBinary(file)) {
+            BinaryTaskFile binaryTaskFile = BinaryTaskFile.open(file);
+            binaryTaskFile.validate();
+
+            return binaryTaskFile.asList();
+        }
+
+        if (requireComplete && !isCompleteCsv(file)) {
+            throw new IllegalStateException("Incomplete storage file: " + file);
+        }
+
+        return readCsv(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+    }
+
+    private static List<? extends Task> readCompressed(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Compression.GZIP.wrap(Files.newInputStream(file)))) {
+            in.mark(Integer.BYTES);
+            byte[] magic = in.readNBytes(Integer.BYTES);
+            in.reset();
+
+            if (magic.length == Integer.BYTES && ByteBuffer.wrap(magic).getInt() == BinaryTaskFile.MAGIC) {
+                BinaryTaskFile binaryTaskFile = BinaryTaskFile.wrap(ByteBuffer.wrap(in.readAllBytes()));
+                binaryTaskFile.validate();
+
+                return binaryTaskFile.asList();
+            }
+
+            return readCsv(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static List<Task> readCsv(Reader in) throws IOException {
+        List<Task> records = new ArrayList<>();
+
+        try (TaskCsvCodec.CsvReader reader = new TaskCsvCodec.CsvReader(in)) {
+            for (int line = 0; line < HEADER_LINE_NUMBER; line++) {
+                reader.next();
+            }
+
+            while (reader.next()) {
+                records.add(reader.task(0));
+            }
+        }
+
+        return records;
+    }
+
+    private static boolean isCompleteCsv(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(TaskMapper.getHeader().length());
+            channel.read(header, 0);
+
+            if (size <= header.capacity() || !TaskMapper.getHeader().equals(
+                    new String(header.array(), StandardCharsets.UTF_8))) {
+                return false;
+            }
+
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, size - 1);
+
+            return last.get(0) == '\n';
+        }
+    }
+}
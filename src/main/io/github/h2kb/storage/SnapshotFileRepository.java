@@ -0,0 +1,264 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.exception.ManagerLoadException;
+import io.github.h2kb.exception.ManagerSaveException;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import io.github.h2kb.task.dto.mapper.TaskMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Board stored as whole {@link SnapshotFile}s: the storage file itself or, with more than one shard, the segment files
+ * of a {@link ShardSet}. Records are kept in memory together with the shard each belongs to, so a batch renders only
+ * the files whose records changed; a file that fails to write stays dirty and is retried with the next batch.
+ * <p>
+ * The files are read on first use, whatever layout is found on disk. {@link #replaceAll} writes the configured layout
+ * and removes the files it replaces.
+ */
+public class SnapshotFileRepository implements TaskRepository {
+
+    private final Path storageFile;
+    private final StorageFormat format;
+    private final Compression compression;
+    private final ShardSet shards;
+    private final AtomicFileWriter fileWriter;
+    private final Map<Integer, Task> records = new HashMap<>();
+    private final Map<Integer, Integer> shardById = new HashMap<>();
+    private final Map<Integer, NavigableSet<Integer>> shardMembers = new HashMap<>();
+    private final BitSet dirtyShards = new BitSet();
+    private boolean loaded;
+    private boolean replacing;
+
+    public SnapshotFileRepository(Path storageFile, StorageFormat format, Compression compression, int shardCount,
+                                  AtomicFileWriter fileWriter) {
+        this.storageFile = storageFile;
+        this.format = format;
+        this.compression = compression;
+        this.shards = new ShardSet(storageFile, shardCount);
+        this.fileWriter = fileWriter;
+    }
+
+    /**
+     * Tells whether the files on disk are laid out as configured: the storage file alone, or exactly the configured
+     * shards and no storage file.
+     */
+    public synchronized boolean isLayoutCurrent() {
+        Map<Integer, Path> shardFiles = shards.existingFiles();
+
+        return shards.isSharded()
+                ? shards.isComplete(shardFiles) && !Files.exists(storageFile)
+                : shardFiles.isEmpty();
+    }
+
+    @Override
+    public synchronized Task load(Integer id) {
+        ensureLoaded();
+        Task task = records.get(id);
+
+        return task == null ? null : TaskMapper.copyOf(task);
+    }
+
+    @Override
+    public synchronized void batch(Collection<? extends Task> puts, Collection<Integer> deletes) {
+        ensureLoaded();
+        deletes.forEach(this::unindex);
+
+        for (Task task : puts) {
+            unindex(task.getId());
+            index(TaskMapper.copyOf(task));
+        }
+
+        writeDirty();
+    }
+
+    @Override
+    public synchronized void scan(Consumer<? super Task> consumer) {
+        ensureLoaded();
+        records.values().forEach(task -> consumer.accept(TaskMapper.copyOf(task)));
+    }
+
+    /**
+     * Replaces every record with {@code tasks}, rewriting all files of the configured layout and then deleting the
+     * files of any other layout.
+     */
+    public synchronized void replaceAll(Collection<? extends Task> tasks) {
+        records.clear();
+        shardById.clear();
+        shardMembers.clear();
+        tasks.forEach(task -> index(TaskMapper.copyOf(task)));
+        loaded = true;
+        replacing = true;
+        dirtyShards.set(0, shards.shardCount());
+        writeDirty();
+    }
+
+    public synchronized void backup(BackupSet backup) {
+        if (Files.exists(storageFile)) {
+            backup.add(storageFile);
+        }
+
+        shards.existingFiles().values().forEach(backup::add);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        Map<Integer, Path> shardFiles = shards.existingFiles();
+        List<? extends Task> stored = shardFiles.isEmpty() ? recover() : readShards(shardFiles.values());
+        stored.forEach(this::index);
+        dirtyShards.clear();
+        loaded = true;
+    }
+
+    private void index(Task task) {
+        int shard = shards.shardOf(task);
+        records.put(task.getId(), task);
+        shardById.put(task.getId(), shard);
+        shardMembers.computeIfAbsent(shard, key -> new TreeSet<>()).add(task.getId());
+        dirtyShards.set(shard);
+    }
+
+    private void unindex(Integer id) {
+        Integer shard = shardById.remove(id);
+
+        if (shard != null) {
+            records.remove(id);
+            shardMembers.get(shard).remove(id);
+            dirtyShards.set(shard);
+        }
+    }
+
+    private void writeDirty() {
+        for (int shard = dirtyShards.nextSetBit(0); shard >= 0; shard = dirtyShards.nextSetBit(shard + 1)) {
+            List<Task> shardRecords = recordsOf(shard);
+            fileWriter.write(shards.isSharded() ? shards.fileFor(shard) : storageFile,
+                    out -> SnapshotFile.write(shardRecords, out, format, compression));
+            dirtyShards.clear(shard);
+        }
+
+        if (replacing) {
+            removeReplacedLayout();
+            replacing = false;
+        }
+    }
+
+    private List<Task> recordsOf(int shard) {
+        List<Task> shardRecords = new ArrayList<>();
+        List<Task> subTaskRecords = new ArrayList<>();
+
+        for (Integer id : shardMembers.getOrDefault(shard, Collections.emptyNavigableSet())) {
+            Task task = records.get(id);
+            (task instanceof SubTask ? subTaskRecords : shardRecords).add(task);
+        }
+
+        shardRecords.addAll(subTaskRecords);
+
+        return shardRecords;
+    }
+
+    private void removeReplacedLayout() {
+        shards.deleteStale();
+
+        if (shards.isSharded()) {
+            try {
+                Files.deleteIfExists(storageFile);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error occurred while manager saving.", e);
+            }
+        }
+    }
+
+    private List<? extends Task> recover() {
+        Path tempFile = AtomicFileWriter.tempFileFor(storageFile);
+        List<Path> candidates = Stream.of(storageFile, tempFile)
+                .filter(Files::exists)
+                .sorted(Comparator.comparing(SnapshotFileRepository::lastModified).reversed())
+                .toList();
+        ManagerLoadException failure = null;
+
+        for (Path candidate : candidates) {
+            try {
+                List<? extends Task> stored = SnapshotFile.read(candidate, candidate.equals(tempFile));
+
+                if (candidate.equals(tempFile)) {
+                    AtomicFileWriter.move(tempFile, storageFile);
+                } else {
+                    Files.deleteIfExists(tempFile);
+                }
+
+                return stored;
+            } catch (IOException | RuntimeException e) {
+                if (failure == null) {
+                    failure = new ManagerLoadException("Error occurred while manager loading.", e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null && candidates.contains(storageFile)) {
+            throw failure;
+        }
+
+        return List.of();
+    }
+
+    /**
+     * Reads the shards in parallel on a pool of their own rather than the common pool, so parsing does not compete with
+     * unrelated parallel work and the blocking reads cannot starve it.
+     */
+    private static List<Task> readShards(Collection<Path> files) {
+        ForkJoinPool pool = new ForkJoinPool(Math.min(files.size(), Runtime.getRuntime().availableProcessors()));
+
+        try {
+            List<ForkJoinTask<List<Task>>> reads = files.stream()
+                    .map(file -> pool.submit(() -> readShard(file)))
+                    .toList();
+            List<Task> stored = new ArrayList<>();
+
+            for (ForkJoinTask<List<Task>> read : reads) {
+                stored.addAll(read.join());
+            }
+
+            return stored;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<Task> readShard(Path file) {
+        try {
+            return new ArrayList<>(SnapshotFile.read(file, true));
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error occurred while shard loading.", e);
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
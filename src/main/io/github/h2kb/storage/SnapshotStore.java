@@ -0,0 +1,78 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.exception.ManagerLoadException;
+import io.github.h2kb.exception.ManagerSaveException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Versioned snapshot files kept next to the storage file. Each file is named after the last journal sequence it
+ * contains, {@code <storage>.<sequence>.snapshot}, so a restart loads the newest one and replays only the journal
+ * records after that sequence.
+ */
+public class SnapshotStore {
+
+    public static final String FILE_SUFFIX = ".snapshot";
+
+    private final Path directory;
+    private final String prefix;
+
+    public SnapshotStore(Path storageFile) {
+        Path absolute = storageFile.toAbsolutePath();
+        this.directory = absolute.getParent();
+        this.prefix = absolute.getFileName() + ".";
+    }
+
+    public Path fileFor(long sequence) {
+        return directory.resolve(String.format("%s%020d%s", prefix, sequence, FILE_SUFFIX));
+    }
+
+    public List<Snapshot> list() {
+        List<Snapshot> snapshots = new ArrayList<>();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String sequence = name.substring(prefix.length(), name.length() - FILE_SUFFIX.length());
+
+                if (!sequence.isEmpty() && sequence.chars().allMatch(Character::isDigit)) {
+                    snapshots.add(new Snapshot(Long.parseLong(sequence), file));
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error occurred while snapshot listing.", e);
+        }
+
+        snapshots.sort(Comparator.comparingLong(Snapshot::sequence).reversed());
+
+        return snapshots;
+    }
+
+    public void prune(int retained) {
+        List<Snapshot> snapshots = list();
+
+        for (Snapshot snapshot : snapshots.subList(Math.min(retained, snapshots.size()), snapshots.size())) {
+            delete(snapshot);
+        }
+    }
+
+    public void clear() {
+        list().forEach(this::delete);
+    }
+
+    private void delete(Snapshot snapshot) {
+        try {
+            Files.deleteIfExists(snapshot.file());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while snapshot pruning.", e);
+        }
+    }
+
+    public record Snapshot(long sequence, Path file) {
+    }
+}
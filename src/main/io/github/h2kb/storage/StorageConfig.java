@@ -0,0 +1,125 @@
+package io.github.h2kb.storage;
+
+import java.time.Duration;
+
+public record StorageConfig(StorageFormat format, boolean journalEnabled, int compactionThreshold,
+                            DurabilityMode durabilityMode, Duration flushWindow, int maxBatchSize,
+                            FsyncPolicy fsyncPolicy, Duration fsyncInterval, Duration snapshotInterval,
+                            int retainedSnapshots, int shardCount, Compression compression,
+                            int descriptionCacheSize) {
+
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+    public static final Duration DEFAULT_FLUSH_WINDOW = Duration.ofMillis(5);
+    public static final int DEFAULT_MAX_BATCH_SIZE = 512;
+    public static final Duration DEFAULT_FSYNC_INTERVAL = Duration.ofSeconds(1);
+    public static final int DEFAULT_RETAINED_SNAPSHOTS = 3;
+    public static final int DEFAULT_DESCRIPTION_CACHE_SIZE = 1024;
+
+    public StorageConfig {
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Compaction threshold must be positive: " + compactionThreshold);
+        }
+
+        if (flushWindow.isNegative()) {
+            throw new IllegalArgumentException("Flush window must not be negative: " + flushWindow);
+        }
+
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+        }
+
+        if (fsyncInterval.isNegative()) {
+            throw new IllegalArgumentException("Fsync interval must not be negative: " + fsyncInterval);
+        }
+
+        if (snapshotInterval.isNegative()) {
+            throw new IllegalArgumentException("Snapshot interval must not be negative: " + snapshotInterval);
+        }
+
+        if (retainedSnapshots <= 0) {
+            throw new IllegalArgumentException("Retained snapshots must be positive: " + retainedSnapshots);
+        }
+
+        if (!snapshotInterval.isZero() && !journalEnabled) {
+            throw new IllegalArgumentException("Scheduled snapshots require the journal");
+        }
+
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+
+        if (shardCount > 1 && !snapshotInterval.isZero()) {
+            throw new IllegalArgumentException("Sharded storage does not support scheduled snapshots");
+        }
+
+        if (descriptionCacheSize < 0) {
+            throw new IllegalArgumentException("Description cache size must not be negative: " + descriptionCacheSize);
+        }
+
+        if (descriptionCacheSize > 0 && (!journalEnabled || durabilityMode != DurabilityMode.SYNC)) {
+            throw new IllegalArgumentException("Lazy descriptions require the synchronous journal");
+        }
+    }
+
+    public static StorageConfig defaults() {
+        return new StorageConfig(StorageFormat.CSV, false, DEFAULT_COMPACTION_THRESHOLD, DurabilityMode.SYNC,
+                DEFAULT_FLUSH_WINDOW, DEFAULT_MAX_BATCH_SIZE, FsyncPolicy.ALWAYS, DEFAULT_FSYNC_INTERVAL,
+                Duration.ZERO, DEFAULT_RETAINED_SNAPSHOTS, 1, Compression.NONE, 0);
+    }
+
+    public StorageConfig withFormat(StorageFormat format) {
+        return new StorageConfig(format, journalEnabled, compactionThreshold, durabilityMode, flushWindow,
+                maxBatchSize, fsyncPolicy, fsyncInterval, snapshotInterval, retainedSnapshots, shardCount, compression,
+                descriptionCacheSize);
+    }
+
+    public StorageConfig withJournal(int compactionThreshold) {
+        return new StorageConfig(format, true, compactionThreshold, durabilityMode, flushWindow, maxBatchSize,
+                fsyncPolicy, fsyncInterval, snapshotInterval, retainedSnapshots, shardCount, compression,
+                descriptionCacheSize);
+    }
+
+    public StorageConfig withAsyncFlush(Duration flushWindow, int maxBatchSize) {
+        return new StorageConfig(format, journalEnabled, compactionThreshold, DurabilityMode.ASYNC, flushWindow,
+                maxBatchSize, fsyncPolicy, fsyncInterval, snapshotInterval, retainedSnapshots, shardCount, compression,
+                descriptionCacheSize);
+    }
+
+    public StorageConfig withFsync(FsyncPolicy fsyncPolicy, Duration fsyncInterval) {
+        return new StorageConfig(format, journalEnabled, compactionThreshold, durabilityMode, flushWindow,
+                maxBatchSize, fsyncPolicy, fsyncInterval, snapshotInterval, retainedSnapshots, shardCount, compression,
+                descriptionCacheSize);
+    }
+
+    public StorageConfig withSnapshots(Duration snapshotInterval, int retainedSnapshots) {
+        return new StorageConfig(format, true, compactionThreshold, durabilityMode, flushWindow, maxBatchSize,
+                fsyncPolicy, fsyncInterval, snapshotInterval, retainedSnapshots, shardCount, compression,
+                descriptionCacheSize);
+    }
+
+    public StorageConfig withShards(int shardCount) {
+        return new StorageConfig(format, journalEnabled, compactionThreshold, durabilityMode, flushWindow,
+                maxBatchSize, fsyncPolicy, fsyncInterval, snapshotInterval, retainedSnapshots, shardCount, compression,
+                descriptionCacheSize);
+    }
+
+    public StorageConfig withCompression(Compression compression) {
+        return new StorageConfig(format, journalEnabled, compactionThreshold, durabilityMode, flushWindow,
+                maxBatchSize, fsyncPolicy, fsyncInterval, snapshotInterval, retainedSnapshots, shardCount, compression,
+                descriptionCacheSize);
+    }
+
+    public StorageConfig withLazyDescriptions(int descriptionCacheSize) {
+        return new StorageConfig(format, true, compactionThreshold, durabilityMode, flushWindow, maxBatchSize,
+                fsyncPolicy, fsyncInterval, snapshotInterval, retainedSnapshots, shardCount, compression,
+                descriptionCacheSize);
+    }
+
+    public boolean snapshotsEnabled() {
+        return !snapshotInterval.isZero();
+    }
+
+    public boolean lazyDescriptionsEnabled() {
+        return descriptionCacheSize > 0;
+    }
+}
@@ -0,0 +1,6 @@
+package io.github.h2kb.storage;
+
+public enum StorageFormat {
+    CSV,
+    BINARY
+}
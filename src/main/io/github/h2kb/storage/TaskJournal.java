@@ -0,0 +1,339 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.exception.ManagerLoadException;
+import io.github.h2kb.exception.ManagerSaveException;
+import io.github.h2kb.task.dto.mapper.TaskCsvCodec;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of task mutations kept next to the snapshot file. Every mutation is one CSV record, so a status
+ * change costs one short append instead of a rewrite of the whole board.
+ * <p>
+ * After an {@value #HEADER_SIZE}-byte file header each record is framed as its payload length, the CRC32C of the
+ * payload and the payload itself. Reading verifies frames in order and cuts the file at the first torn or corrupt
+ * frame, so a crash in the middle of an append costs only that append.
+ * <p>
+ * Appends go through one channel kept open until the journal is truncated, rewritten or closed.
+ */
+public class TaskJournal implements Closeable {
+
+    public static final String FILE_SUFFIX = ".journal";
+    public static final int MAGIC = 0x4B424A31;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 8;
+    public static final int FRAME_HEADER_SIZE = 8;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path journalFile;
+    private FileChannel channel;
+    private long nextSequence = 1;
+    private int size;
+    private int recoveredRecords;
+    private long discardedBytes;
+
+    public TaskJournal(Path storageFile) {
+        this.journalFile = storageFile.resolveSibling(storageFile.getFileName() + FILE_SUFFIX);
+    }
+
+    public Path getJournalFile() {
+        return journalFile;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int getRecoveredRecords() {
+        return recoveredRecords;
+    }
+
+    public synchronized long getDiscardedBytes() {
+        return discardedBytes;
+    }
+
+    public synchronized long lastSequence() {
+        return nextSequence - 1;
+    }
+
+    public synchronized void advanceTo(long sequence) {
+        nextSequence = Math.max(nextSequence, sequence + 1);
+    }
+
+    public synchronized JournalRecord append(JournalRecord record, boolean force) {
+        JournalRecord sequenced = sequence(record);
+        write(List.of(sequenced.toLine()), force);
+
+        return sequenced;
+    }
+
+    public synchronized JournalRecord sequence(JournalRecord record) {
+        return record.withSequence(nextSequence++);
+    }
+
+    public synchronized void write(List<String> lines, boolean force) {
+        try {
+            FileChannel appender = channel();
+            ByteBuffer frames = encode(lines, appender.size() == 0);
+
+            while (frames.hasRemaining()) {
+                appender.write(frames);
+            }
+
+            if (force) {
+                appender.force(false);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while journal appending.", e);
+        }
+
+        size += lines.size();
+    }
+
+    public synchronized void force() {
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while journal forcing.", e);
+        }
+    }
+
+    public synchronized void backup(BackupSet backup) {
+        if (Files.exists(journalFile)) {
+            backup.add(journalFile);
+        }
+    }
+
+    public void replay(Consumer<JournalRecord> consumer) {
+        replay(0, consumer);
+    }
+
+    /**
+     * Passes the records behind {@code afterSequence} to {@code consumer}; only those count as recovered. Records up
+     * to the sequence are already covered by a snapshot and are skipped.
+     */
+    public synchronized void replay(long afterSequence, Consumer<JournalRecord> consumer) {
+        advanceTo(afterSequence);
+        size = 0;
+        discardedBytes = 0;
+
+        read(record -> {
+            nextSequence = Math.max(nextSequence, record.sequence() + 1);
+
+            if (record.sequence() > afterSequence) {
+                size++;
+                consumer.accept(record);
+            }
+        });
+
+        recoveredRecords = size;
+    }
+
+    public synchronized void truncateUpTo(long sequence) {
+        List<String> retained = new ArrayList<>();
+        read(record -> {
+            if (record.sequence() > sequence) {
+                retained.add(record.toLine());
+            }
+        });
+
+        if (retained.isEmpty()) {
+            truncate();
+            return;
+        }
+
+        rewrite(retained);
+        size = retained.size();
+    }
+
+    public synchronized void truncate() {
+        try {
+            close();
+            Files.deleteIfExists(journalFile);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while journal truncating.", e);
+        }
+
+        size = 0;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while journal closing.", e);
+        }
+
+        channel = null;
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+
+        return channel;
+    }
+
+    private void rewrite(List<String> lines) {
+        Path tempFile = AtomicFileWriter.tempFileFor(journalFile);
+
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer frames = encode(lines, true);
+
+            while (frames.hasRemaining()) {
+                channel.write(frames);
+            }
+
+            channel.force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while journal rewriting.", e);
+        }
+
+        try {
+            // The kept channel would go on appending to the replaced file.
+            close();
+            AtomicFileWriter.move(tempFile, journalFile);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred while journal rewriting.", e);
+        }
+    }
+
+    private static ByteBuffer encode(List<String> lines, boolean withHeader) {
+        List<byte[]> payloads = new ArrayList<>(lines.size());
+        int capacity = withHeader ? HEADER_SIZE : 0;
+
+        for (String line : lines) {
+            byte[] payload = line.getBytes(StandardCharsets.UTF_8);
+            payloads.add(payload);
+            capacity += FRAME_HEADER_SIZE + payload.length;
+        }
+
+        ByteBuffer frames = ByteBuffer.allocate(capacity);
+        CRC32C crc = new CRC32C();
+
+        if (withHeader) {
+            frames.putInt(MAGIC).putInt(VERSION);
+        }
+
+        for (byte[] payload : payloads) {
+            crc.reset();
+            crc.update(payload);
+            frames.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+
+        return frames.flip();
+    }
+
+    private void read(Consumer<JournalRecord> consumer) {
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long fileSize = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+
+            if (fileSize == 0) {
+                return;
+            }
+
+            if (isFramed(header.flip())) {
+                long validSize = fileSize < HEADER_SIZE ? 0 : readFrames(channel, fileSize, consumer);
+
+                if (validSize < fileSize) {
+                    channel.truncate(validSize);
+                    channel.force(false);
+                    discardedBytes = fileSize - validSize;
+                }
+
+                return;
+            }
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error occurred while journal reading.", e);
+        }
+
+        readLegacy(consumer);
+    }
+
+    private static boolean isFramed(ByteBuffer header) {
+        ByteBuffer expected = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+
+        return header.equals(expected.limit(header.remaining()));
+    }
+
+    private long readFrames(FileChannel channel, long fileSize, Consumer<JournalRecord> consumer)
+            throws IOException {
+        InputStream stream = Channels.newInputStream(channel.position(HEADER_SIZE));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, BUFFER_SIZE));
+        CRC32C crc = new CRC32C();
+        long offset = HEADER_SIZE;
+
+        while (fileSize - offset >= FRAME_HEADER_SIZE) {
+            int length = in.readInt();
+            int checksum = in.readInt();
+
+            if (length < 0 || length > fileSize - offset - FRAME_HEADER_SIZE) {
+                break;
+            }
+
+            byte[] payload = in.readNBytes(length);
+            crc.reset();
+            crc.update(payload);
+
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            offset += FRAME_HEADER_SIZE + length;
+            consumer.accept(JournalRecord.fromLine(new String(payload, StandardCharsets.UTF_8)));
+        }
+
+        return offset;
+    }
+
+    private void readLegacy(Consumer<JournalRecord> consumer) {
+        List<String> lines = new ArrayList<>();
+
+        try (TaskCsvCodec.CsvReader reader = new TaskCsvCodec.CsvReader(
+                Files.newBufferedReader(journalFile, StandardCharsets.UTF_8))) {
+            while (reader.next()) {
+                JournalRecord record = JournalRecord.read(reader);
+                lines.add(record.toLine());
+                consumer.accept(record);
+            }
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error occurred while journal reading.", e);
+        }
+
+        rewrite(lines);
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.task.Task;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Record-level task storage keyed by task id. Implementations keep the latest version of every record; epic subtask
+ * lists and aggregates are derived data and are rebuilt by the manager on top.
+ */
+public interface TaskRepository extends AutoCloseable {
+
+    Task load(Integer id);
+
+    void batch(Collection<? extends Task> puts, Collection<Integer> deletes);
+
+    void scan(Consumer<? super Task> consumer);
+
+    default void put(Task task) {
+        batch(List.of(task), List.of());
+    }
+
+    default void delete(Integer id) {
+        batch(List.of(), List.of(id));
+    }
+
+    @Override
+    default void close() {
+    }
+}
@@ -3,12 +3,14 @@ package io.github.h2kb.task;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class Epic extends Task {
 
-    private List<Integer> subTaskIds = new ArrayList<>();
+    private volatile List<Integer> subTaskIds = List.of();
     private LocalDateTime endTime;
+    private transient EpicAggregate aggregate;
 
     public Epic(String name, String description, Status status) {
         super(name, description, status);
@@ -22,6 +24,25 @@ public class Epic extends Task {
         return subTaskIds;
     }
 
+    /**
+     * Managers change the subtask ids through copies, never in place, so a list already handed out to a reader, for
+     * example one serializing the epic on another thread, stays unchanged.
+     */
+    public void addSubTaskId(Integer subTaskId) {
+        List<Integer> ids = new ArrayList<>(subTaskIds.size() + 1);
+        ids.addAll(subTaskIds);
+        ids.add(subTaskId);
+        subTaskIds = Collections.unmodifiableList(ids);
+    }
+
+    public void removeSubTaskId(Integer subTaskId) {
+        List<Integer> ids = new ArrayList<>(subTaskIds);
+
+        if (ids.remove(subTaskId)) {
+            subTaskIds = Collections.unmodifiableList(ids);
+        }
+    }
+
     @Override
     public LocalDateTime getEndTime() {
         return endTime;
@@ -34,4 +55,24 @@ public class Epic extends Task {
     public void setDuration(Duration duration) {
         super.setDuration(duration);
     }
+
+    public EpicAggregate getAggregate() {
+        if (aggregate == null) {
+            aggregate = new EpicAggregate();
+        }
+
+        return aggregate;
+    }
+
+    public void setAggregate(EpicAggregate aggregate) {
+        this.aggregate = aggregate;
+    }
+
+    public void applyAggregate() {
+        EpicAggregate epicAggregate = getAggregate();
+        setStatus(epicAggregate.getStatus());
+        setDuration(epicAggregate.getDuration());
+        setStartTime(epicAggregate.getStartTime());
+        setEndTime(epicAggregate.getEndTime());
+    }
 }
@@ -0,0 +1,112 @@
+package io.github.h2kb.task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Running totals over the subtasks of one epic: status counts, scheduled duration and ordered start/end times.
+ * <p>
+ * Every subtask contribution is remembered by id, so a subtask that was changed in place can still be taken back out
+ * with the values it was counted with. Each change costs {@code O(log k)} for an epic with {@code k} subtasks.
+ */
+public class EpicAggregate {
+
+    private final Map<Integer, Contribution> contributions = new HashMap<>();
+    private final Map<Status, Integer> statusCounts = new EnumMap<>(Status.class);
+    private final NavigableMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private final NavigableMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+    private Duration duration = Duration.ZERO;
+
+    public void put(SubTask subTask) {
+        remove(subTask.getId());
+
+        Contribution contribution = Contribution.of(subTask);
+        contributions.put(subTask.getId(), contribution);
+
+        if (contribution.status() != null) {
+            statusCounts.merge(contribution.status(), 1, Integer::sum);
+        }
+
+        if (contribution.startTime() != null) {
+            startTimes.merge(contribution.startTime(), 1, Integer::sum);
+            endTimes.merge(contribution.endTime(), 1, Integer::sum);
+            duration = duration.plus(contribution.duration());
+        }
+    }
+
+    public void remove(Integer subTaskId) {
+        Contribution contribution = contributions.remove(subTaskId);
+
+        if (contribution == null) {
+            return;
+        }
+
+        if (contribution.status() != null) {
+            decrement(statusCounts, contribution.status());
+        }
+
+        if (contribution.startTime() != null) {
+            decrement(startTimes, contribution.startTime());
+            decrement(endTimes, contribution.endTime());
+            duration = duration.minus(contribution.duration());
+        }
+    }
+
+    public void clear() {
+        contributions.clear();
+        statusCounts.clear();
+        startTimes.clear();
+        endTimes.clear();
+        duration = Duration.ZERO;
+    }
+
+    public int size() {
+        return contributions.size();
+    }
+
+    public Status getStatus() {
+        int size = contributions.size();
+
+        if (size == 0 || statusCounts.getOrDefault(Status.NEW, 0) == size) {
+            return Status.NEW;
+        }
+
+        if (statusCounts.getOrDefault(Status.DONE, 0) == size) {
+            return Status.DONE;
+        }
+
+        return Status.IN_PROGRESS;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTimes.isEmpty() ? null : startTimes.firstKey();
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTimes.isEmpty() ? null : endTimes.lastKey();
+    }
+
+    private static <K> void decrement(Map<K, Integer> counts, K key) {
+        counts.computeIfPresent(key, (unused, count) -> count == 1 ? null : count - 1);
+    }
+
+    private record Contribution(Status status, LocalDateTime startTime, LocalDateTime endTime, Duration duration) {
+
+        static Contribution of(SubTask subTask) {
+            LocalDateTime startTime = subTask.getStartTime();
+            Duration duration = subTask.getDuration() == null ? Duration.ZERO : subTask.getDuration();
+            LocalDateTime endTime = startTime == null ? null : startTime.plus(duration);
+
+            return new Contribution(subTask.getStatus(), startTime, endTime, duration);
+        }
+    }
+}
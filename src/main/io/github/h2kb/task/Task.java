@@ -3,6 +3,7 @@ package io.github.h2kb.task;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 public class Task {
 
@@ -12,6 +13,7 @@ public class Task {
     private Status status;
     private Duration duration;
     private LocalDateTime startTime;
+    private transient Supplier<String> descriptionLoader;
 
     public Task(String name, String description, Status status) {
         this.name = name;
@@ -44,11 +46,29 @@ public class Task {
     }
 
     public String getDescription() {
+        if (descriptionLoader != null) {
+            return descriptionLoader.get();
+        }
+
         return description;
     }
 
     public void setDescription(String description) {
         this.description = description;
+        this.descriptionLoader = null;
+    }
+
+    public void setDescriptionLoader(Supplier<String> descriptionLoader) {
+        this.description = null;
+        this.descriptionLoader = descriptionLoader;
+    }
+
+    public Supplier<String> getDescriptionLoader() {
+        return descriptionLoader;
+    }
+
+    public boolean isDescriptionLoaded() {
+        return descriptionLoader == null;
     }
 
     public Status getStatus() {
@@ -103,6 +123,6 @@ public class Task {
 
     @Override
     public int hashCode() {
-        return Objects.hash(getId(), getName(), getDescription(), getStatus());
+        return Objects.hash(getId(), getName(), description, getStatus());
     }
 }
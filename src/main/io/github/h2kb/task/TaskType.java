@@ -29,6 +29,10 @@ public enum TaskType {
         return type;
     }
 
+    public static TaskType of(Task task) {
+        return from(task.getClass().getSimpleName());
+    }
+
     public static TaskType from(String type) {
         TaskType taskType = TYPES.get(type);
 
@@ -0,0 +1,559 @@
+package io.github.h2kb.task.dto.mapper;
+
+import io.github.h2kb.task.Epic;
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import io.github.h2kb.task.TaskType;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Streaming CSV codec for task records.
+ * <p>
+ * Fields are quoted as in RFC 4180 when they contain a separator, a quote or a line break. A {@code null} string is
+ * written as an empty unquoted field and an empty string as {@code ""}, so both survive a round trip. Records are
+ * written straight into an {@link Appendable} and read from a {@link Reader} into reusable buffers; only the strings
+ * and values that end up in the task are allocated.
+ */
+public final class TaskCsvCodec {
+
+    public static final char SEPARATOR = ',';
+    public static final int TASK_FIELD_COUNT = 8;
+
+    private static final char QUOTE = '"';
+
+    private TaskCsvCodec() {
+    }
+
+    public static void writeTask(Task task, Appendable out) throws IOException {
+        TaskType taskType = TaskType.of(task);
+
+        writeNumber(task.getId(), out);
+        out.append(SEPARATOR).append(taskType.name());
+        out.append(SEPARATOR);
+        writeField(task.getName(), out);
+        out.append(SEPARATOR).append(task.getStatus().name());
+        out.append(SEPARATOR);
+        writeField(task.getDescription(), out);
+        out.append(SEPARATOR);
+
+        if (task instanceof SubTask subTask) {
+            writeNumber(subTask.getEpicId(), out);
+        }
+
+        out.append(SEPARATOR);
+
+        if (task.getDuration() != null) {
+            writeNumber(task.getDuration().toMinutes(), out);
+        }
+
+        out.append(SEPARATOR);
+
+        if (task.getStartTime() != null) {
+            writeDateTime(task.getStartTime(), out);
+        }
+    }
+
+    public static void writeField(CharSequence value, Appendable out) throws IOException {
+        if (value == null) {
+            return;
+        }
+
+        if (!needsQuotes(value)) {
+            out.append(value);
+            return;
+        }
+
+        out.append(QUOTE);
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == QUOTE) {
+                out.append(QUOTE);
+            }
+
+            out.append(c);
+        }
+
+        out.append(QUOTE);
+    }
+
+    public static void writeNumber(long value, Appendable out) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            out.append(Long.toString(value));
+            return;
+        }
+
+        if (value < 0) {
+            out.append('-');
+            value = -value;
+        }
+
+        char[] digits = new char[19];
+        int position = digits.length;
+
+        do {
+            digits[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        for (int i = position; i < digits.length; i++) {
+            out.append(digits[i]);
+        }
+    }
+
+    private static void writeDateTime(LocalDateTime dateTime, Appendable out) throws IOException {
+        if (dateTime.getYear() < 0 || dateTime.getYear() > 9999) {
+            out.append(dateTime.toString());
+            return;
+        }
+
+        writePadded(dateTime.getYear(), 4, out);
+        out.append('-');
+        writePadded(dateTime.getMonthValue(), 2, out);
+        out.append('-');
+        writePadded(dateTime.getDayOfMonth(), 2, out);
+        out.append('T');
+        writePadded(dateTime.getHour(), 2, out);
+        out.append(':');
+        writePadded(dateTime.getMinute(), 2, out);
+        out.append(':');
+        writePadded(dateTime.getSecond(), 2, out);
+
+        if (dateTime.getNano() != 0) {
+            out.append('.');
+            writePadded(dateTime.getNano(), 9, out);
+        }
+    }
+
+    private static void writePadded(int value, int width, Appendable out) throws IOException {
+        for (int divisor = pow10(width - 1); divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    private static int pow10(int exponent) {
+        int result = 1;
+
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+
+        return result;
+    }
+
+    private static boolean needsQuotes(CharSequence value) {
+        if (value.isEmpty()) {
+            return true;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == SEPARATOR || c == QUOTE || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Buffered CSV output over a {@link Writer}. Unlike {@link java.io.BufferedWriter} it takes no lock per appended
+     * character, which matters because numbers and timestamps are written one character at a time.
+     */
+    public static class CsvWriter implements Appendable, Flushable, Closeable {
+
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private final Writer out;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position;
+
+        public CsvWriter(Writer out) {
+            this.out = out;
+        }
+
+        public void writeTask(Task task) throws IOException {
+            TaskCsvCodec.writeTask(task, this);
+            newLine();
+        }
+
+        public void writeLine(String line) throws IOException {
+            append(line);
+            newLine();
+        }
+
+        public void newLine() throws IOException {
+            append('\n');
+        }
+
+        @Override
+        public CsvWriter append(char c) throws IOException {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+
+            buffer[position++] = c;
+
+            return this;
+        }
+
+        @Override
+        public CsvWriter append(CharSequence csq) throws IOException {
+            return append(csq, 0, csq.length());
+        }
+
+        @Override
+        public CsvWriter append(CharSequence csq, int start, int end) throws IOException {
+            if (!(csq instanceof String string)) {
+                for (int i = start; i < end; i++) {
+                    append(csq.charAt(i));
+                }
+
+                return this;
+            }
+
+            while (start < end) {
+                if (position == buffer.length) {
+                    flushBuffer();
+                }
+
+                int count = Math.min(end - start, buffer.length - position);
+                string.getChars(start, start + count, buffer, position);
+                position += count;
+                start += count;
+            }
+
+            return this;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flushBuffer();
+            } finally {
+                out.close();
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            if (position > 0) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+        }
+    }
+
+    /**
+     * Pull reader over CSV records. {@link #next()} loads one record into internal buffers that are reused for the
+     * next record, so field values must be consumed before advancing.
+     */
+    public static class CsvReader implements Closeable {
+
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private final Reader in;
+        private final char[] input;
+        private int inputPosition;
+        private int inputLimit;
+
+        private char[] fields = new char[256];
+        private int fieldsLength;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private boolean[] quoted = new boolean[16];
+        private int fieldCount;
+
+        public CsvReader(Reader in) {
+            this(in, BUFFER_SIZE);
+        }
+
+        public CsvReader(Reader in, int bufferSize) {
+            this.in = in;
+            this.input = new char[Math.max(bufferSize, 16)];
+        }
+
+        public boolean next() throws IOException {
+            fieldsLength = 0;
+            fieldCount = 0;
+
+            int c = read();
+
+            while (c == '\n' || c == '\r') {
+                c = read();
+            }
+
+            if (c < 0) {
+                return false;
+            }
+
+            while (true) {
+                startField(c == QUOTE);
+
+                if (c == QUOTE) {
+                    c = readQuoted();
+                } else {
+                    while (c >= 0 && c != SEPARATOR && c != '\n' && c != '\r') {
+                        append((char) c);
+                        c = read();
+                    }
+                }
+
+                ends[fieldCount - 1] = fieldsLength;
+
+                if (c != SEPARATOR) {
+                    return true;
+                }
+
+                c = read();
+            }
+        }
+
+        public int fieldCount() {
+            return fieldCount;
+        }
+
+        public CharSequence field(int index) {
+            return CharBuffer.wrap(fields, starts[index], ends[index] - starts[index]);
+        }
+
+        public String stringField(int index) {
+            int length = ends[index] - starts[index];
+
+            if (length == 0 && !quoted[index]) {
+                return null;
+            }
+
+            return new String(fields, starts[index], length);
+        }
+
+        public boolean isBlank(int index) {
+            for (int i = starts[index]; i < ends[index]; i++) {
+                if (!Character.isWhitespace(fields[i])) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        public long longField(int index) {
+            int position = starts[index];
+            int end = ends[index];
+
+            while (position < end && fields[position] == ' ') {
+                position++;
+            }
+
+            boolean negative = position < end && fields[position] == '-';
+
+            if (negative) {
+                position++;
+            }
+
+            if (position == end) {
+                throw new NumberFormatException("Empty number in field " + index);
+            }
+
+            long value = 0;
+
+            for (; position < end; position++) {
+                char c = fields[position];
+
+                if (c < '0' || c > '9') {
+                    return Long.parseLong(field(index).toString().trim());
+                }
+
+                value = value * 10 + (c - '0');
+            }
+
+            return negative ? -value : value;
+        }
+
+        public int intField(int index) {
+            return Math.toIntExact(longField(index));
+        }
+
+        public Task task(int offset) {
+            if (fieldCount - offset < TASK_FIELD_COUNT) {
+                throw new IllegalArgumentException(
+                        String.format("Expected %d task fields but got %d", TASK_FIELD_COUNT, fieldCount - offset));
+            }
+
+            TaskType taskType = taskType(offset + 1);
+            String name = stringField(offset + 2);
+            Status status = status(offset + 3);
+            String description = stringField(offset + 4);
+            Duration duration = isBlank(offset + 6) ? Duration.ZERO : Duration.ofMinutes(longField(offset + 6));
+            LocalDateTime startTime = isBlank(offset + 7) ? null : dateTime(offset + 7);
+
+            Task task = switch (taskType) {
+                case EPIC -> new Epic(name, description, status);
+                case SUBTASK -> new SubTask(name, description, status, intField(offset + 5), duration, startTime);
+                case TASK -> new Task(name, description, status, duration, startTime);
+            };
+            task.setId(intField(offset));
+
+            return task;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private TaskType taskType(int index) {
+            if (matches(index, "TASK")) {
+                return TaskType.TASK;
+            } else if (matches(index, "EPIC")) {
+                return TaskType.EPIC;
+            } else if (matches(index, "SUBTASK")) {
+                return TaskType.SUBTASK;
+            }
+
+            return TaskType.from(field(index).toString());
+        }
+
+        private Status status(int index) {
+            for (Status status : Status.values()) {
+                if (matches(index, status.name())) {
+                    return status;
+                }
+            }
+
+            return Status.valueOf(field(index).toString());
+        }
+
+        private LocalDateTime dateTime(int index) {
+            int start = starts[index];
+            int length = ends[index] - start;
+
+            if (length >= 16 && fields[start + 4] == '-' && fields[start + 7] == '-' && fields[start + 10] == 'T'
+                    && fields[start + 13] == ':') {
+                int second = 0;
+                int nano = 0;
+
+                if (length >= 19 && fields[start + 16] == ':') {
+                    second = digits(start + 17, 2);
+
+                    if (length > 20 && fields[start + 19] == '.') {
+                        int fractionLength = length - 20;
+                        nano = digits(start + 20, fractionLength) * pow10(9 - fractionLength);
+                    } else if (length != 19) {
+                        return LocalDateTime.parse(field(index), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+                    }
+                } else if (length != 16) {
+                    return LocalDateTime.parse(field(index), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+                }
+
+                return LocalDateTime.of(digits(start, 4), digits(start + 5, 2), digits(start + 8, 2),
+                        digits(start + 11, 2), digits(start + 14, 2), second, nano);
+            }
+
+            return LocalDateTime.parse(field(index), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+
+        private int digits(int position, int count) {
+            int value = 0;
+
+            for (int i = position; i < position + count; i++) {
+                char c = fields[i];
+
+                if (c < '0' || c > '9') {
+                    throw new NumberFormatException("Invalid digit '" + c + "' in date time");
+                }
+
+                value = value * 10 + (c - '0');
+            }
+
+            return value;
+        }
+
+        private boolean matches(int index, String expected) {
+            int start = starts[index];
+
+            if (ends[index] - start != expected.length()) {
+                return false;
+            }
+
+            for (int i = 0; i < expected.length(); i++) {
+                if (fields[start + i] != expected.charAt(i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private int readQuoted() throws IOException {
+            while (true) {
+                int c = read();
+
+                if (c < 0) {
+                    throw new IOException("Unterminated quoted field");
+                }
+
+                if (c == QUOTE) {
+                    c = read();
+
+                    if (c != QUOTE) {
+                        return c;
+                    }
+                }
+
+                append((char) c);
+            }
+        }
+
+        private void startField(boolean isQuoted) {
+            if (fieldCount == starts.length) {
+                starts = Arrays.copyOf(starts, fieldCount * 2);
+                ends = Arrays.copyOf(ends, fieldCount * 2);
+                quoted = Arrays.copyOf(quoted, fieldCount * 2);
+            }
+
+            starts[fieldCount] = fieldsLength;
+            quoted[fieldCount] = isQuoted;
+            fieldCount++;
+        }
+
+        private void append(char c) {
+            if (fieldsLength == fields.length) {
+                fields = Arrays.copyOf(fields, fieldsLength * 2);
+            }
+
+            fields[fieldsLength++] = c;
+        }
+
+        private int read() throws IOException {
+            if (inputPosition == inputLimit) {
+                inputLimit = in.read(input, 0, input.length);
+                inputPosition = 0;
+
+                if (inputLimit <= 0) {
+                    inputLimit = 0;
+                    return -1;
+                }
+            }
+
+            return input[inputPosition++];
+        }
+    }
+}
@@ -1,70 +1,67 @@
 package io.github.h2kb.task.dto.mapper;
 
 import io.github.h2kb.task.Epic;
-import io.github.h2kb.task.Status;
 import io.github.h2kb.task.SubTask;
 import io.github.h2kb.task.Task;
 import io.github.h2kb.task.TaskType;
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.StringJoiner;
-import org.junit.platform.commons.util.StringUtils;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 
 public class TaskMapper {
 
-    public static final String FILE_HEADER = "id,type,name,status,description,startTime,duration,epic";
+    public static final String FILE_HEADER = "id,type,name,status,description,epic,duration,startTime";
 
     private TaskMapper() {
     }
 
     public static String mapTaskToString(Task task) {
-        StringJoiner joiner = new StringJoiner(",");
+        StringBuilder sb = new StringBuilder(64);
 
-        TaskType taskType = TaskType.from(task.getClass().getSimpleName());
-        String epic = "";
-
-        if (taskType.equals(TaskType.SUBTASK)) {
-            epic = ((SubTask) task).getEpicId().toString();
+        try {
+            TaskCsvCodec.writeTask(task, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
 
-        joiner.add(task.getId().toString())
-                .add(taskType.toString())
-                .add(task.getName())
-                .add(task.getStatus().toString())
-                .add(task.getDescription())
-                .add(epic)
-                .add(task.getDuration() == null ? " " : String.valueOf(task.getDuration().toMinutes()))
-                .add(task.getStartTime() == null ? " " : task.getStartTime().toString());
-
-        return joiner.toString();
+        return sb.toString();
     }
 
     public static Task mapTaskFromString(String line) {
-        String[] taskData = line.split(",");
-        TaskType taskType = TaskType.from(taskData[1]);
+        try (TaskCsvCodec.CsvReader reader = new TaskCsvCodec.CsvReader(new StringReader(line),
+                line.length() + 1)) {
+            if (!reader.next()) {
+                throw new IllegalArgumentException("Empty task line");
+            }
+
+            return reader.task(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        switch (taskType) {
+    public static Task copyOf(Task task) {
+        return copyOf(task, true);
+    }
+
+    public static Task copyOf(Task task, boolean withDescription) {
+        String description = withDescription ? task.getDescription() : null;
+        Task copy = switch (TaskType.of(task)) {
             case EPIC -> {
-                return new Epic(taskData[2], taskData[4], Status.valueOf(taskData[3]));
-            }
-            case SUBTASK -> {
-                Integer epicId = Integer.valueOf(taskData[5]);
-                Duration duration = StringUtils.isBlank(taskData[6]) ? Duration.ZERO :
-                        Duration.ofMinutes(Long.parseLong(taskData[6]));
-                LocalDateTime startTime = StringUtils.isBlank(taskData[7]) ? null :
-                        LocalDateTime.parse(taskData[7], DateTimeFormatter.ISO_DATE_TIME);
-                return new SubTask(taskData[2], taskData[4], Status.valueOf(taskData[3]), epicId, duration, startTime);
+                Epic epic = new Epic(task.getName(), description, task.getStatus());
+                epic.setDuration(task.getDuration());
+                epic.setStartTime(task.getStartTime());
+                epic.setEndTime(task.getEndTime());
+                yield epic;
             }
-            case TASK -> {
-                Duration duration = StringUtils.isBlank(taskData[6]) ? Duration.ZERO :
-                        Duration.ofMinutes(Long.parseLong(taskData[6]));
-                LocalDateTime startTime = StringUtils.isBlank(taskData[7]) ? null :
-                        LocalDateTime.parse(taskData[7], DateTimeFormatter.ISO_DATE_TIME);
-                return new Task(taskData[2], taskData[4], Status.valueOf(taskData[3]), duration, startTime);
-            }
-            default -> throw new IllegalArgumentException("Invalid task type: " + taskType);
-        }
+            case SUBTASK -> new SubTask(task.getName(), description, task.getStatus(),
+                    ((SubTask) task).getEpicId(), task.getDuration(), task.getStartTime());
+            case TASK -> new Task(task.getName(), description, task.getStatus(), task.getDuration(),
+                    task.getStartTime());
+        };
+        copy.setId(task.getId());
+
+        return copy;
     }
 
     public static String getHeader() {
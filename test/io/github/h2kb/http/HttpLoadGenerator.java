@@ -0,0 +1,129 @@
+package io.github.h2kb.http;
+
+import io.github.h2kb.manager.Managers;
+import io.github.h2kb.manager.TaskManager;
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.Task;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop load against a local {@link HttpTaskServer} for each request executor: the dispatcher thread alone, a
+ * bounded platform pool and virtual threads. Every client repeatedly reads a task, lists all tasks or creates a task
+ * and waits for the response. Reports throughput and latency percentiles. Run with
+ * {@code java HttpLoadGenerator [clients] [seconds] [tasks]}.
+ */
+public class HttpLoadGenerator {
+
+    private static final URI BASE_URI = URI.create("http://localhost:8080");
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 10);
+        int taskCount = args.length > 2 ? Integer.parseInt(args[2]) : 1_000;
+
+        measure("dispatcher", null, clients, duration, taskCount);
+        measure("pool", HttpTaskServer.newBoundedExecutor(Runtime.getRuntime().availableProcessors() * 2, 1_024),
+                clients, duration, taskCount);
+        measure("virtual", HttpTaskServer.newVirtualThreadExecutor(), clients, duration, taskCount);
+    }
+
+    private static void measure(String name, ExecutorService executor, int clients, Duration duration, int taskCount)
+            throws Exception {
+        TaskManager taskManager = Managers.getConcurrent();
+
+        for (int i = 0; i < taskCount; i++) {
+            taskManager.createTask(new Task("Task " + i, "Task description " + i, Status.NEW));
+        }
+
+        HttpTaskServer server = new HttpTaskServer(taskManager, null, executor);
+        server.start();
+        ExecutorService clientThreads = Executors.newFixedThreadPool(clients);
+        HttpClient client = HttpClient.newBuilder().executor(clientThreads).build();
+
+        try {
+            run(client, 1, Duration.ofSeconds(1), taskCount);
+            long[] latencies = run(client, clients, duration, taskCount);
+            long count = latencies.length;
+            Arrays.sort(latencies);
+
+            System.out.printf("%-10s: %,8.0f req/s, p50 %6.2f ms, p99 %7.2f ms, max %7.2f ms%n", name,
+                    count / (double) duration.toSeconds(), percentile(latencies, 0.50), percentile(latencies, 0.99),
+                    percentile(latencies, 1.0));
+        } finally {
+            server.stop();
+            clientThreads.shutdown();
+        }
+    }
+
+    private static long[] run(HttpClient client, int clients, Duration duration, int taskCount) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(clients);
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<List<Long>>> futures = new ArrayList<>();
+
+        for (int i = 0; i < clients; i++) {
+            futures.add(workers.submit(() -> {
+                List<Long> latencies = new ArrayList<>();
+
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    client.send(nextRequest(taskCount), HttpResponse.BodyHandlers.discarding());
+                    latencies.add(System.nanoTime() - start);
+                }
+
+                return latencies;
+            }));
+        }
+
+        List<Long> latencies = new ArrayList<>();
+
+        for (Future<List<Long>> future : futures) {
+            latencies.addAll(future.get());
+        }
+
+        workers.shutdown();
+
+        return latencies.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static HttpRequest nextRequest(int taskCount) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int kind = random.nextInt(100);
+
+        if (kind < 80) {
+            return HttpRequest.newBuilder(BASE_URI.resolve("/tasks/" + (random.nextInt(taskCount) + 1))).GET().build();
+        }
+
+        if (kind < 90) {
+            return HttpRequest.newBuilder(BASE_URI.resolve("/tasks?description=false")).GET().build();
+        }
+
+        Task task = new Task("Load task", "Created by the load generator", Status.NEW, Duration.ofMinutes(1),
+                LocalDateTime.of(2000, 1, 1, 0, 0).plusMinutes(random.nextInt(Integer.MAX_VALUE)));
+
+        return HttpRequest.newBuilder(BASE_URI.resolve("/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofString(HttpTaskServer.getGson().toJson(task)))
+                .build();
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+
+        return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -3,24 +3,33 @@ package io.github.h2kb.http;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import io.github.h2kb.http.handler.BaseHttpHandler;
 import io.github.h2kb.manager.InMemoryTaskManager;
 import io.github.h2kb.manager.TaskManager;
 import io.github.h2kb.task.Epic;
 import io.github.h2kb.task.Status;
 import io.github.h2kb.task.SubTask;
 import io.github.h2kb.task.Task;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -65,6 +74,76 @@ public class HttpTaskServerTest {
         assertEquals(200, response.statusCode());
     }
 
+    @Test
+    public void getAllTasks_descriptionDisabled_returnTasksWithoutDescriptions()
+            throws IOException, InterruptedException {
+        taskManager.createTask(new Task("Task name", "Task description", Status.NEW));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks?description=false");
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(url)
+                .GET()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        List<Task> tasks = gson.fromJson(response.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        assertEquals(200, response.statusCode());
+        assertEquals(1, tasks.size());
+        assertEquals("Task name", tasks.getFirst().getName());
+        assertNull(tasks.getFirst().getDescription());
+    }
+
+    @Test
+    public void getAllTasks_limitAndCursor_returnPagesWithNextCursor() throws IOException, InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            taskManager.createTask(new Task("Task " + i, "Task description", i == 1 ? Status.DONE : Status.NEW));
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?status=NEW&limit=1"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        List<Task> firstPage = gson.fromJson(response.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        String cursor = response.headers().firstValue("X-Next-Cursor").orElseThrow();
+        assertEquals(200, response.statusCode());
+        assertEquals(1, (int) firstPage.getFirst().getId());
+
+        request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?status=NEW&limit=1&cursor=" + cursor))
+                .GET()
+                .build();
+
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        List<Task> secondPage = gson.fromJson(response.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        assertEquals(200, response.statusCode());
+        assertEquals(3, (int) secondPage.getFirst().getId());
+        assertFalse(response.headers().firstValue("X-Next-Cursor").isPresent());
+
+        request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?cursor=" + cursor))
+                .GET()
+                .build();
+
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+
+        request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?status=LATER"))
+                .GET()
+                .build();
+
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+        assertEquals("Invalid value of status: LATER", response.body());
+    }
+
     @Test
     public void getTaskById_taskDoesNotExist_return404() throws IOException, InterruptedException {
         assertTrue(taskManager.getAllTasks().isEmpty());
@@ -146,6 +225,62 @@ public class HttpTaskServerTest {
         assertEquals(406, response.statusCode());
     }
 
+    @Test
+    public void createTask_invalidBody_return400WithReason() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks");
+        HttpRequest missingName = HttpRequest.newBuilder()
+                .uri(url)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"status\":\"NEW\"}"))
+                .build();
+        HttpRequest malformedDate = HttpRequest.newBuilder()
+                .uri(url)
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"name\":\"Task name\",\"status\":\"NEW\",\"startTime\":\"yesterday\"}"))
+                .build();
+        HttpRequest trailingData = HttpRequest.newBuilder()
+                .uri(url)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Task name\",\"status\":\"NEW\"} {}"))
+                .build();
+        HttpRequest unknownStatus = HttpRequest.newBuilder()
+                .uri(url)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Task name\",\"status\":\"PAUSED\"}"))
+                .build();
+
+        HttpResponse<String> response = client.send(missingName, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+        assertEquals("Missing required field: name", response.body());
+
+        response = client.send(malformedDate, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().startsWith("Malformed request body at $.startTime"));
+
+        response = client.send(trailingData, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+
+        response = client.send(unknownStatus, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().endsWith("Invalid value of status: PAUSED"));
+        assertTrue(taskManager.getAllTasks().isEmpty());
+    }
+
+    @Test
+    public void createTask_bodyTooLarge_return413() throws IOException, InterruptedException {
+        byte[] taskJson = ("{\"name\":\"" + "x".repeat(BaseHttpHandler.MAX_BODY_SIZE) + "\",\"status\":\"NEW\"}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks");
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(url)
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(taskJson)))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(413, response.statusCode());
+        assertTrue(taskManager.getAllTasks().isEmpty());
+    }
+
     @Test
     public void updateTask_taskDoesNotExist_return404() throws IOException, InterruptedException {
         Task task = new Task("Task name", "Task description",
@@ -437,4 +572,132 @@ public class HttpTaskServerTest {
         assertEquals("Task2 name", tasksFromManager.get(1).getName());
         assertEquals("Task3 name", tasksFromManager.get(2).getName());
     }
+
+    @Test
+    public void getPrioritized_budgetExhausted_return429WithRetryAfterAndCountRejection()
+            throws IOException, InterruptedException {
+        httpTaskServer.stop();
+        HttpTaskServer limitedServer = new HttpTaskServer(taskManager, null, HttpTaskServer.newVirtualThreadExecutor(),
+                AdmissionConfig.defaults().withBudget("/prioritized", 0).withRetryAfter(Duration.ofSeconds(2)));
+        limitedServer.start();
+
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            HttpResponse<String> rejected = client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/prioritized"))
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> admitted = client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/tasks"))
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(429, rejected.statusCode());
+            assertEquals("2", rejected.headers().firstValue("Retry-After").orElse(null));
+            assertEquals(200, admitted.statusCode());
+            assertEquals(1, limitedServer.getAdmissionStats().get("/prioritized").rejected());
+            assertEquals(1, limitedServer.getAdmissionStats().get("/tasks").admitted());
+        } finally {
+            limitedServer.stop();
+        }
+    }
+
+    @Test
+    public void getHistory_managerThrows_return500() throws IOException, InterruptedException {
+        httpTaskServer.stop();
+        TaskManager failingManager = new InMemoryTaskManager() {
+            @Override
+            public synchronized List<Task> getHistory() {
+                throw new IllegalStateException("History is broken");
+            }
+        };
+        HttpTaskServer failingServer = new HttpTaskServer(failingManager);
+        failingServer.start();
+
+        try {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/history"))
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(500, response.statusCode());
+            assertEquals(1, failingServer.getAdmissionStats().get("/history").admitted());
+        } finally {
+            failingServer.stop();
+        }
+    }
+
+    @Test
+    public void getPrioritized_budgetTakenByQueuedRequest_rejectedBeforeQueueing()
+            throws IOException, InterruptedException, ExecutionException {
+        httpTaskServer.stop();
+        ExecutorService executor = HttpTaskServer.newBoundedExecutor(1, 16);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        HttpTaskServer limitedServer = new HttpTaskServer(taskManager, null, executor,
+                AdmissionConfig.defaults().withBudget("/prioritized", 1));
+        limitedServer.start();
+
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/prioritized"))
+                    .GET()
+                    .build();
+            CompletableFuture<HttpResponse<String>> queued = client.sendAsync(request,
+                    HttpResponse.BodyHandlers.ofString());
+
+            while (limitedServer.getAdmissionStats().get("/prioritized").queued() == 0) {
+                Thread.sleep(1);
+            }
+
+            HttpResponse<String> rejected = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(429, rejected.statusCode());
+            assertEquals(1, ((ThreadPoolExecutor) executor).getQueue().size());
+
+            release.countDown();
+
+            assertEquals(200, queued.get().statusCode());
+            assertEquals(0, limitedServer.getAdmissionStats().get("/prioritized").queued());
+        } finally {
+            release.countDown();
+            limitedServer.stop();
+        }
+    }
+
+    @Test
+    public void getEpicSubtasks_streamedResponse_chunkedAndRoundTripsAllFields()
+            throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 9, 30);
+        Integer epicId = taskManager.createEpic(new Epic("Epic name", "Epic description", Status.NEW));
+        taskManager.createSubTask(new SubTask("SubTask name", "SubTask \"quoted\" description", Status.DONE, epicId,
+                Duration.ofMinutes(45), start));
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/epics/" + epicId + "/subtasks"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        List<SubTask> subTasks = gson.fromJson(response.body(), new TypeToken<List<SubTask>>() {
+        }.getType());
+        Epic epic = gson.fromJson(gson.toJson(taskManager.getEpic(epicId)), Epic.class);
+
+        assertEquals(200, response.statusCode());
+        assertEquals("chunked", response.headers().firstValue("Transfer-Encoding").orElse(null));
+        assertEquals(1, subTasks.size());
+        assertEquals(epicId, subTasks.getFirst().getEpicId());
+        assertEquals("SubTask \"quoted\" description", subTasks.getFirst().getDescription());
+        assertEquals(Duration.ofMinutes(45), subTasks.getFirst().getDuration());
+        assertEquals(start, subTasks.getFirst().getStartTime());
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(taskManager.getEpic(epicId).getSubTaskIds(), epic.getSubTaskIds());
+        assertEquals(start.plusMinutes(45), epic.getEndTime());
+    }
 }
@@ -0,0 +1,57 @@
+package io.github.h2kb.manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.Task;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Test;
+
+class AsyncHistoryManagerTest {
+
+    @Test
+    void getHistory_zeroMaxStaleness_viewVisibleWithoutFlush() {
+        AsyncHistoryManager historyManager = AsyncHistoryManager.start(Managers.getDefaultHistory(), id -> true,
+                Duration.ZERO);
+        Task task = newTask(1);
+
+        for (int i = 0; i < 100; i++) {
+            historyManager.add(task);
+            historyManager.remove(1);
+            historyManager.add(task);
+
+            assertEquals(List.of(task), historyManager.getHistory());
+        }
+
+        historyManager.close();
+    }
+
+    @Test
+    void add_viewQueuedAfterTaskRemoved_viewDropped() {
+        Set<Integer> liveIds = ConcurrentHashMap.newKeySet();
+        liveIds.add(1);
+        AsyncHistoryManager historyManager = AsyncHistoryManager.start(Managers.getDefaultHistory(),
+                liveIds::contains, AsyncHistoryManager.DEFAULT_MAX_STALENESS);
+        Task task = newTask(1);
+        historyManager.add(task);
+
+        liveIds.remove(1);
+        historyManager.remove(1);
+        historyManager.add(task);
+        historyManager.flush().join();
+
+        assertTrue(historyManager.getHistory().isEmpty());
+        historyManager.close();
+    }
+
+    private static Task newTask(int id) {
+        Task task = new Task("Task " + id, "Task description", Status.NEW);
+        task.setId(id);
+
+        return task;
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.h2kb.manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.h2kb.exception.TaskIntersectionOfTimeException;
+import io.github.h2kb.storage.FileTaskRepository;
+import io.github.h2kb.storage.InMemoryTaskRepository;
+import io.github.h2kb.storage.StorageFormat;
+import io.github.h2kb.task.Epic;
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class CachingTaskManagerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @Test
+    void getTask_evictedFromCache_readThroughFromRepository() {
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        CachingTaskManager taskManager = new CachingTaskManager(repository, 2, Duration.ZERO, 16);
+
+        for (int i = 1; i <= 5; i++) {
+            taskManager.createTask(new Task("Task" + i, "Task Description", Status.NEW));
+        }
+
+        taskManager.flush().join();
+
+        assertEquals(2, taskManager.getCachedCount());
+        assertEquals(5, repository.size());
+        assertEquals("Task1", taskManager.getTask(1).getName());
+        assertEquals(5, taskManager.getAllTasks().size());
+        assertEquals(2, taskManager.getCachedCount());
+        taskManager.close();
+    }
+
+    @Test
+    void removeTask_pendingDeletion_taskNotReadBackFromRepository() {
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        CachingTaskManager taskManager = new CachingTaskManager(repository, 1, Duration.ofSeconds(10), 16);
+        Integer id = taskManager.createTask(new Task("Task1", "Task Description", Status.NEW));
+        taskManager.createTask(new Task("Task2", "Task Description", Status.NEW));
+
+        taskManager.removeTask(id);
+
+        assertNull(taskManager.getTask(id));
+        assertEquals(1, taskManager.getAllTasks().size());
+        taskManager.close();
+        assertEquals(1, repository.size());
+    }
+
+    @Test
+    void createSubTask_epicEvicted_epicAggregateUpdatedAndStored() {
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        CachingTaskManager taskManager = new CachingTaskManager(repository, 1, Duration.ZERO, 16);
+        Integer epicId = taskManager.createEpic(new Epic("Epic1", "Epic Description", Status.NEW));
+        taskManager.createSubTask(new SubTask("SubTask1", "SubTask Description", Status.DONE, epicId,
+                Duration.ofMinutes(30), START));
+        taskManager.createSubTask(new SubTask("SubTask2", "SubTask Description", Status.DONE, epicId,
+                Duration.ofMinutes(15), START.plusHours(1)));
+        taskManager.flush().join();
+
+        Epic epic = (Epic) repository.load(epicId);
+
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(Duration.ofMinutes(45), epic.getDuration());
+        assertEquals(2, taskManager.getEpic(epicId).getSubTaskIds().size());
+        assertEquals(START.plusMinutes(75), taskManager.getEpic(epicId).getEndTime());
+        assertThrows(TaskIntersectionOfTimeException.class, () -> taskManager.createTask(
+                new Task("Task1", "Task Description", Status.NEW, Duration.ofMinutes(10), START.plusMinutes(5))));
+        taskManager.close();
+    }
+
+    @Test
+    void createdTaskManager_existingFileRepository_boardRestored() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        CachingTaskManager taskManager = new CachingTaskManager(new FileTaskRepository(file, StorageFormat.BINARY));
+        taskManager.createTask(new Task("Task1", "Task Description", Status.NEW, Duration.ofMinutes(30), START));
+        Integer epicId = taskManager.createEpic(new Epic("Epic1", "Epic Description", Status.NEW));
+        taskManager.createSubTask(new SubTask("SubTask1", "SubTask Description", Status.IN_PROGRESS, epicId));
+        taskManager.close();
+
+        CachingTaskManager restored = new CachingTaskManager(new FileTaskRepository(file, StorageFormat.BINARY));
+
+        assertEquals(1, restored.getAllTasks().size());
+        assertEquals(Status.IN_PROGRESS, restored.getEpic(epicId).getStatus());
+        assertEquals(1, restored.getSubTasksByEpicId(epicId).size());
+        assertEquals(1, restored.getPrioritizedTasks().size());
+        assertEquals(4, (int) restored.createTask(new Task("Task2", "Task Description", Status.NEW)));
+        assertTrue(restored.getPrioritizedTasks().iterator().next().getDescription() != null);
+        restored.close();
+    }
+
+    @Test
+    void updateTask_storedWhileBatchWritten_newerVersionWritten() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryTaskRepository repository = new InMemoryTaskRepository() {
+            @Override
+            public void batch(Collection<? extends Task> puts, Collection<Integer> deletes) {
+                writing.countDown();
+
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                super.batch(puts, deletes);
+            }
+        };
+        CachingTaskManager taskManager = new CachingTaskManager(repository, 1, Duration.ZERO, 16);
+        Integer id = taskManager.createTask(new Task("Task1", "Task Description", Status.NEW));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        Task update = new Task("Task1 updated", "Task Description", Status.DONE);
+        update.setId(id);
+        taskManager.updateTask(update);
+        release.countDown();
+        taskManager.flush().join();
+        taskManager.createTask(new Task("Task2", "Task Description", Status.NEW));
+        taskManager.flush().join();
+
+        assertEquals("Task1 updated", repository.load(id).getName());
+        assertEquals(Status.DONE, taskManager.getTask(id).getStatus());
+        taskManager.close();
+    }
+}
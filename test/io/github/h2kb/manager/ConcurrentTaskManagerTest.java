@@ -0,0 +1,385 @@
+package io.github.h2kb.manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.h2kb.exception.TaskIntersectionOfTimeException;
+import io.github.h2kb.task.Epic;
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentTaskManagerTest {
+
+    private static final int THREADS = 8;
+    private static final int TASKS_PER_THREAD = 500;
+
+    private TaskManager taskManager;
+
+    @BeforeEach
+    void setUp() {
+        taskManager = Managers.getConcurrent();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((ConcurrentTaskManager) taskManager).close();
+    }
+
+    @Test
+    void createUpdateDeleteEpic_happyPath_noError() {
+        Integer epicId = taskManager.createEpic(new Epic("Epic name", "Epic description", Status.NEW));
+        SubTask subTask1 = new SubTask("Subtask 1", "Subtask description", Status.NEW, epicId);
+        SubTask subTask2 = new SubTask("Subtask 2", "Subtask description", Status.NEW, epicId);
+        taskManager.createSubTask(subTask1);
+        taskManager.createSubTask(subTask2);
+
+        subTask1.setStatus(Status.DONE);
+        taskManager.updateSubTask(subTask1);
+        assertEquals(Status.IN_PROGRESS, taskManager.getEpic(epicId).getStatus());
+
+        taskManager.removeSubTask(subTask2.getId());
+        assertEquals(Status.DONE, taskManager.getEpic(epicId).getStatus());
+
+        taskManager.removeEpic(epicId);
+        assertNull(taskManager.getEpic(epicId));
+        assertTrue(taskManager.getAllSubTasks().isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.createSubTask(new SubTask("Subtask", "Subtask description", Status.NEW, epicId)));
+    }
+
+    @Test
+    void createTasks_fromManyThreads_allTasksCreatedWithUniqueIds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<Integer>>> futures = new ArrayList<>();
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                List<Integer> ids = new ArrayList<>();
+
+                for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                    ids.add(taskManager.createTask(new Task("Task", "Task description", Status.NEW)));
+                }
+
+                return ids;
+            }));
+        }
+
+        Set<Integer> ids = new HashSet<>();
+
+        for (Future<List<Integer>> future : futures) {
+            ids.addAll(future.get());
+        }
+
+        executor.shutdown();
+
+        assertEquals(THREADS * TASKS_PER_THREAD, ids.size());
+        assertEquals(THREADS * TASKS_PER_THREAD, taskManager.getAllTasks().size());
+    }
+
+    @Test
+    void createSubTasks_sameTimeSlotFromManyThreads_onlyOneScheduled() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 26, 12, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            Integer epicId = taskManager.createEpic(new Epic("Epic", "Epic description", Status.NEW));
+
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                    try {
+                        taskManager.createSubTask(new SubTask("Subtask", "Subtask description", Status.NEW, epicId,
+                                Duration.ofMinutes(15), start.plusMinutes(15L * i)));
+                    } catch (TaskIntersectionOfTimeException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+
+        assertEquals(TASKS_PER_THREAD, taskManager.getPrioritizedTasks().size());
+        assertEquals((THREADS - 1) * TASKS_PER_THREAD, rejected.get());
+        assertEquals(TASKS_PER_THREAD, taskManager.getAllSubTasks().size());
+
+        int scheduledBySubTasks = taskManager.getAllEpics().stream()
+                .mapToInt(epic -> taskManager.getSubTasksByEpicId(epic.getId()).size())
+                .sum();
+        assertEquals(TASKS_PER_THREAD, scheduledBySubTasks);
+    }
+
+    @Test
+    void updateSubTask_movedBetweenEpicsFromManyThreads_eachSubTaskListedOnceUnderItsEpic() throws Exception {
+        Integer firstEpicId = taskManager.createEpic(new Epic("Epic 1", "Epic description", Status.NEW));
+        Integer secondEpicId = taskManager.createEpic(new Epic("Epic 2", "Epic description", Status.NEW));
+        List<Integer> subTaskIds = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            subTaskIds.add(taskManager.createSubTask(new SubTask("Subtask " + i, "Subtask description", Status.DONE,
+                    firstEpicId)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            int offset = thread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                    Integer subTaskId = subTaskIds.get((offset + i) % subTaskIds.size());
+                    SubTask moved = new SubTask("Subtask", "Subtask description", Status.DONE,
+                            i % 2 == 0 ? secondEpicId : firstEpicId);
+                    moved.setId(subTaskId);
+                    taskManager.updateSubTask(moved);
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+
+        Epic firstEpic = taskManager.getEpic(firstEpicId);
+        Epic secondEpic = taskManager.getEpic(secondEpicId);
+        assertEquals(THREADS, firstEpic.getSubTaskIds().size() + secondEpic.getSubTaskIds().size());
+        assertEquals(firstEpic.getSubTaskIds().size(), firstEpic.getAggregate().size());
+        assertEquals(secondEpic.getSubTaskIds().size(), secondEpic.getAggregate().size());
+
+        for (Integer subTaskId : firstEpic.getSubTaskIds()) {
+            assertEquals(firstEpicId, taskManager.getSubTask(subTaskId).getEpicId());
+        }
+
+        for (Integer subTaskId : secondEpic.getSubTaskIds()) {
+            assertEquals(secondEpicId, taskManager.getSubTask(subTaskId).getEpicId());
+        }
+    }
+
+    @Test
+    void updateTask_racingRemoveTask_scheduleHoldsOnlyExistingTasks() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 26, 12, 0);
+        List<Integer> taskIds = new ArrayList<>();
+
+        for (int i = 0; i < TASKS_PER_THREAD; i++) {
+            taskIds.add(taskManager.createTask(new Task("Task", "Task description", Status.NEW,
+                    Duration.ofMinutes(30), start.plusHours(i))));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            boolean removing = thread % 2 == 0;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < taskIds.size(); i++) {
+                    if (removing) {
+                        taskManager.removeTask(taskIds.get(i));
+                    } else {
+                        Task updated = new Task("Task", "Task description", Status.DONE, Duration.ofMinutes(30),
+                                start.plusHours(i));
+                        updated.setId(taskIds.get(i));
+                        taskManager.updateTask(updated);
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+
+        assertTrue(taskManager.getAllTasks().isEmpty());
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty());
+    }
+
+    @Test
+    void removeSubTask_racingMoveBetweenEpics_noEpicKeepsRemovedSubTask() throws Exception {
+        Integer firstEpicId = taskManager.createEpic(new Epic("Epic 1", "Epic description", Status.NEW));
+        Integer secondEpicId = taskManager.createEpic(new Epic("Epic 2", "Epic description", Status.NEW));
+        List<Integer> subTaskIds = new ArrayList<>();
+
+        for (int i = 0; i < TASKS_PER_THREAD; i++) {
+            subTaskIds.add(taskManager.createSubTask(new SubTask("Subtask", "Subtask description", Status.DONE,
+                    firstEpicId)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            boolean removing = thread % 2 == 0;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < subTaskIds.size(); i++) {
+                    if (removing) {
+                        taskManager.removeSubTask(subTaskIds.get(i));
+                    } else {
+                        SubTask moved = new SubTask("Subtask", "Subtask description", Status.DONE,
+                                i % 2 == 0 ? secondEpicId : firstEpicId);
+                        moved.setId(subTaskIds.get(i));
+                        taskManager.updateSubTask(moved);
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+
+        assertTrue(taskManager.getAllSubTasks().isEmpty());
+
+        for (Integer epicId : List.of(firstEpicId, secondEpicId)) {
+            Epic epic = taskManager.getEpic(epicId);
+            assertTrue(epic.getSubTaskIds().isEmpty());
+            assertEquals(0, epic.getAggregate().size());
+        }
+    }
+
+    @Test
+    void updateEpic_staleCopy_subTaskIdsKept() {
+        Integer epicId = taskManager.createEpic(new Epic("Epic", "Epic description", Status.NEW));
+        Epic stale = new Epic("Epic renamed", "Epic description", Status.NEW);
+        stale.setId(epicId);
+        Integer subTaskId = taskManager.createSubTask(new SubTask("Subtask", "Subtask description", Status.DONE,
+                epicId));
+
+        taskManager.updateEpic(stale);
+
+        Epic epic = taskManager.getEpic(epicId);
+        assertEquals("Epic renamed", epic.getName());
+        assertEquals(List.of(subTaskId), epic.getSubTaskIds());
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(1, taskManager.getSubTasksByEpicId(epicId).size());
+    }
+
+    @Test
+    void getTask_fromManyThreads_historyRecordedAsynchronouslyWithoutDuplicates() throws Exception {
+        List<Integer> taskIds = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            taskIds.add(taskManager.createTask(new Task("Task" + i, "Task description", Status.NEW)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                    taskManager.getTask(taskIds.get(i % taskIds.size()));
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+        taskManager.removeTask(taskIds.getFirst());
+        taskManager.getTask(taskIds.getLast());
+        ((ConcurrentTaskManager) taskManager).flushHistory().join();
+
+        List<Task> history = taskManager.getHistory();
+        assertEquals(InMemoryHistoryManager.DEFAULT_CAPACITY, history.size());
+        assertEquals(history.size(), new HashSet<>(history).size());
+        assertEquals(taskIds.getLast(), history.getLast().getId());
+        assertTrue(history.stream().noneMatch(task -> task.getId().equals(taskIds.getFirst())));
+    }
+
+    @Test
+    void getEpic_subTasksChangedAfterwards_handedOutSubTaskIdsStayUnchanged() {
+        Integer epicId = taskManager.createEpic(new Epic("Epic", "Epic description", Status.NEW));
+        Integer subTaskId = taskManager.createSubTask(new SubTask("Subtask", "Subtask description", Status.NEW,
+                epicId));
+        List<Integer> subTaskIds = taskManager.getEpic(epicId).getSubTaskIds();
+
+        for (Integer ignored : subTaskIds) {
+            taskManager.createSubTask(new SubTask("Subtask", "Subtask description", Status.NEW, epicId));
+            taskManager.removeSubTask(subTaskId);
+        }
+
+        assertEquals(List.of(subTaskId), subTaskIds);
+        assertEquals(1, taskManager.getEpic(epicId).getSubTaskIds().size());
+    }
+
+    @Test
+    void findTasks_statusFilterRangeAndCursor_pagesInIdOrder() {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 26, 12, 0);
+
+        for (int i = 0; i < 6; i++) {
+            taskManager.createTask(new Task("Task " + i, "Task description", i == 2 ? Status.DONE : Status.NEW,
+                    Duration.ofMinutes(30), start.plusHours(5 - i)));
+        }
+
+        TaskQuery newTasks = TaskQuery.all().withStatus(Status.NEW).withLimit(2);
+        List<Task> firstPage = taskManager.findTasks(newTasks);
+        List<Task> secondPage = taskManager.findTasks(newTasks.withAfter(TaskCursor.byId(firstPage.getLast())));
+        TaskQuery range = TaskQuery.all().withStartRange(start.plusHours(1), start.plusHours(4));
+
+        assertEquals(List.of(1, 2), firstPage.stream().map(Task::getId).toList());
+        assertEquals(List.of(4, 5), secondPage.stream().map(Task::getId).toList());
+        assertEquals(List.of(3, 4, 5), taskManager.findTasks(range).stream().map(Task::getId).toList());
+        assertTrue(taskManager.findEpics(TaskQuery.all()).isEmpty());
+    }
+
+    @Test
+    void flushHistory_racingClose_everyFlushCompletes() throws Exception {
+        ConcurrentTaskManager manager = (ConcurrentTaskManager) taskManager;
+        Integer taskId = manager.createTask(new Task("Task", "Task description", Status.NEW));
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<CompletableFuture<Void>>>> futures = new ArrayList<>();
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                List<CompletableFuture<Void>> flushes = new ArrayList<>();
+
+                for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                    manager.getTask(taskId);
+                    flushes.add(manager.flushHistory());
+                }
+
+                return flushes;
+            }));
+        }
+
+        manager.close();
+
+        for (Future<List<CompletableFuture<Void>>> future : futures) {
+            for (CompletableFuture<Void> flush : future.get()) {
+                flush.get(1, TimeUnit.SECONDS);
+            }
+        }
+
+        executor.shutdown();
+    }
+}
@@ -1,19 +1,38 @@
 package io.github.h2kb.manager;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import io.github.h2kb.storage.AtomicFileWriter;
+import io.github.h2kb.storage.Compression;
+import io.github.h2kb.storage.DescriptionStore;
+import io.github.h2kb.storage.FsyncPolicy;
+import io.github.h2kb.storage.ShardSet;
+import io.github.h2kb.storage.SnapshotStore;
+import io.github.h2kb.storage.StorageConfig;
+import io.github.h2kb.storage.StorageFormat;
+import io.github.h2kb.storage.TaskJournal;
 import io.github.h2kb.task.Epic;
 import io.github.h2kb.task.Status;
 import io.github.h2kb.task.SubTask;
 import io.github.h2kb.task.Task;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -79,4 +98,477 @@ public class FileBackedTaskManagerTest {
         assertEquals(subTasks, savedSubTasks);
         assertEquals(epics, savedEpics);
     }
+
+    @Test
+    void removeTasks_reloadManager_idsArePreserved() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        TaskManager manager = Managers.getFileBacked(file);
+        Integer removedId = manager.createTask(new Task("Task1", "Task Description", Status.NEW));
+        Integer epicId = manager.createEpic(new Epic("Epic1", "Epic Description", Status.NEW));
+        Integer subTaskId = manager.createSubTask(new SubTask("Subtask1", "Subtask Description", Status.DONE, epicId));
+        manager.removeTask(removedId);
+
+        TaskManager savedManager = Managers.getFileBacked(file);
+
+        assertTrue(savedManager.getAllTasks().isEmpty());
+        assertEquals(List.of(subTaskId), savedManager.getEpic(epicId).getSubTaskIds());
+        assertEquals(Status.DONE, savedManager.getEpic(epicId).getStatus());
+        assertEquals(subTaskId + 1, (int) savedManager.createTask(new Task("Task2", "Task Description", Status.NEW)));
+    }
+
+    @Test
+    void journalMode_mutateTasks_snapshotNotRewrittenAndStateReplayed() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        StorageConfig config = StorageConfig.defaults().withJournal(100);
+        TaskManager manager = Managers.getFileBacked(file, config);
+
+        Integer taskId = manager.createTask(new Task("Task1", "Task Description", Status.NEW));
+        Integer epicId = manager.createEpic(new Epic("Epic1", "Epic Description", Status.NEW));
+        SubTask subTask = new SubTask("Subtask1", "Subtask Description", Status.NEW, epicId);
+        manager.createSubTask(subTask);
+        subTask.setStatus(Status.IN_PROGRESS);
+        manager.updateSubTask(subTask);
+        manager.removeTask(taskId);
+
+        assertEquals(0, Files.size(file));
+        assertEquals(5, journalSize(file));
+
+        TaskManager savedManager = Managers.getFileBacked(file, config);
+
+        assertNull(savedManager.getTask(taskId));
+        assertEquals(Status.IN_PROGRESS, savedManager.getSubTask(subTask.getId()).getStatus());
+        assertEquals(Status.IN_PROGRESS, savedManager.getEpic(epicId).getStatus());
+    }
+
+    @Test
+    void journalMode_thresholdReached_journalCompactedIntoSnapshot() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        StorageConfig config = StorageConfig.defaults().withJournal(3);
+        TaskManager manager = Managers.getFileBacked(file, config);
+
+        for (int i = 0; i < 4; i++) {
+            manager.createTask(new Task("Task" + i, "Task Description", Status.NEW));
+        }
+
+        assertEquals(1, journalSize(file));
+        assertEquals(4, Files.readAllLines(file).size());
+
+        TaskManager savedManager = Managers.getFileBacked(file, config);
+        assertEquals(4, savedManager.getAllTasks().size());
+    }
+
+    @Test
+    void asyncJournalMode_flushAfterBurst_allChangesDurable() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        StorageConfig config = StorageConfig.defaults()
+                .withJournal(10_000)
+                .withAsyncFlush(Duration.ofMillis(20), 64);
+
+        try (FileBackedTaskManager manager = FileBackedTaskManager.open(file, config)) {
+            for (int i = 0; i < 500; i++) {
+                manager.createTask(new Task("Task" + i, "Task Description", Status.NEW));
+            }
+
+            manager.flush().join();
+        }
+
+        assertEquals(500, journalSize(file));
+        assertEquals(500, Managers.getFileBacked(file, config).getAllTasks().size());
+    }
+
+    @Test
+    void asyncSnapshotMode_compactRequested_snapshotWritten() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        StorageConfig config = StorageConfig.defaults().withAsyncFlush(Duration.ofMillis(5), 16);
+
+        try (FileBackedTaskManager manager = FileBackedTaskManager.open(file, config)) {
+            Integer epicId = manager.createEpic(new Epic("Epic1", "Epic Description", Status.NEW));
+            manager.createSubTask(new SubTask("Subtask1", "Subtask Description", Status.NEW, epicId));
+            manager.compact().join();
+        }
+
+        TaskManager savedManager = Managers.getFileBacked(file);
+        assertEquals(1, savedManager.getAllEpics().size());
+        assertEquals(1, savedManager.getAllSubTasks().size());
+    }
+
+    @Test
+    void loadManager_largeBoard_fileNotRewrittenAndIndexesRebuilt() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        LocalDateTime start = LocalDateTime.of(2024, 6, 26, 12, 0);
+        TaskManager manager = Managers.getFileBacked(file, StorageConfig.defaults().withJournal(100_000));
+        Integer epicId = manager.createEpic(new Epic("Epic", "Epic Description", Status.NEW));
+
+        for (int i = 0; i < 1_000; i++) {
+            manager.createSubTask(new SubTask("Subtask" + i, "Subtask Description", Status.DONE, epicId,
+                    Duration.ofMinutes(10), start.minusMinutes(10L * i)));
+            manager.createTask(new Task("Task" + i, "Task Description", Status.NEW));
+        }
+
+        ((FileBackedTaskManager) manager).compact();
+        byte[] snapshot = Files.readAllBytes(file);
+
+        TaskManager savedManager = Managers.getFileBacked(file, StorageConfig.defaults().withJournal(100_000));
+
+        assertTrue(Arrays.equals(snapshot, Files.readAllBytes(file)));
+        assertEquals(1_000, savedManager.getPrioritizedTasks().size());
+        assertEquals(start.minusMinutes(9_990), savedManager.getPrioritizedTasks().iterator().next().getStartTime());
+
+        Epic epic = savedManager.getEpic(epicId);
+        assertEquals(1_000, epic.getSubTaskIds().size());
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(Duration.ofMinutes(10_000), epic.getDuration());
+        assertEquals(start.minusMinutes(9_990), epic.getStartTime());
+        assertEquals(start.plusMinutes(10), epic.getEndTime());
+        assertEquals(2_002, (int) savedManager.createTask(new Task("Task", "Task Description", Status.NEW)));
+    }
+
+    @Test
+    void binaryFormat_reloadManager_tasksRestored() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        StorageConfig config = StorageConfig.defaults().withFormat(StorageFormat.BINARY);
+        TaskManager manager = Managers.getFileBacked(file, config);
+        Integer epicId = manager.createEpic(new Epic("Epic", "Epic Description", Status.NEW));
+        SubTask subTask = new SubTask("Subtask", "Subtask Description", Status.IN_PROGRESS, epicId,
+                Duration.ofMinutes(30), LocalDateTime.of(2024, 6, 26, 12, 0));
+        manager.createSubTask(subTask);
+        manager.createTask(new Task("Task", "Task Description", Status.NEW));
+
+        TaskManager savedManager = Managers.getFileBacked(file);
+
+        assertEquals(manager.getAllTasks(), savedManager.getAllTasks());
+        assertEquals(manager.getAllSubTasks(), savedManager.getAllSubTasks());
+        assertEquals(Status.IN_PROGRESS, savedManager.getEpic(epicId).getStatus());
+        assertEquals(subTask.getEndTime(), savedManager.getEpic(epicId).getEndTime());
+    }
+
+    @Test
+    void journalMode_descriptionWithCommaAndLineBreak_replayedUnchanged() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        StorageConfig config = StorageConfig.defaults().withJournal(100);
+        TaskManager manager = Managers.getFileBacked(file, config);
+        Integer taskId = manager.createTask(new Task("Молоко, хлеб", "Первая строка\n\"вторая\", строка",
+                Status.NEW));
+
+        TaskManager savedManager = Managers.getFileBacked(file, config);
+
+        assertEquals("Молоко, хлеб", savedManager.getTask(taskId).getName());
+        assertEquals("Первая строка\n\"вторая\", строка", savedManager.getTask(taskId).getDescription());
+    }
+
+    @Test
+    void loadManager_incompleteTempFileLeftOver_storageFileLoadedAndTempRemoved() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        TaskManager manager = Managers.getFileBacked(file, StorageConfig.defaults()
+                .withFsync(FsyncPolicy.NEVER, Duration.ZERO));
+        Integer taskId = manager.createTask(new Task("Task1", "Task Description", Status.NEW));
+        Path tempFile = AtomicFileWriter.tempFileFor(file);
+        String content = Files.readString(file);
+        Files.writeString(tempFile, content.substring(0, content.length() - 5));
+        Files.setLastModifiedTime(tempFile, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+        TaskManager savedManager = Managers.getFileBacked(file);
+
+        assertEquals("Task1", savedManager.getTask(taskId).getName());
+        assertFalse(Files.exists(tempFile));
+    }
+
+    @Test
+    void loadManager_completeTempFileNewerThanStorageFile_tempFilePromoted() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        TaskManager manager = Managers.getFileBacked(file);
+        Integer taskId = manager.createTask(new Task("Task1", "Task Description", Status.NEW));
+        Path tempFile = AtomicFileWriter.tempFileFor(file);
+        Files.copy(file, tempFile);
+        Files.writeString(file, "id,type,name,status,description,epic,duration,startTime\n");
+        Files.setLastModifiedTime(tempFile, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+        TaskManager savedManager = Managers.getFileBacked(file);
+
+        assertEquals("Task1", savedManager.getTask(taskId).getName());
+        assertFalse(Files.exists(tempFile));
+        assertEquals(1, Managers.getFileBacked(file).getAllTasks().size());
+    }
+
+    @Test
+    void snapshot_mutationsAfterSnapshot_onlyNewerJournalRecordsReplayed() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        StorageConfig config = StorageConfig.defaults().withSnapshots(Duration.ofHours(1), 2);
+        SnapshotStore snapshotStore = new SnapshotStore(file);
+
+        try (FileBackedTaskManager manager = FileBackedTaskManager.open(file, config)) {
+            Integer epicId = manager.createEpic(new Epic("Epic", "Epic Description", Status.NEW));
+            SubTask subTask = new SubTask("Subtask", "Subtask Description", Status.NEW, epicId);
+            manager.createSubTask(subTask);
+            long firstSequence = manager.snapshot();
+
+            subTask.setStatus(Status.DONE);
+            manager.updateSubTask(subTask);
+            manager.snapshot();
+            manager.createTask(new Task("Task1", "Task Description", Status.NEW));
+            manager.snapshot();
+            manager.createTask(new Task("Task2", "Task Description", Status.NEW));
+
+            List<SnapshotStore.Snapshot> snapshots = snapshotStore.list();
+            assertEquals(2, snapshots.size());
+            assertTrue(snapshots.get(snapshots.size() - 1).sequence() > firstSequence);
+            assertEquals(1, journalSize(file));
+
+            TaskManager savedManager = Managers.getFileBacked(file, config);
+
+            assertEquals(2, savedManager.getAllTasks().size());
+            assertEquals(Status.DONE, savedManager.getEpic(epicId).getStatus());
+            assertEquals(manager.getAllSubTasks(), savedManager.getAllSubTasks());
+        }
+    }
+
+    @Test
+    void scheduledSnapshots_intervalElapsed_snapshotWrittenInBackground() throws Exception {
+        Path file = Files.createTempFile(null, null);
+        StorageConfig config = StorageConfig.defaults().withSnapshots(Duration.ofMillis(20), 1);
+        SnapshotStore snapshotStore = new SnapshotStore(file);
+
+        try (FileBackedTaskManager manager = FileBackedTaskManager.open(file, config)) {
+            Integer taskId = manager.createTask(new Task("Task1", "Task Description", Status.NEW));
+
+            for (int attempt = 0; attempt < 250 && snapshotStore.list().isEmpty(); attempt++) {
+                Thread.sleep(20);
+            }
+
+            assertEquals(1, snapshotStore.list().size());
+            assertEquals("Task1", Managers.getFileBacked(file, StorageConfig.defaults()).getTask(taskId).getName());
+            assertTrue(snapshotStore.list().isEmpty());
+        }
+    }
+
+    @Test
+    void shardedStorage_updateSubTask_onlyEpicShardRewritten() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        StorageConfig config = StorageConfig.defaults().withShards(4);
+        ShardSet shards = new ShardSet(file, 4);
+        TaskManager manager = Managers.getFileBacked(file, config);
+        Integer epicId = manager.createEpic(new Epic("Epic", "Epic Description", Status.NEW));
+        SubTask subTask = new SubTask("Subtask", "Subtask Description", Status.NEW, epicId);
+        manager.createSubTask(subTask);
+        manager.createTask(new Task("Task", "Task Description", Status.NEW));
+
+        assertFalse(Files.exists(file));
+        assertEquals(4, shards.existingFiles().size());
+
+        for (Path shardFile : shards.existingFiles().values()) {
+            Files.setLastModifiedTime(shardFile, FileTime.fromMillis(0));
+        }
+
+        subTask.setStatus(Status.DONE);
+        manager.updateSubTask(subTask);
+
+        for (Map.Entry<Integer, Path> shardFile : shards.existingFiles().entrySet()) {
+            boolean rewritten = Files.getLastModifiedTime(shardFile.getValue()).toMillis() != 0;
+            assertEquals(shardFile.getKey() == shards.shardOf(epicId), rewritten);
+        }
+
+        TaskManager savedManager = Managers.getFileBacked(file, config);
+
+        assertEquals(manager.getAllTasks(), savedManager.getAllTasks());
+        assertEquals(Status.DONE, savedManager.getEpic(epicId).getStatus());
+        assertEquals(List.of(subTask.getId()), savedManager.getEpic(epicId).getSubTaskIds());
+    }
+
+    @Test
+    void shardedStorage_subTaskMovedAndEpicRemoved_reopenedBoardMatches() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        StorageConfig config = StorageConfig.defaults().withShards(4);
+        TaskManager manager = Managers.getFileBacked(file, config);
+        Integer firstEpicId = manager.createEpic(new Epic("Epic1", "Epic Description", Status.NEW));
+        Integer secondEpicId = manager.createEpic(new Epic("Epic2", "Epic Description", Status.NEW));
+        Integer movedId = manager.createSubTask(new SubTask("Subtask1", "Subtask Description", Status.DONE,
+                firstEpicId));
+        manager.createSubTask(new SubTask("Subtask2", "Subtask Description", Status.NEW, firstEpicId));
+        SubTask moved = new SubTask("Subtask1", "Subtask Description", Status.DONE, secondEpicId);
+        moved.setId(movedId);
+        manager.updateSubTask(moved);
+        manager.removeEpic(firstEpicId);
+
+        TaskManager savedManager = Managers.getFileBacked(file, config);
+
+        assertEquals(List.of(secondEpicId), savedManager.getAllEpics().stream().map(Task::getId).toList());
+        assertEquals(List.of(movedId), savedManager.getEpic(secondEpicId).getSubTaskIds());
+        assertEquals(Status.DONE, savedManager.getEpic(secondEpicId).getStatus());
+        assertEquals(1, savedManager.getAllSubTasks().size());
+    }
+
+    @Test
+    void shardedStorage_reopenUnsharded_shardsFoldedIntoStorageFile() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        TaskManager manager = Managers.getFileBacked(file, StorageConfig.defaults().withShards(3));
+
+        for (int i = 0; i < 10; i++) {
+            manager.createTask(new Task("Task" + i, "Task Description", Status.NEW));
+        }
+
+        TaskManager savedManager = Managers.getFileBacked(file);
+
+        assertEquals(10, savedManager.getAllTasks().size());
+        assertTrue(Files.exists(file));
+        assertTrue(new ShardSet(file, 3).existingFiles().isEmpty());
+    }
+
+    @Test
+    void gzipCompression_reopenWithoutCompression_formatAutoDetected() throws IOException {
+        for (StorageFormat format : StorageFormat.values()) {
+            Path file = Files.createTempFile(null, null);
+            StorageConfig config = StorageConfig.defaults().withFormat(format).withCompression(Compression.GZIP);
+            TaskManager manager = Managers.getFileBacked(file, config);
+            Integer epicId = manager.createEpic(new Epic("Epic", "Одинаковое описание", Status.NEW));
+            manager.createSubTask(new SubTask("Subtask", "Одинаковое описание", Status.DONE, epicId));
+
+            assertEquals(Compression.GZIP, Compression.detect(file));
+
+            TaskManager savedManager = Managers.getFileBacked(file);
+
+            assertEquals(manager.getAllSubTasks(), savedManager.getAllSubTasks());
+            assertEquals(Status.DONE, savedManager.getEpic(epicId).getStatus());
+        }
+    }
+
+    @Test
+    void journalMode_tornLastRecord_recordTruncatedAndOthersRecovered() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        StorageConfig config = StorageConfig.defaults().withJournal(100);
+        TaskManager manager = Managers.getFileBacked(file, config);
+        Integer firstId = manager.createTask(new Task("Task1", "Task Description", Status.NEW));
+        Integer secondId = manager.createTask(new Task("Task2", "Task Description", Status.NEW));
+        Path journalFile = file.resolveSibling(file.getFileName() + TaskJournal.FILE_SUFFIX);
+        long intactSize = Files.size(journalFile);
+        manager.createTask(new Task("Task3", "Task Description", Status.NEW));
+
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(journalFile) - 3);
+        }
+
+        try (FileBackedTaskManager savedManager = FileBackedTaskManager.open(file, config)) {
+            assertEquals(2, savedManager.getRecoveredRecordCount());
+            assertEquals(List.of(firstId, secondId), savedManager.getAllTasks().stream().map(Task::getId).toList());
+            assertEquals(intactSize, Files.size(journalFile));
+
+            Integer nextId = savedManager.createTask(new Task("Task4", "Task Description", Status.NEW));
+            assertEquals(3, journalSize(file));
+            assertEquals("Task4", Managers.getFileBacked(file, config).getTask(nextId).getName());
+        }
+    }
+
+    @Test
+    void lazyDescriptions_reopenAfterCompaction_descriptionsLoadedFromHeapFile() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        StorageConfig config = StorageConfig.defaults().withJournal(3).withLazyDescriptions(2);
+        List<Integer> taskIds = new ArrayList<>();
+
+        try (FileBackedTaskManager manager = FileBackedTaskManager.open(file, config)) {
+            for (int i = 0; i < 5; i++) {
+                taskIds.add(manager.createTask(new Task("Task" + i, "Description, line\n" + i, Status.NEW)));
+            }
+
+            Task task = manager.getTask(taskIds.getFirst());
+            task.setDescription(null);
+            manager.updateTask(task);
+
+            assertFalse(manager.getTask(taskIds.get(1)).isDescriptionLoaded());
+        }
+
+        assertFalse(Files.readString(file).contains("Description"));
+
+        try (FileBackedTaskManager savedManager = FileBackedTaskManager.open(file, config)) {
+            assertNull(savedManager.getTask(taskIds.getFirst()).getDescription());
+
+            for (int i = 1; i < 5; i++) {
+                Task task = savedManager.getTask(taskIds.get(i));
+
+                assertFalse(task.isDescriptionLoaded());
+                assertEquals("Description, line\n" + i, task.getDescription());
+            }
+        }
+
+        TaskManager eagerManager = Managers.getFileBacked(file);
+
+        assertEquals("Description, line\n4", eagerManager.getTask(taskIds.getLast()).getDescription());
+        assertTrue(eagerManager.getTask(taskIds.getLast()).isDescriptionLoaded());
+        assertFalse(Files.exists(DescriptionStore.fileFor(file)));
+    }
+
+    @Test
+    void lazyDescriptions_eagerSnapshot_descriptionsMovedToHeapFile() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        TaskManager eagerManager = Managers.getFileBacked(file);
+        Integer epicId = eagerManager.createEpic(new Epic("Epic", "Epic Description", Status.NEW));
+        Integer subTaskId = eagerManager.createSubTask(new SubTask("SubTask", "SubTask Description", Status.DONE,
+                epicId));
+
+        try (FileBackedTaskManager manager = FileBackedTaskManager.open(file,
+                StorageConfig.defaults().withLazyDescriptions(16))) {
+            SubTask subTask = manager.getSubTask(subTaskId);
+
+            assertFalse(subTask.isDescriptionLoaded());
+            assertEquals("SubTask Description", subTask.getDescription());
+            assertEquals("Epic Description", manager.getEpic(epicId).getDescription());
+            assertEquals(Status.DONE, manager.getEpic(epicId).getStatus());
+            assertTrue(Files.size(DescriptionStore.fileFor(file)) > 0);
+        }
+    }
+
+    @Test
+    void backup_snapshotAndJournal_copyOpensWithBoardAtBackupTime() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        Path backupDirectory = Files.createTempDirectory(null).resolve("backup");
+        StorageConfig config = StorageConfig.defaults().withSnapshots(Duration.ofHours(1), 1);
+
+        try (FileBackedTaskManager manager = FileBackedTaskManager.open(file, config)) {
+            Integer epicId = manager.createEpic(new Epic("Epic", "Epic Description", Status.NEW));
+            manager.createSubTask(new SubTask("Subtask", "Subtask Description", Status.DONE, epicId));
+            manager.snapshot();
+            manager.createTask(new Task("Task1", "Task Description", Status.NEW));
+
+            Path backupFile = manager.backup(backupDirectory);
+            manager.createTask(new Task("Task2", "Task Description", Status.NEW));
+            manager.snapshot();
+
+            assertEquals(file.getFileName(), backupFile.getFileName());
+            assertEquals(3, Files.list(backupDirectory).count());
+            assertFalse(Files.exists(AtomicFileWriter.tempFileFor(backupDirectory)));
+
+            try (FileBackedTaskManager restored = FileBackedTaskManager.open(backupFile, config)) {
+                assertEquals(1, restored.getAllTasks().size());
+                assertEquals(Status.DONE, restored.getEpic(epicId).getStatus());
+                assertEquals(manager.getAllSubTasks(), restored.getAllSubTasks());
+            }
+        }
+    }
+
+    @Test
+    void backup_lazyDescriptions_heapFileCopiedUpToBackupPoint() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        Path backupDirectory = Files.createTempDirectory(null).resolve("backup");
+        StorageConfig config = StorageConfig.defaults().withLazyDescriptions(16);
+
+        try (FileBackedTaskManager manager = FileBackedTaskManager.open(file, config)) {
+            Task task = new Task("Task1", "Description before backup", Status.NEW);
+            Integer taskId = manager.createTask(task);
+            Path backupFile = manager.backup(backupDirectory);
+            task.setDescription("Description after backup");
+            manager.updateTask(task);
+
+            assertThrows(IllegalArgumentException.class, () -> manager.backup(backupDirectory));
+
+            try (FileBackedTaskManager restored = FileBackedTaskManager.open(backupFile, config)) {
+                assertEquals("Description before backup", restored.getTask(taskId).getDescription());
+            }
+        }
+    }
+
+    private static int journalSize(Path file) {
+        TaskJournal journal = new TaskJournal(file);
+        journal.replay(record -> {
+        });
+
+        return journal.size();
+    }
 }
@@ -1,11 +1,13 @@
 package io.github.h2kb.manager;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.github.h2kb.task.Status;
 import io.github.h2kb.task.Task;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -58,4 +60,53 @@ class InMemoryHistoryManagerTest {
         assertEquals("Task 2", historyManager.getHistory().getFirst().getName());
         assertEquals("Double of task", historyManager.getHistory().getLast().getName());
     }
-}
\ No newline at end of file
+
+    @Test
+    void addHistory_largeCapacity_oldestEvictedAndViewedTaskMovedToEnd() {
+        historyManager = Managers.getDefaultHistory(5000);
+
+        for (int i = 0; i < 6000; i++) {
+            Task task = new Task("Task " + i, "Description task " + i, Status.NEW);
+            task.setId(i * 1024);
+            historyManager.add(task);
+        }
+
+        Task viewedAgain = new Task("Task 1000", "Description task 1000", Status.DONE);
+        viewedAgain.setId(1000 * 1024);
+        historyManager.add(viewedAgain);
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(5000, history.size());
+        assertEquals("Task 1001", history.getFirst().getName());
+        assertEquals(Status.DONE, history.getLast().getStatus());
+    }
+
+    @Test
+    void removeHistory_collidingIdsRemovedInAnyOrder_remainingTasksStillFound() {
+        historyManager = Managers.getDefaultHistory(64);
+
+        for (int i = 0; i < 64; i++) {
+            Task task = new Task("Task " + i, "Description task " + i, Status.NEW);
+            task.setId(i << 8);
+            historyManager.add(task);
+        }
+
+        for (int i = 0; i < 64; i += 3) {
+            historyManager.remove(i << 8);
+        }
+
+        historyManager.remove(12345);
+
+        for (int i = 1; i < 64; i += 3) {
+            Task task = new Task("Task " + i + " again", "Description task " + i, Status.NEW);
+            task.setId(i << 8);
+            historyManager.add(task);
+        }
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(42, history.size());
+        assertEquals("Task 2", history.getFirst().getName());
+        assertEquals("Task 61 again", history.getLast().getName());
+        assertFalse(history.stream().anyMatch(task -> task.getId() == 0));
+    }
+}
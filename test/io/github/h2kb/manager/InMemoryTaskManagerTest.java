@@ -14,6 +14,7 @@ import io.github.h2kb.task.SubTask;
 import io.github.h2kb.task.Task;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -225,4 +226,297 @@ class InMemoryTaskManagerTest {
                 taskManager.getEpic(epic1Id).getStartTime());
         assertEquals(taskManager.getSubTask(subTask2.getId()).getEndTime(), taskManager.getEpic(epic1Id).getEndTime());
     }
-}
\ No newline at end of file
+
+    @Test
+    void createTasks_adjacentIntervals_noIntersection() {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 26, 12, 0);
+        Task task1 = new Task("Task1 name", "Task description", Status.NEW, Duration.ofMinutes(15), start);
+        Task task2 = new Task("Task2 name", "Task description", Status.NEW, Duration.ofMinutes(15),
+                start.plusMinutes(15));
+        Task task3 = new Task("Task3 name", "Task description", Status.NEW, Duration.ofMinutes(15),
+                start.minusMinutes(15));
+
+        taskManager.createTask(task1);
+        taskManager.createTask(task2);
+        taskManager.createTask(task3);
+
+        assertEquals(List.of(task3, task1, task2), List.copyOf(taskManager.getPrioritizedTasks()));
+    }
+
+    @Test
+    void createTask_earlierTaskDoesNotOverlap_noIntersection() {
+        Task later = new Task("Later", "Task description", Status.NEW, Duration.ofMinutes(15),
+                LocalDateTime.of(2024, 6, 26, 14, 0));
+        Task earlier = new Task("Earlier", "Task description", Status.NEW, Duration.ofMinutes(15),
+                LocalDateTime.of(2024, 6, 26, 12, 0));
+
+        taskManager.createTask(later);
+        taskManager.createTask(earlier);
+
+        assertEquals(2, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void getOverlappingTasks_hasIntersections_returnOverlappingTasksInOrder() {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 26, 12, 0);
+        Task task1 = new Task("Task1 name", "Task description", Status.NEW, Duration.ofMinutes(10), start);
+        Task task2 = new Task("Task2 name", "Task description", Status.NEW, Duration.ofMinutes(10),
+                start.plusMinutes(20));
+        Task task3 = new Task("Task3 name", "Task description", Status.NEW, Duration.ofMinutes(10),
+                start.plusMinutes(40));
+        taskManager.createTask(task1);
+        taskManager.createTask(task2);
+        taskManager.createTask(task3);
+
+        Task probe = new Task("Probe", "Task description", Status.NEW, Duration.ofMinutes(25), start.plusMinutes(5));
+
+        assertEquals(List.of(task1, task2), taskManager.getOverlappingTasks(probe));
+    }
+
+    @Test
+    void updateTask_newTimeOverlapsAnotherTask_gotException() {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 26, 12, 0);
+        Task task1 = new Task("Task1 name", "Task description", Status.NEW, Duration.ofMinutes(15), start);
+        Task task2 = new Task("Task2 name", "Task description", Status.NEW, Duration.ofMinutes(15),
+                start.plusMinutes(30));
+        taskManager.createTask(task1);
+        Integer task2Id = taskManager.createTask(task2);
+
+        Task update = new Task("Task2 name", "Task description", Status.NEW, Duration.ofMinutes(15),
+                start.plusMinutes(10));
+        update.setId(task2Id);
+
+        assertThrows(TaskIntersectionOfTimeException.class, () -> taskManager.updateTask(update));
+        assertEquals(start.plusMinutes(30), taskManager.getTask(task2Id).getStartTime());
+
+        update.setStartTime(start.plusMinutes(20));
+        taskManager.updateTask(update);
+        assertEquals(List.of(task1, update), List.copyOf(taskManager.getPrioritizedTasks()));
+    }
+
+    @Test
+    void clearTasks_tasksHaveStartTime_prioritizedTasksCleared() {
+        taskManager.createTask(new Task("Task name", "Task description", Status.NEW, Duration.ofMinutes(15),
+                LocalDateTime.of(2024, 6, 26, 12, 0)));
+
+        taskManager.clearTasks();
+
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty());
+        taskManager.createTask(new Task("Task name", "Task description", Status.NEW, Duration.ofMinutes(15),
+                LocalDateTime.of(2024, 6, 26, 12, 0)));
+    }
+
+    @Test
+    void updateAndRemoveSubTasks_subTasksHaveStartTime_epicTimeFollowsSubTasks() {
+        Integer epicId = taskManager.createEpic(new Epic("Epic name", "Epic description", Status.NEW));
+        LocalDateTime start = LocalDateTime.of(2024, 6, 26, 12, 0);
+        SubTask subTask1 = new SubTask("Subtask 1", "Subtask description", Status.NEW, epicId,
+                Duration.ofMinutes(15), start);
+        SubTask subTask2 = new SubTask("Subtask 2", "Subtask description", Status.NEW, epicId,
+                Duration.ofMinutes(30), start.plusHours(1));
+        taskManager.createSubTask(subTask1);
+        taskManager.createSubTask(subTask2);
+
+        subTask1.setStartTime(start.plusHours(2));
+        subTask1.setStatus(Status.DONE);
+        taskManager.updateSubTask(subTask1);
+
+        Epic epic = taskManager.getEpic(epicId);
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+        assertEquals(Duration.ofMinutes(45), epic.getDuration());
+        assertEquals(start.plusHours(1), epic.getStartTime());
+        assertEquals(start.plusHours(2).plusMinutes(15), epic.getEndTime());
+
+        taskManager.removeSubTask(subTask2.getId());
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(Duration.ofMinutes(15), epic.getDuration());
+        assertEquals(start.plusHours(2), epic.getStartTime());
+
+        taskManager.removeSubTask(subTask1.getId());
+        assertEquals(Status.NEW, epic.getStatus());
+        assertEquals(Duration.ZERO, epic.getDuration());
+        assertNull(epic.getStartTime());
+        assertNull(epic.getEndTime());
+    }
+
+    @Test
+    void updateEpic_newEpicInstance_keepsCalculatedFields() {
+        Integer epicId = taskManager.createEpic(new Epic("Epic name", "Epic description", Status.NEW));
+        SubTask subTask = new SubTask("Subtask", "Subtask description", Status.DONE, epicId, Duration.ofMinutes(15),
+                LocalDateTime.of(2024, 6, 26, 12, 0));
+        taskManager.createSubTask(subTask);
+
+        Epic update = new Epic("Updated epic name", "Epic description", Status.NEW);
+        update.setId(epicId);
+        update.setSubTaskIds(taskManager.getEpic(epicId).getSubTaskIds());
+        taskManager.updateEpic(update);
+
+        Epic epic = taskManager.getEpic(epicId);
+        assertEquals("Updated epic name", epic.getName());
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(Duration.ofMinutes(15), epic.getDuration());
+        assertEquals(subTask.getStartTime(), epic.getStartTime());
+    }
+
+    @Test
+    void subTaskOperations_internalEpicLookups_historyContainsOnlyViewedTasks() {
+        Integer taskId = taskManager.createTask(new Task("Task", "Task Description", Status.NEW));
+        Integer epicId = taskManager.createEpic(new Epic("Epic", "Epic Description", Status.NEW));
+        SubTask subTask = new SubTask("SubTask1", "SubTask Description", Status.NEW, epicId);
+        Integer subTaskId = taskManager.createSubTask(subTask);
+        taskManager.createSubTask(new SubTask("SubTask2", "SubTask Description", Status.NEW, epicId));
+        taskManager.getTask(taskId);
+
+        subTask.setStatus(Status.DONE);
+        taskManager.updateSubTask(subTask);
+        taskManager.getSubTasksByEpicId(epicId);
+        taskManager.removeSubTask(subTaskId);
+
+        assertEquals(List.of(taskManager.getAllTasks().getFirst()), taskManager.getHistory());
+
+        taskManager.getEpic(epicId);
+        taskManager.clearSubTasks();
+
+        assertEquals(2, taskManager.getHistory().size());
+        assertEquals(Status.NEW, taskManager.getAllEpics().getFirst().getStatus());
+    }
+
+    @Test
+    void updateSubTask_epicChanged_movesSubTaskBetweenEpicAggregates() {
+        Integer oldEpicId = taskManager.createEpic(new Epic("Old epic", "Epic description", Status.NEW));
+        Integer newEpicId = taskManager.createEpic(new Epic("New epic", "Epic description", Status.NEW));
+        LocalDateTime start = LocalDateTime.of(2024, 6, 26, 12, 0);
+        Integer subTaskId = taskManager.createSubTask(new SubTask("SubTask", "SubTask description", Status.DONE,
+                oldEpicId, Duration.ofMinutes(15), start));
+
+        SubTask moved = new SubTask("SubTask", "SubTask description", Status.DONE, newEpicId,
+                Duration.ofMinutes(15), start);
+        moved.setId(subTaskId);
+        taskManager.updateSubTask(moved);
+
+        Epic oldEpic = taskManager.getEpic(oldEpicId);
+        Epic newEpic = taskManager.getEpic(newEpicId);
+        assertTrue(oldEpic.getSubTaskIds().isEmpty());
+        assertEquals(Status.NEW, oldEpic.getStatus());
+        assertEquals(Duration.ZERO, oldEpic.getDuration());
+        assertNull(oldEpic.getStartTime());
+        assertEquals(List.of(subTaskId), newEpic.getSubTaskIds());
+        assertEquals(Status.DONE, newEpic.getStatus());
+        assertEquals(start, newEpic.getStartTime());
+        assertEquals(List.of(moved), taskManager.getSubTasksByEpicId(newEpicId));
+    }
+
+    @Test
+    void restoreTasks_invalidRecords_leavesManagerUnchanged() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        LocalDateTime start = LocalDateTime.of(2024, 6, 26, 12, 0);
+        Integer taskId = manager.createTask(new Task("Task", "Task description", Status.NEW, Duration.ofMinutes(30),
+                start));
+
+        Epic epic = new Epic("Epic", "Epic description", Status.NEW);
+        epic.setId(10);
+        SubTask orphan = new SubTask("Orphan", "SubTask description", Status.NEW, 99);
+        orphan.setId(11);
+        Task overlapping = new Task("Overlapping", "Task description", Status.NEW, Duration.ofMinutes(30),
+                start.plusMinutes(10));
+        overlapping.setId(12);
+
+        assertThrows(IllegalArgumentException.class, () -> manager.restoreTasks(List.of(epic, orphan)));
+        assertThrows(IllegalStateException.class, () -> manager.restoreTasks(List.of(epic, overlapping)));
+
+        assertEquals(List.of(taskId), manager.getAllTasks().stream().map(Task::getId).toList());
+        assertTrue(manager.getAllEpics().isEmpty());
+        assertTrue(manager.getAllSubTasks().isEmpty());
+        assertEquals(1, manager.getPrioritizedTasks().size());
+        assertEquals(taskId + 1, (int) manager.createEpic(new Epic("Epic", "Epic description", Status.NEW)));
+    }
+
+    @Test
+    void findTasks_statusFilterAndCursor_pagesInIdOrderAfterInPlaceUpdate() {
+        for (int i = 0; i < 5; i++) {
+            taskManager.createTask(new Task("Task " + i, "Task description", Status.NEW));
+        }
+
+        Task task = taskManager.getTask(3);
+        task.setStatus(Status.DONE);
+        taskManager.updateTask(task);
+
+        TaskQuery newTasks = TaskQuery.all().withStatus(Status.NEW).withLimit(2);
+        List<Task> firstPage = taskManager.findTasks(newTasks);
+        List<Task> secondPage = taskManager.findTasks(newTasks.withAfter(TaskCursor.byId(firstPage.getLast())));
+
+        assertEquals(List.of(1, 2), firstPage.stream().map(Task::getId).toList());
+        assertEquals(List.of(4, 5), secondPage.stream().map(Task::getId).toList());
+        assertEquals(List.of(task), taskManager.findTasks(TaskQuery.all().withStatus(Status.DONE)));
+        assertTrue(taskManager.findTasks(newTasks.withAfter(TaskCursor.byId(secondPage.getLast()))).isEmpty());
+    }
+
+    @Test
+    void findSubTasks_epicAndStartRange_servedFromIndexesAndEpicStatusFollowsSubTasks() {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 26, 12, 0);
+        Integer epicId = taskManager.createEpic(new Epic("Epic", "Epic description", Status.NEW));
+        Integer otherEpicId = taskManager.createEpic(new Epic("Other epic", "Epic description", Status.NEW));
+
+        for (int i = 0; i < 4; i++) {
+            taskManager.createSubTask(new SubTask("SubTask " + i, "SubTask description", Status.DONE,
+                    i % 2 == 0 ? epicId : otherEpicId, Duration.ofMinutes(30), start.plusHours(i)));
+        }
+
+        Integer taskId = taskManager.createTask(new Task("Task", "Task description", Status.NEW,
+                Duration.ofMinutes(30), start.plusHours(1).plusMinutes(30)));
+
+        TaskQuery range = TaskQuery.all().withStartRange(start.plusHours(1), start.plusHours(3));
+
+        assertEquals(List.of(3, 5), taskManager.findSubTasks(TaskQuery.all().withEpicId(epicId))
+                .stream().map(Task::getId).toList());
+        assertEquals(List.of(4, 5), taskManager.findSubTasks(range).stream().map(Task::getId).toList());
+        assertEquals(List.of(taskId), taskManager.findTasks(range).stream().map(Task::getId).toList());
+        assertEquals(List.of(4, taskId, 5), taskManager.findPrioritizedTasks(range)
+                .stream().map(Task::getId).toList());
+        assertEquals(2, taskManager.findEpics(TaskQuery.all().withStatus(Status.DONE)).size());
+
+        taskManager.removeSubTask(3);
+        taskManager.removeSubTask(5);
+
+        assertEquals(List.of(otherEpicId), taskManager.findEpics(TaskQuery.all().withStatus(Status.DONE))
+                .stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void findTasks_startRangeStatusAndCursor_pagesInIdOrderFromSchedule() {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 26, 12, 0);
+
+        for (int i = 0; i < 8; i++) {
+            taskManager.createTask(new Task("Task " + i, "Task description", i == 4 ? Status.DONE : Status.NEW,
+                    Duration.ofMinutes(30), start.plusHours(7 - i)));
+        }
+
+        taskManager.createTask(new Task("Unscheduled", "Task description", Status.NEW));
+        TaskQuery range = TaskQuery.all().withStartRange(start.plusHours(1), start.plusHours(6))
+                .withStatus(Status.NEW).withLimit(2);
+        List<Task> firstPage = taskManager.findTasks(range);
+        List<Task> secondPage = taskManager.findTasks(range.withAfter(TaskCursor.byId(firstPage.getLast())));
+
+        assertEquals(List.of(3, 4), firstPage.stream().map(Task::getId).toList());
+        assertEquals(List.of(6, 7), secondPage.stream().map(Task::getId).toList());
+        assertTrue(taskManager.findTasks(range.withAfter(TaskCursor.byId(secondPage.getLast()))).isEmpty());
+    }
+
+    @Test
+    void findPrioritizedTasks_cursor_resumesAfterLastTaskInStartOrder() {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 26, 12, 0);
+
+        for (int i = 4; i >= 0; i--) {
+            taskManager.createTask(new Task("Task " + i, "Task description", Status.NEW, Duration.ofMinutes(30),
+                    start.plusHours(i)));
+        }
+
+        TaskQuery query = TaskQuery.all().withLimit(3);
+        List<Task> firstPage = taskManager.findPrioritizedTasks(query);
+        List<Task> secondPage = taskManager.findPrioritizedTasks(
+                query.withAfter(TaskCursor.decode(TaskCursor.byStartTime(firstPage.getLast()).encode())));
+
+        assertEquals(List.of(5, 4, 3), firstPage.stream().map(Task::getId).toList());
+        assertEquals(List.of(2, 1), secondPage.stream().map(Task::getId).toList());
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.h2kb.manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import io.github.h2kb.exception.TaskIntersectionOfTimeException;
+import io.github.h2kb.task.Epic;
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class JdbcTaskManagerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    private String url;
+    private JdbcTaskManager taskManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path directory = Files.createTempDirectory("kanban");
+        url = "jdbc:h2:" + directory.resolve("kanban").toAbsolutePath();
+
+        try {
+            DriverManager.getConnection(url).close();
+        } catch (SQLException e) {
+            assumeTrue(false, "No embedded JDBC driver on the classpath");
+        }
+
+        taskManager = new JdbcTaskManager(url);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (taskManager != null) {
+            taskManager.close();
+        }
+    }
+
+    @Test
+    void createTask_readById_returnsStoredRow() {
+        Task task = new Task("Task1", "Description, with comma", Status.NEW, Duration.ofMinutes(30), START);
+        Integer id = taskManager.createTask(task);
+
+        Task stored = taskManager.getTask(id);
+
+        assertNotNull(stored);
+        assertEquals("Task1", stored.getName());
+        assertEquals("Description, with comma", stored.getDescription());
+        assertEquals(Duration.ofMinutes(30), stored.getDuration());
+        assertEquals(START, stored.getStartTime());
+        assertEquals(List.of(stored), taskManager.getHistory());
+        assertNull(taskManager.getEpic(id));
+    }
+
+    @Test
+    void createSubTasks_epicAggregate_recalculatedFromRows() {
+        Integer epicId = taskManager.createEpic(new Epic("Epic1", "Epic Description", Status.NEW));
+        Integer first = taskManager.createSubTask(new SubTask("SubTask1", "Description", Status.DONE, epicId,
+                Duration.ofMinutes(30), START));
+        taskManager.createSubTask(new SubTask("SubTask2", "Description", Status.NEW, epicId,
+                Duration.ofMinutes(15), START.plusHours(1)));
+
+        Epic epic = taskManager.getEpic(epicId);
+
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+        assertEquals(Duration.ofMinutes(45), epic.getDuration());
+        assertEquals(START, epic.getStartTime());
+        assertEquals(START.plusMinutes(75), epic.getEndTime());
+        assertEquals(2, epic.getSubTaskIds().size());
+
+        taskManager.removeSubTask(first);
+
+        assertEquals(Status.NEW, taskManager.getEpic(epicId).getStatus());
+        assertEquals(1, taskManager.getSubTasksByEpicId(epicId).size());
+    }
+
+    @Test
+    void createTask_overlapsStoredTask_throwsException() {
+        taskManager.createTask(new Task("Task1", "Description", Status.NEW, Duration.ofMinutes(30), START));
+
+        assertThrows(TaskIntersectionOfTimeException.class, () -> taskManager.createTask(
+                new Task("Task2", "Description", Status.NEW, Duration.ofMinutes(30), START.plusMinutes(10))));
+        assertEquals(1, taskManager.getAllTasks().size());
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void reopen_afterRemoveEpic_keepsRemainingRowsAndIdCounter() {
+        Integer taskId = taskManager.createTask(new Task("Task1", "Description", Status.NEW));
+        Integer epicId = taskManager.createEpic(new Epic("Epic1", "Epic Description", Status.NEW));
+        taskManager.createSubTask(new SubTask("SubTask1", "Description", Status.NEW, epicId));
+        taskManager.removeEpic(epicId);
+        taskManager.close();
+
+        taskManager = new JdbcTaskManager(url);
+
+        assertEquals(taskId, taskManager.getAllTasks().getFirst().getId());
+        assertTrue(taskManager.getAllEpics().isEmpty());
+        assertTrue(taskManager.getAllSubTasks().isEmpty());
+        assertEquals(4, (int) taskManager.createTask(new Task("Task2", "Description", Status.NEW)));
+    }
+}
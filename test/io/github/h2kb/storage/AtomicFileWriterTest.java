@@ -0,0 +1,47 @@
+package io.github.h2kb.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class AtomicFileWriterTest {
+
+    @Test
+    void sync_everyNMsWithinInterval_forceDeferredUntilIntervalPassed() throws InterruptedException {
+        AtomicFileWriter fileWriter = new AtomicFileWriter(FsyncPolicy.EVERY_N_MS, Duration.ofMillis(200));
+        AtomicInteger forces = new AtomicInteger();
+        CountDownLatch deferredForce = new CountDownLatch(2);
+        AtomicFileWriter.ForceAction action = () -> {
+            forces.incrementAndGet();
+            deferredForce.countDown();
+        };
+
+        fileWriter.sync("journal", action);
+        fileWriter.sync("journal", action);
+        fileWriter.sync("journal", action);
+
+        assertEquals(1, forces.get());
+        assertTrue(deferredForce.await(2, TimeUnit.SECONDS));
+        assertEquals(2, forces.get());
+        fileWriter.close();
+    }
+
+    @Test
+    void close_deferredForcesPending_forcesRunBeforeReturning() {
+        AtomicFileWriter fileWriter = new AtomicFileWriter(FsyncPolicy.EVERY_N_MS, Duration.ofMinutes(1));
+        AtomicInteger forces = new AtomicInteger();
+
+        fileWriter.sync("journal", forces::incrementAndGet);
+        fileWriter.sync("journal", forces::incrementAndGet);
+        fileWriter.sync("directory", forces::incrementAndGet);
+
+        assertEquals(1, forces.get());
+        fileWriter.close();
+        assertEquals(3, forces.get());
+    }
+}
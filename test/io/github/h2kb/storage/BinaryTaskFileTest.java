@@ -0,0 +1,72 @@
+package io.github.h2kb.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.h2kb.task.Epic;
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BinaryTaskFileTest {
+
+    @Test
+    void writeAndOpen_mixedTasks_recordsDecoded() throws IOException {
+        Task task = new Task("Задача, с запятой", null, Status.IN_PROGRESS, Duration.ofMinutes(90),
+                LocalDateTime.of(2024, 6, 26, 12, 0, 30, 500));
+        task.setId(1);
+        Epic epic = new Epic("Epic", "Epic description", Status.NEW);
+        epic.setId(2);
+        SubTask subTask = new SubTask("Subtask", "", Status.DONE, 2);
+        subTask.setId(3);
+
+        Path file = Files.createTempFile(null, null);
+
+        try (OutputStream out = Files.newOutputStream(file)) {
+            BinaryTaskFile.write(List.of(task, epic, subTask), out);
+        }
+
+        assertTrue(BinaryTaskFile.isBinary(file));
+
+        BinaryTaskFile binaryTaskFile = BinaryTaskFile.open(file);
+        assertEquals(3, binaryTaskFile.size());
+
+        Task restoredTask = binaryTaskFile.get(0);
+        assertEquals(1, (int) restoredTask.getId());
+        assertEquals("Задача, с запятой", restoredTask.getName());
+        assertNull(restoredTask.getDescription());
+        assertEquals(Status.IN_PROGRESS, restoredTask.getStatus());
+        assertEquals(Duration.ofMinutes(90), restoredTask.getDuration());
+        assertEquals(task.getStartTime(), restoredTask.getStartTime());
+        assertSame(restoredTask, binaryTaskFile.get(0));
+
+        assertInstanceOf(Epic.class, binaryTaskFile.get(1));
+        assertEquals("Epic description", binaryTaskFile.get(1).getDescription());
+
+        SubTask restoredSubTask = (SubTask) binaryTaskFile.asList().get(2);
+        assertEquals(2, (int) restoredSubTask.getEpicId());
+        assertEquals("", restoredSubTask.getDescription());
+        assertNull(restoredSubTask.getStartTime());
+        assertNull(restoredSubTask.getDuration());
+    }
+
+    @Test
+    void isBinary_csvFile_returnFalse() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        Files.writeString(file, "id,type,name,status,description,epic,duration,startTime\n");
+
+        assertFalse(BinaryTaskFile.isBinary(file));
+    }
+}
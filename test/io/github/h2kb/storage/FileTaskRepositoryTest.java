@@ -0,0 +1,121 @@
+package io.github.h2kb.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import io.github.h2kb.task.Epic;
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class FileTaskRepositoryTest {
+
+    @Test
+    void load_csvAndBinaryFormats_recordsRoundTripAfterReopen() throws IOException {
+        for (StorageFormat format : StorageFormat.values()) {
+            Path file = Files.createTempFile(null, null);
+            Task task = new Task("Task1", "Description, with comma", Status.NEW, Duration.ofMinutes(30),
+                    LocalDateTime.of(2024, 1, 1, 10, 0));
+            task.setId(1);
+            Epic epic = new Epic("Epic1", "Epic Description", Status.NEW);
+            epic.setId(2);
+            SubTask subTask = new SubTask("SubTask1", "SubTask Description", Status.DONE, 2);
+            subTask.setId(3);
+
+            try (FileTaskRepository repository = new FileTaskRepository(file, format)) {
+                repository.batch(List.of(task, epic, subTask), List.of());
+            }
+
+            try (FileTaskRepository repository = new FileTaskRepository(file, StorageFormat.CSV)) {
+                assertEquals(format, repository.getFormat());
+                assertEquals(task, repository.load(1));
+                assertEquals("Description, with comma", repository.load(1).getDescription());
+                assertEquals(epic, repository.load(2));
+                assertEquals(2, (int) ((SubTask) repository.load(3)).getEpicId());
+            }
+        }
+    }
+
+    @Test
+    void scan_updatedAndDeletedRecords_onlyLatestLiveVersionsReturned() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        FileTaskRepository repository = new FileTaskRepository(file, StorageFormat.BINARY);
+
+        for (int i = 1; i <= 3; i++) {
+            Task task = new Task("Task" + i, "Task Description", Status.NEW);
+            task.setId(i);
+            repository.put(task);
+        }
+
+        Task updated = new Task("Task2", "Task Description", Status.DONE);
+        updated.setId(2);
+        repository.put(updated);
+        repository.delete(3);
+        repository.close();
+
+        FileTaskRepository reopened = new FileTaskRepository(file, StorageFormat.BINARY);
+        List<Task> tasks = new ArrayList<>();
+        reopened.scan(tasks::add);
+
+        assertEquals(2, tasks.size());
+        assertEquals(Status.DONE, tasks.get(1).getStatus());
+        assertNull(reopened.load(3));
+        reopened.close();
+    }
+
+    @Test
+    void compact_supersededRecords_fileShrinksAndRecordsStayReadable() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        FileTaskRepository repository = new FileTaskRepository(file, StorageFormat.CSV);
+
+        for (int i = 0; i < 10; i++) {
+            Task task = new Task("Task1", "Version " + i, Status.IN_PROGRESS);
+            task.setId(1);
+            repository.put(task);
+        }
+
+        long sizeBefore = Files.size(file);
+        repository.compact();
+
+        assertEquals(FileTaskRepository.HEADER_SIZE + (sizeBefore - FileTaskRepository.HEADER_SIZE) / 10, Files.size(file));
+        assertEquals("Version 9", repository.load(1).getDescription());
+        repository.close();
+
+        FileTaskRepository reopened = new FileTaskRepository(file, StorageFormat.CSV);
+        assertEquals(1, reopened.size());
+        assertEquals("Version 9", reopened.load(1).getDescription());
+        reopened.close();
+    }
+
+    @Test
+    void open_tornTail_truncatedToLastCompleteRecord() throws IOException {
+        Path file = Files.createTempFile(null, null);
+
+        try (FileTaskRepository repository = new FileTaskRepository(file, StorageFormat.CSV)) {
+            for (int i = 1; i <= 2; i++) {
+                Task task = new Task("Task" + i, "Task Description", Status.NEW);
+                task.setId(i);
+                repository.put(task);
+            }
+        }
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        try (FileTaskRepository repository = new FileTaskRepository(file, StorageFormat.CSV)) {
+            assertEquals(1, repository.size());
+            assertEquals("Task1", repository.load(1).getName());
+            assertEquals(FileTaskRepository.HEADER_SIZE + (bytes.length - FileTaskRepository.HEADER_SIZE) / 2,
+                    Files.size(file));
+        }
+    }
+}
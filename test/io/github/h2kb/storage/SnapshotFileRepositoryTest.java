@@ -0,0 +1,90 @@
+package io.github.h2kb.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.h2kb.task.Epic;
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class SnapshotFileRepositoryTest {
+
+    @Test
+    void batch_shardedLayout_onlyShardsOfChangedRecordsRewritten() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        ShardSet shards = new ShardSet(file, 4);
+        SnapshotFileRepository repository = newRepository(file, 4);
+        Epic epic = new Epic("Epic", "Epic Description", Status.NEW);
+        epic.setId(1);
+        SubTask subTask = new SubTask("SubTask", "SubTask Description", Status.NEW, 1);
+        subTask.setId(2);
+        Task task = new Task("Task", "Task Description", Status.NEW);
+        task.setId(3);
+        repository.replaceAll(List.of(epic, subTask, task));
+
+        assertFalse(Files.exists(file));
+        assertEquals(4, shards.existingFiles().size());
+
+        for (Path shardFile : shards.existingFiles().values()) {
+            Files.setLastModifiedTime(shardFile, FileTime.fromMillis(0));
+        }
+
+        subTask.setStatus(Status.DONE);
+        repository.batch(List.of(subTask), List.of(3));
+
+        for (Map.Entry<Integer, Path> shardFile : shards.existingFiles().entrySet()) {
+            boolean rewritten = Files.getLastModifiedTime(shardFile.getValue()).toMillis() != 0;
+            assertEquals(shardFile.getKey() == shards.shardOf(1) || shardFile.getKey() == shards.shardOf(3),
+                    rewritten);
+        }
+
+        SnapshotFileRepository reopened = newRepository(file, 4);
+        List<Task> records = new ArrayList<>();
+        reopened.scan(records::add);
+
+        assertEquals(2, records.size());
+        assertEquals(Status.DONE, reopened.load(2).getStatus());
+        assertNull(reopened.load(3));
+    }
+
+    @Test
+    void replaceAll_shardsReopenedUnsharded_storageFileWrittenAndShardsRemoved() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        SnapshotFileRepository sharded = newRepository(file, 3);
+
+        for (int id = 1; id <= 5; id++) {
+            Task task = new Task("Task" + id, "Task Description", Status.NEW);
+            task.setId(id);
+            sharded.put(task);
+        }
+
+        SnapshotFileRepository unsharded = newRepository(file, 1);
+        List<Task> records = new ArrayList<>();
+        unsharded.scan(records::add);
+
+        assertFalse(unsharded.isLayoutCurrent());
+
+        unsharded.replaceAll(records);
+
+        assertTrue(unsharded.isLayoutCurrent());
+        assertTrue(new ShardSet(file, 3).existingFiles().isEmpty());
+        assertEquals("Task4", newRepository(file, 1).load(4).getName());
+    }
+
+    private static SnapshotFileRepository newRepository(Path file, int shardCount) {
+        return new SnapshotFileRepository(file, StorageFormat.CSV, Compression.NONE, shardCount,
+                new AtomicFileWriter(FsyncPolicy.NEVER, Duration.ZERO));
+    }
+}
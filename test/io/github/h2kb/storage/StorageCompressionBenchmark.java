@@ -0,0 +1,58 @@
+package io.github.h2kb.storage;
+
+import io.github.h2kb.manager.FileBackedTaskManager;
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.Task;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reports file size, save latency and load latency of a board with repetitive descriptions for every storage format
+ * and compression. Run with {@code java StorageCompressionBenchmark [tasks]}.
+ */
+public class StorageCompressionBenchmark {
+
+    private static final String[] DESCRIPTIONS = {
+            "Подготовить релиз, обновить changelog и согласовать дату выкладки с командой",
+            "Разобрать входящие обращения пользователей и завести задачи на найденные ошибки",
+            "Провести ревью изменений, проверить тесты и оставить комментарии автору"
+    };
+
+    public static void main(String[] args) throws IOException {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        for (StorageFormat format : StorageFormat.values()) {
+            for (Compression compression : Compression.values()) {
+                measure(taskCount, StorageConfig.defaults()
+                        .withJournal(Integer.MAX_VALUE)
+                        .withFormat(format)
+                        .withCompression(compression));
+            }
+        }
+    }
+
+    private static void measure(int taskCount, StorageConfig config) throws IOException {
+        Path file = Files.createTempFile("tasks", ".storage");
+
+        try (FileBackedTaskManager manager = FileBackedTaskManager.open(file, config)) {
+            for (int i = 0; i < taskCount; i++) {
+                manager.createTask(new Task("Task " + i, DESCRIPTIONS[i % DESCRIPTIONS.length], Status.NEW));
+            }
+
+            long saveStart = System.nanoTime();
+            manager.compact().join();
+            long saveMillis = (System.nanoTime() - saveStart) / 1_000_000;
+
+            long loadStart = System.nanoTime();
+            FileBackedTaskManager.open(file, config).close();
+            long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+
+            System.out.printf("%-6s %-4s: %,12d bytes, save %5d ms, load %5d ms%n", config.format(),
+                    config.compression(), Files.size(file), saveMillis, loadMillis);
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + TaskJournal.FILE_SUFFIX));
+        }
+    }
+}
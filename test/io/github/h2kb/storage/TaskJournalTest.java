@@ -0,0 +1,103 @@
+package io.github.h2kb.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.Task;
+import io.github.h2kb.task.TaskType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TaskJournalTest {
+
+    @Test
+    void replay_corruptedFrameInTheMiddle_recordsBeforeItRecoveredAndRestDiscarded() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        TaskJournal journal = new TaskJournal(file);
+
+        for (int i = 1; i <= 3; i++) {
+            Task task = new Task("Task" + i, "Task Description", Status.NEW);
+            task.setId(i);
+            journal.append(JournalRecord.put(task), false);
+        }
+
+        byte[] bytes = Files.readAllBytes(journal.getJournalFile());
+        int secondPayload = TaskJournal.HEADER_SIZE + (bytes.length - TaskJournal.HEADER_SIZE) / 3
+                + TaskJournal.FRAME_HEADER_SIZE;
+        bytes[secondPayload + 2] ^= 0x20;
+        Files.write(journal.getJournalFile(), bytes);
+
+        TaskJournal recovered = new TaskJournal(file);
+        List<JournalRecord> records = new ArrayList<>();
+        recovered.replay(records::add);
+
+        assertEquals(1, records.size());
+        assertEquals(1, (int) records.get(0).taskId());
+        assertEquals(1, recovered.getRecoveredRecords());
+        assertEquals(bytes.length - secondPayload + TaskJournal.FRAME_HEADER_SIZE, recovered.getDiscardedBytes());
+    }
+
+    @Test
+    void replay_legacyTextJournal_recordsReplayedAndFileFramed() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        TaskJournal journal = new TaskJournal(file);
+        Files.writeString(journal.getJournalFile(), "1,PUT,1,TASK,Task1,NEW,Task Description,,0,\n2,DELETE,TASK,1\n");
+
+        List<JournalRecord> records = new ArrayList<>();
+        journal.replay(records::add);
+
+        assertEquals(2, records.size());
+        assertEquals(JournalRecord.Operation.DELETE, records.get(1).operation());
+        assertEquals(TaskType.TASK, records.get(1).taskType());
+        assertEquals(TaskJournal.MAGIC, ByteBuffer.wrap(Files.readAllBytes(journal.getJournalFile())).getInt());
+
+        TaskJournal reopened = new TaskJournal(file);
+        reopened.replay(record -> {
+        });
+        assertEquals(2, reopened.getRecoveredRecords());
+        assertEquals(3, reopened.sequence(JournalRecord.clear(TaskType.TASK)).sequence());
+    }
+
+    @Test
+    void replay_recordsCoveredBySnapshot_onlyReplayedRecordsCounted() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        TaskJournal journal = new TaskJournal(file);
+
+        for (int i = 1; i <= 3; i++) {
+            journal.append(JournalRecord.delete(TaskType.TASK, i), false);
+        }
+
+        journal.close();
+        TaskJournal reopened = new TaskJournal(file);
+        List<JournalRecord> records = new ArrayList<>();
+        reopened.replay(2, records::add);
+
+        assertEquals(1, records.size());
+        assertEquals(1, reopened.getRecoveredRecords());
+        assertEquals(1, reopened.size());
+    }
+
+    @Test
+    void append_afterTruncateUpTo_appendedToRewrittenJournal() throws IOException {
+        Path file = Files.createTempFile(null, null);
+        TaskJournal journal = new TaskJournal(file);
+
+        for (int i = 1; i <= 3; i++) {
+            journal.append(JournalRecord.delete(TaskType.TASK, i), false);
+        }
+
+        journal.truncateUpTo(2);
+        journal.append(JournalRecord.delete(TaskType.TASK, 4), true);
+        journal.close();
+
+        List<Long> sequences = new ArrayList<>();
+        new TaskJournal(file).replay(record -> sequences.add(record.sequence()));
+
+        assertEquals(List.of(3L, 4L), sequences);
+    }
+}
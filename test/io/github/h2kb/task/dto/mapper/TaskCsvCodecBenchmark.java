@@ -0,0 +1,139 @@
+package io.github.h2kb.task.dto.mapper;
+
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import io.github.h2kb.task.TaskType;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Compares the former split/joiner based CSV mapping with {@link TaskCsvCodec} on a 1M-row board file. Run with
+ * {@code java TaskCsvCodecBenchmark [rows] [rounds]}.
+ */
+public class TaskCsvCodecBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        List<Task> tasks = createTasks(rows);
+        Path file = Files.createTempFile("tasks", ".csv");
+
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                long legacyWrite = measure(() -> writeLegacy(tasks, file));
+                long legacyRead = measure(() -> readLegacy(file));
+                long codecWrite = measure(() -> writeCodec(tasks, file));
+                long codecRead = measure(() -> readCodec(file));
+
+                System.out.printf("Round %d: legacy write %d ms, read %d ms; codec write %d ms, read %d ms%n",
+                        round, legacyWrite, legacyRead, codecWrite, codecRead);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<Task> createTasks(int rows) {
+        List<Task> tasks = new ArrayList<>(rows);
+        LocalDateTime start = LocalDateTime.of(2024, 6, 26, 12, 0);
+
+        for (int i = 1; i <= rows; i++) {
+            Task task = i % 2 == 0
+                    ? new SubTask("Subtask " + i, "Subtask description " + i, Status.IN_PROGRESS, 1,
+                    Duration.ofMinutes(15), start.plusMinutes(15L * i))
+                    : new Task("Task " + i, "Task description " + i, Status.NEW, Duration.ofMinutes(15),
+                    start.plusMinutes(15L * i));
+            task.setId(i);
+            tasks.add(task);
+        }
+
+        return tasks;
+    }
+
+    private static void writeLegacy(List<Task> tasks, Path file) throws IOException {
+        try (BufferedWriter bw = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Task task : tasks) {
+                StringJoiner joiner = new StringJoiner(",");
+                TaskType taskType = TaskType.of(task);
+
+                joiner.add(task.getId().toString())
+                        .add(taskType.toString())
+                        .add(task.getName())
+                        .add(task.getStatus().toString())
+                        .add(task.getDescription())
+                        .add(task instanceof SubTask subTask ? subTask.getEpicId().toString() : "")
+                        .add(String.valueOf(task.getDuration().toMinutes()))
+                        .add(task.getStartTime().toString());
+                bw.write(joiner.toString());
+                bw.newLine();
+            }
+        }
+    }
+
+    private static int readLegacy(Path file) throws IOException {
+        int count = 0;
+
+        try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = br.readLine()) != null) {
+                String[] taskData = line.split(",");
+                Duration duration = Duration.ofMinutes(Long.parseLong(taskData[6]));
+                LocalDateTime startTime = LocalDateTime.parse(taskData[7]);
+                Task task = TaskType.from(taskData[1]) == TaskType.SUBTASK
+                        ? new SubTask(taskData[2], taskData[4], Status.valueOf(taskData[3]),
+                        Integer.valueOf(taskData[5]), duration, startTime)
+                        : new Task(taskData[2], taskData[4], Status.valueOf(taskData[3]), duration, startTime);
+                task.setId(Integer.valueOf(taskData[0]));
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static void writeCodec(List<Task> tasks, Path file) throws IOException {
+        try (TaskCsvCodec.CsvWriter writer = new TaskCsvCodec.CsvWriter(
+                Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            for (Task task : tasks) {
+                writer.writeTask(task);
+            }
+        }
+    }
+
+    private static int readCodec(Path file) throws IOException {
+        int count = 0;
+
+        try (TaskCsvCodec.CsvReader reader = new TaskCsvCodec.CsvReader(
+                Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            while (reader.next()) {
+                reader.task(0);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static long measure(IoAction action) throws IOException {
+        long startNanos = System.nanoTime();
+        action.run();
+
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private interface IoAction {
+
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.h2kb.task.dto.mapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.h2kb.task.Epic;
+import io.github.h2kb.task.Status;
+import io.github.h2kb.task.SubTask;
+import io.github.h2kb.task.Task;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+
+class TaskCsvCodecTest {
+
+    @Test
+    void writeAndRead_fieldsWithSeparatorsQuotesAndLineBreaks_roundTrip() throws IOException {
+        Task task = new Task("Купить молоко, хлеб", "Сказать \"спасибо\"\nи уйти", Status.IN_PROGRESS,
+                Duration.ofMinutes(45), LocalDateTime.of(2024, 6, 26, 12, 0, 30, 123_000_000));
+        task.setId(1);
+        Epic epic = new Epic("", null, Status.NEW);
+        epic.setId(2);
+        SubTask subTask = new SubTask("Subtask", "Subtask description", Status.DONE, 2);
+        subTask.setId(3);
+
+        StringBuilder csv = new StringBuilder();
+
+        for (Task record : new Task[] {task, epic, subTask}) {
+            TaskCsvCodec.writeTask(record, csv);
+            csv.append('\n');
+        }
+
+        TaskCsvCodec.CsvReader reader = new TaskCsvCodec.CsvReader(new StringReader(csv.toString()), 16);
+
+        assertTrue(reader.next());
+        Task restoredTask = reader.task(0);
+        assertEquals(1, (int) restoredTask.getId());
+        assertEquals(task.getName(), restoredTask.getName());
+        assertEquals(task.getDescription(), restoredTask.getDescription());
+        assertEquals(Status.IN_PROGRESS, restoredTask.getStatus());
+        assertEquals(Duration.ofMinutes(45), restoredTask.getDuration());
+        assertEquals(task.getStartTime(), restoredTask.getStartTime());
+
+        assertTrue(reader.next());
+        Task restoredEpic = reader.task(0);
+        assertInstanceOf(Epic.class, restoredEpic);
+        assertEquals("", restoredEpic.getName());
+        assertNull(restoredEpic.getDescription());
+
+        assertTrue(reader.next());
+        SubTask restoredSubTask = (SubTask) reader.task(0);
+        assertEquals(2, (int) restoredSubTask.getEpicId());
+        assertEquals(Status.DONE, restoredSubTask.getStatus());
+        assertNull(restoredSubTask.getStartTime());
+
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void mapTaskFromString_legacyUnquotedLine_taskParsed() {
+        Task task = TaskMapper.mapTaskFromString("7,SUBTASK,Subtask,NEW,Description,3, ,2024-06-26T12:00");
+
+        SubTask subTask = assertInstanceOf(SubTask.class, task);
+        assertEquals(7, (int) subTask.getId());
+        assertEquals(3, (int) subTask.getEpicId());
+        assertEquals(Duration.ZERO, subTask.getDuration());
+        assertEquals(LocalDateTime.of(2024, 6, 26, 12, 0), subTask.getStartTime());
+    }
+
+    @Test
+    void mapTaskToString_nameWithComma_fieldQuoted() {
+        Task task = new Task("Молоко, хлеб", "Description", Status.NEW, Duration.ofMinutes(15),
+                LocalDateTime.of(2024, 6, 26, 12, 0));
+        task.setId(1);
+
+        String line = TaskMapper.mapTaskToString(task);
+
+        assertEquals("1,TASK,\"Молоко, хлеб\",NEW,Description,,15,2024-06-26T12:00:00", line);
+        assertEquals(task.getName(), TaskMapper.mapTaskFromString(line).getName());
+    }
+}